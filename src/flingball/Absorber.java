@@ -3,7 +3,7 @@ package flingball;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 
 import physics.Circle;
@@ -13,33 +13,58 @@ import physics.Vect;
 
 /**
  * Represents an Absorber Gadget in a Flingball game.
+ * Capturing a ball, firing one, letting go of one and checking whether a ball was just fired 
+ * take constant time, however many balls the absorber holds.
  */
 class Absorber implements Gadget {
+    /** capacity of an absorber that doesn't say otherwise: as many balls as can be captured */
+    public static final int UNLIMITED_CAPACITY = Integer.MAX_VALUE;
+    /** balls fired per action by an absorber that doesn't say otherwise */
+    public static final int DEFAULT_EJECT_RATE = 1;
+    
     private final String name;
     private final int x, y, width, height;
+    private final int capacity, ejectRate;
     private final LineSegment bottom, top, left, right;
     private final Circle bottomLeft, bottomRight, topLeft, topRight;
-    private final List<Ball> holdBalls = new LinkedList<>();
-    private final List<LineSegment> edges = new ArrayList<>();
-    private final List<Circle> corners = new ArrayList<>();
+    private Ball[] holdBalls = new Ball[INITIAL_HOLD_SLOTS];
+    private int first = 0;
+    private int used = 0;
+    private int heldCount = 0;
+    private final List<LineSegment> edges;
+    private final List<Circle> corners;
     private final List<Gadget> actionObjects = new ArrayList<>();
-    private Ball ejected = new Ball("", 10, 10, 0, 0);
+    private final Ball[] ejected;
+    private int ejectedCount = 0;
     private final double HELD_BALL_OFFSET = 0.5;
+    private static final int INITIAL_HOLD_SLOTS = 4;
     
     // Abstract Function:
-    //   AF(name, x, y, width, height, bottom, top, left, right, bottomLeft, bottomRight, topLeft, topRight,
-    //      edges, corners, holdBalls, actionObjects, ejected, HELD_BALL_OFFSET) 
+    //   AF(name, x, y, width, height, capacity, ejectRate, bottom, top, left, right, bottomLeft, bottomRight, 
+    //      topLeft, topRight, edges, corners, holdBalls, first, used, heldCount, actionObjects, ejected, ejectedCount,
+    //      HELD_BALL_OFFSET) 
     //     = Absorber with a name with upper left corner at (x, y), a width and a height,
+    //         holding up to capacity balls and firing up to ejectRate of them per action,
     //         edges represented by bottom, top, left, right and 
     //         corners represented by bottomLeft, bottomRight, topLeft, topRight,
-    //         holdBalls list of balls being held in absorber,
+    //         holding the non-null balls of the used slots of the ring holdBalls, first captured first,
+    //           where the used slots are holdBalls[(first + k) % holdBalls.length] for 0 <= k < used,
+    //           and a slot a ball held has been let go of from is null,
     //         actionObjects representing objects to be affected when absorber is triggered
-    //         ejected maps to the previously ejected ball, 
+    //         ejected[0..ejectedCount-1] are the balls of the last burst fired that haven't been captured again;
+    //         balls are identified by their handles, of which a game makes exactly one per ball,
+    //           so they are compared with == rather than equals()
     //         HELD_BALL_OFFSET is the offset in the x and y positions from the bottom right of the absorber
     //           of balls held in the absorber
     // Rep Invariant:
     //   x and y must be between 0 and 19
     //   width and height must be positive integer <= 20
+    //   capacity >= 0, ejectRate >= 1
+    //   heldCount <= capacity
+    //   0 <= first < holdBalls.length, 0 <= heldCount <= used <= holdBalls.length
+    //   heldCount is the number of non-null used slots, and every other slot is null
+    //   holdBalls[s].heldSlot() == s for every non-null slot s
+    //   ejected.length == ejectRate, 0 <= ejectedCount <= ejectRate
     //   coordinates in bottom, top, left, right, bottomLeft, bottomRight, topLeft, and topRight 
     //     must be between 0 and 20
     //   bottomLeft and bottomRight must be endpoints of bottom
@@ -47,10 +72,15 @@ class Absorber implements Gadget {
     //   topLeft and topRight must be endpoints of top
     //   topRight and bottomRight must be endpoints of right
     // Safety from rep exposure:
-    //   all fields private and final
+    //   all fields private, and final except holdBalls, which grows, and the counts and indices into it and ejected
+    //   edges and corners are never mutated after construction, and only their copies are returned,
+    //     so copies of this absorber share them along with the immutable segments and circles;
+    //     holdBalls, ejected and actionObjects belong to each absorber alone
+    //   holdBalls is never returned, only copies of the balls it holds
+    //   the balls held and fired are the game's own handles, which the game hands to this absorber on purpose
     
     /**
-     * Create an Absorber.
+     * Create an Absorber of UNLIMITED_CAPACITY, firing DEFAULT_EJECT_RATE balls per action.
      * @param name of the absorber
      * @param x coord of the top left corner
      * @param y coord of the top left corner
@@ -58,11 +88,36 @@ class Absorber implements Gadget {
      * @param height of the absorber
      */
     public Absorber(String name, int x, int y, int width, int height) {
+        this(name, x, y, width, height, UNLIMITED_CAPACITY, DEFAULT_EJECT_RATE);
+    }
+    
+    /**
+     * Create an Absorber. 
+     * @param name of the absorber
+     * @param x coord of the top left corner
+     * @param y coord of the top left corner
+     * @param width of the absorber
+     * @param height of the absorber
+     * @param capacity most balls the absorber holds at once, >= 0; 
+     *        a full absorber bounces balls off like a bumper, still triggering its actions
+     * @param ejectRate most balls the absorber fires per action, >= 1
+     * @throws IllegalArgumentException if capacity or ejectRate is out of range
+     */
+    public Absorber(String name, int x, int y, int width, int height, int capacity, int ejectRate) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative, not " + capacity);
+        }
+        if (ejectRate < 1) {
+            throw new IllegalArgumentException("eject rate must be positive, not " + ejectRate);
+        }
         this.name = name;
         this.x = x;
         this.y = y;
         this.width = width;
         this.height = height;
+        this.capacity = capacity;
+        this.ejectRate = ejectRate;
+        this.ejected = new Ball[ejectRate];
         this.bottom = new LineSegment(x+width, y+height, x, y+height);
         this.top = new LineSegment(x, y, x+width, y);
         this.left = new LineSegment(x, y+height, x, y);
@@ -72,6 +127,8 @@ class Absorber implements Gadget {
         this.topLeft = new Circle(x, y, 0);
         this.topRight = new Circle(x+width, y, 0);
         
+        this.edges = new ArrayList<>();
+        this.corners = new ArrayList<>();
         edges.add(bottom);
         edges.add(top);
         edges.add(left);
@@ -84,6 +141,33 @@ class Absorber implements Gadget {
         checkRep();
     }
     
+    /**
+     * Create an absorber with the same name and geometry as another, sharing its immutable geometry,
+     * holding no balls and with no action objects.
+     * @param prototype absorber to copy
+     */
+    private Absorber(Absorber prototype) {
+        this.name = prototype.name;
+        this.x = prototype.x;
+        this.y = prototype.y;
+        this.width = prototype.width;
+        this.height = prototype.height;
+        this.capacity = prototype.capacity;
+        this.ejectRate = prototype.ejectRate;
+        this.ejected = new Ball[prototype.ejectRate];
+        this.bottom = prototype.bottom;
+        this.top = prototype.top;
+        this.left = prototype.left;
+        this.right = prototype.right;
+        this.bottomLeft = prototype.bottomLeft;
+        this.bottomRight = prototype.bottomRight;
+        this.topLeft = prototype.topLeft;
+        this.topRight = prototype.topRight;
+        this.edges = prototype.edges;
+        this.corners = prototype.corners;
+        checkRep();
+    }
+    
     /**
      * Check that the rep invariant is satisfied.
      */
@@ -93,18 +177,23 @@ class Absorber implements Gadget {
         assert(y >= 0 && y <= WALL_LENGTH-1);
         assert(width >= 1 && width <= WALL_LENGTH);
         assert(height >= 1 && height <= WALL_LENGTH);
+        assert capacity >= 0 && ejectRate >= 1;
+        assert heldCount <= capacity : "absorber over capacity";
+        assert first >= 0 && first < holdBalls.length;
+        assert heldCount >= 0 && heldCount <= used && used <= holdBalls.length;
+        assert ejected.length == ejectRate && ejectedCount >= 0 && ejectedCount <= ejectRate;
         
-        for (LineSegment edge : edges) {
-            Vect p1 = edge.p1();
-            Vect p2 = edge.p2();
+        for (int i = 0; i < edges.size(); i++) {
+            Vect p1 = edges.get(i).p1();
+            Vect p2 = edges.get(i).p2();
             assert(p1.x() >= 0 && p1.x() <= WALL_LENGTH) : "edge center out of range, p1.x(), value is " + p1.x();
             assert(p1.y() >= 0 && p1.y() <= WALL_LENGTH) : "edge center out of range, p1.y(), value is " + p1.y();
             assert(p2.x() >= 0 && p2.x() <= WALL_LENGTH) : "edge center out of range, p2.x(), value is " + p2.x();
             assert(p2.y() >= 0 && p2.y() <= WALL_LENGTH) : "edge center out of range, p2.y(), value is " + p2.y();
         }
 
-        for (Circle corner : corners) {
-            Vect center = corner.getCenter();
+        for (int i = 0; i < corners.size(); i++) {
+            Vect center = corners.get(i).getCenter();
             assert(center.x() >= 0 && center.x() <= WALL_LENGTH) : "corner center out of range, x";
             assert(center.y() >= 0 && center.y() <= WALL_LENGTH) : "corner center out of range, y";
         }
@@ -157,6 +246,7 @@ class Absorber implements Gadget {
     /**
      * @return list of edges of the absorber
      */
+    @Override
     public List<LineSegment> getEdges() {
         List<LineSegment> edgesCopy = new ArrayList<>();
         edgesCopy.add(new LineSegment(bottom.p1(), bottom.p2()));
@@ -169,6 +259,7 @@ class Absorber implements Gadget {
     /**
      * @return list of corners of the absorber
      */
+    @Override
     public List<Circle> getCorners() {
         List<Circle> cornersCopy = new ArrayList<>();
         cornersCopy.add(new Circle(bottomLeft.getCenter(), bottomLeft.getRadius()));
@@ -178,17 +269,113 @@ class Absorber implements Gadget {
         return cornersCopy;
     }
     
+    /**
+     * @return most balls the absorber holds at once
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+    
+    /**
+     * @return most balls the absorber fires per action
+     */
+    public int getEjectRate() {
+        return this.ejectRate;
+    }
+    
+    /**
+     * @return number of balls being held by the absorber
+     */
+    public int heldCount() {
+        return this.heldCount;
+    }
+    
     /**
      * @return list of balls being held by the absorber
      */
     public List<Ball> getBalls() {
         List<Ball> ballsCopy = new ArrayList<>();
-        for (Ball b : holdBalls) {
-            ballsCopy.add(b.copy());
+        for (int k = 0; k < used; k++) {
+            Ball b = holdBalls[(first + k) % holdBalls.length];
+            if (b != null) {
+                ballsCopy.add(b.copy());
+            }
         }
         return ballsCopy;
     }
     
+    /**
+     * Hold a ball after every ball held already, making room in holdBalls if it is full.
+     * @param ball to hold, not held already
+     */
+    private void hold(Ball ball) {
+        if (used == holdBalls.length) {
+            // pack the balls held into the start of the ring, doubling it unless letting go left room
+            Ball[] packed = new Ball[heldCount < holdBalls.length / 2 ? holdBalls.length : 2*holdBalls.length];
+            int count = 0;
+            for (int k = 0; k < used; k++) {
+                Ball b = holdBalls[(first + k) % holdBalls.length];
+                if (b != null) {
+                    b.setHeldSlot(count);
+                    packed[count++] = b;
+                }
+            }
+            holdBalls = packed;
+            first = 0;
+            used = count;
+        }
+        int slot = (first + used) % holdBalls.length;
+        holdBalls[slot] = ball;
+        ball.setHeldSlot(slot);
+        used++;
+        heldCount++;
+    }
+    
+    /**
+     * Stop holding the ball captured first.
+     * @return the ball held longest; requires heldCount > 0
+     */
+    private Ball removeFirst() {
+        // skip the slots of balls let go of; each is skipped once, so this takes constant amortized time
+        while (holdBalls[first] == null) {
+            first = (first + 1) % holdBalls.length;
+            used--;
+        }
+        Ball ball = holdBalls[first];
+        holdBalls[first] = null;
+        first = (first + 1) % holdBalls.length;
+        used--;
+        heldCount--;
+        ball.setHeldSlot(-1);
+        return ball;
+    }
+    
+    /**
+     * Let go of a ball that is leaving the game, if this absorber holds it or has just fired it.
+     * Takes time proportional to ejectRate at most, not to the number of balls held.
+     * @param ball to let go of
+     */
+    public void release(Ball ball) {
+        final int slot = ball.heldSlot();
+        if (slot >= 0 && slot < holdBalls.length && holdBalls[slot] == ball) {
+            holdBalls[slot] = null;
+            ball.setHeldSlot(-1);
+            heldCount--;
+            if (heldCount == 0) {
+                first = 0;
+                used = 0;
+            }
+        }
+        for (int k = 0; k < ejectedCount; k++) {
+            if (ejected[k] == ball) {
+                ejected[k] = ejected[--ejectedCount];
+                ejected[ejectedCount] = null;
+                break;
+            }
+        }
+        checkRep();
+    }
+    
     @Override
     public Double timeUntilCollision(Ball ball) {
         // initialize values
@@ -266,7 +453,9 @@ class Absorber implements Gadget {
             this.getOrigin().equals(thatAbsorber.getOrigin()) &&
             this.getEdges().equals(thatAbsorber.getEdges()) &&
             this.getCorners().equals(thatAbsorber.getCorners()) &&
-            this.holdBalls.equals(thatAbsorber.getBalls())) {
+            this.capacity == thatAbsorber.getCapacity() &&
+            this.ejectRate == thatAbsorber.getEjectRate() &&
+            this.getBalls().equals(thatAbsorber.getBalls())) {
             return true;
         }
         return false;
@@ -278,43 +467,94 @@ class Absorber implements Gadget {
     }
     
     @Override
-    public boolean trigger(Ball ball, double deltaT) {
-        if ((ball.equals(ejected) && !checkInside(ball)) || !ball.equals(ejected)) {
-            if (timeUntilCollision(ball) < deltaT) {
-                ball.setCenter(this.x + this.width - HELD_BALL_OFFSET, this.y + this.height - HELD_BALL_OFFSET);
-                ball.setVelocity(0, 0);
-                ball.setActive(false);
-                this.holdBalls.add(ball);
-                
-                for (Gadget actionObject: actionObjects) {
-                    actionObject.action();
-                }
-                
-                checkRep();
+    public boolean canCollide(Ball ball) {
+        // the balls just fired pass through the absorber until they have left it
+        return !(isEjected(ball) && checkInside(ball));
+    }
+    
+    /**
+     * @param ball to look for
+     * @return true iff ball was fired in the last burst and hasn't been captured since; 
+     *         takes time proportional to ejectRate, not to the number of balls held
+     */
+    private boolean isEjected(Ball ball) {
+        for (int k = 0; k < ejectedCount; k++) {
+            if (ejected[k] == ball) {
                 return true;
             }
         }
+        return false;
+    }
+    
+    @Override
+    public void collision(Ball ball, Collision result) {
+        Collisions.closestCollision(edges, corners, ball, result);
+    }
+    
+    @Override
+    public void collide(Ball ball, Collision contact) {
+        if (heldCount >= capacity) {
+            // full: bounce the ball off like a bumper
+            ball.setVelocity(contact.xVelocity(), contact.yVelocity());
+            checkRep();
+            return;
+        }
+        ball.setCenter(this.x + this.width - HELD_BALL_OFFSET, this.y + this.height - HELD_BALL_OFFSET);
+        ball.setVelocity(0, 0);
+        ball.setActive(false);
+        hold(ball);
+        for (int k = 0; k < ejectedCount; k++) {
+            if (ejected[k] == ball) {
+                // a fired ball is held again, so it no longer holds back the next burst
+                ejected[k] = ejected[--ejectedCount];
+                ejected[ejectedCount] = null;
+                break;
+            }
+        }
+
         checkRep();
-        return false;   
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT) {
+        Collision contact = new Collision();
+        collision(ball, contact);
+        return trigger(ball, deltaT, contact);
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT, Collision contact) {
+        if (canCollide(ball) && contact.time() < deltaT) {
+            collide(ball, contact);
+            return true;
         }
+        checkRep();
+        return false;   
+    }
     
     @Override
     public void action() {
         final int SHOOT_VELOCITY = 50;
-        // if there are balls to eject
-        if (holdBalls.size() > 0) {
-            // if the ejected ball isn't the initialized ball OR
-            // the ejected ball has left the absorber OR
-            // the ejected ball is being held by the absorber again
-            if (ejected.name().equals("") || !(checkInside(ejected)) || holdBalls.contains(ejected)) {
-                Ball shoot = holdBalls.remove(0);
-                ejected = shoot;
-                shoot.setVelocity(0, -SHOOT_VELOCITY);
-                shoot.setActive(true);
+        if (heldCount == 0) {
+            checkRep();
+            return;
+        }
+        // wait until every ball of the last burst has left the absorber or been held again
+        for (int k = 0; k < ejectedCount; k++) {
+            if (checkInside(ejected[k])) {
                 checkRep();
                 return;
             }
         }
+        Arrays.fill(ejected, 0, ejectedCount, null);
+        ejectedCount = 0;
+        // fire the balls held longest, up to ejectRate of them
+        while (ejectedCount < ejectRate && heldCount > 0) {
+            Ball shoot = removeFirst();
+            ejected[ejectedCount++] = shoot;
+            shoot.setVelocity(0, -SHOOT_VELOCITY);
+            shoot.setActive(true);
+        }
         checkRep();
     }
     
@@ -327,9 +567,8 @@ class Absorber implements Gadget {
         final double BALL_RADIUS = 0.25;
         // return true if ball is inside absorber
         // return false otherwise
-        Vect center = ball.getCenter();
-        if (center.x() >= x-BALL_RADIUS && center.x() <= x+width+BALL_RADIUS &&
-            center.y() >= y-BALL_RADIUS && center.y() <= y + height+BALL_RADIUS) {
+        if (ball.x() >= x-BALL_RADIUS && ball.x() <= x+width+BALL_RADIUS &&
+            ball.y() >= y-BALL_RADIUS && ball.y() <= y + height+BALL_RADIUS) {
             return true;
         }
         return false;
@@ -337,11 +576,11 @@ class Absorber implements Gadget {
     
     @Override
     public Absorber copy() {
-        return new Absorber(this.name, this.x, this.y, this.width, this.height);
+        return new Absorber(this);
     }
     
     @Override
-    public void drawIcon(Graphics2D g, final int scaler, List<Ball> balls, double deltaTls) {
+    public void drawIcon(Graphics2D g, final int scaler, boolean hit) {
         g.setColor(Color.GREEN);
         int displayX = (int) Math.round(x*scaler);
         int displayY = (int) Math.round(y*scaler);
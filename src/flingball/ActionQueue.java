@@ -0,0 +1,121 @@
+package flingball;
+
+/**
+ * The actions triggered during one timestep of a game, taken together at the end of the timestep
+ * instead of in the middle of moving the balls.
+ * A gadget whose action is triggered several times in one timestep takes it once, 
+ * in the order in which it was first triggered.
+ * A gadget whose action has been taken in STORM_TICKS consecutive timesteps is storming:
+ * its triggers keep firing it, e.g. an absorber that fires itself and keeps catching the ball it shoots.
+ * Gadgets are identified by their positions in the game's gadget order.
+ */
+class ActionQueue {
+    /** number of consecutive timesteps in which a gadget takes its action before it is storming */
+    public static final int STORM_TICKS = 20;
+
+    private final int[] queued;
+    private int size = 0;
+    private final boolean[] pending;
+    private final long[] lastTaken;
+    private final int[] streaks;
+    private long tick = 0;
+
+    // Abstraction Function:
+    //   AF(queued, size, pending, lastTaken, streaks, tick) = during timestep number tick,
+    //     the actions of gadgets queued[0..size-1] are due, in that order;
+    //     gadget g last took its action in timestep lastTaken[g], the last of streaks[g] consecutive
+    //     timesteps in which it did, or never if streaks[g] == 0
+    // Rep Invariant:
+    //   queued, pending, lastTaken and streaks have the same length
+    //   0 <= size <= queued.length
+    //   queued[0..size-1] are distinct, and pending[g] iff g is among them
+    //   streaks[g] >= 0, and lastTaken[g] < tick if streaks[g] > 0
+    // Safety from rep exposure:
+    //   all fields private, arrays are never returned or taken from clients
+
+    /**
+     * Make an empty queue, at the first timestep.
+     * @param gadgetCount number of gadgets of the game, >= 0
+     */
+    public ActionQueue(int gadgetCount) {
+        this.queued = new int[gadgetCount];
+        this.pending = new boolean[gadgetCount];
+        this.lastTaken = new long[gadgetCount];
+        this.streaks = new int[gadgetCount];
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert pending.length == queued.length && lastTaken.length == queued.length
+                && streaks.length == queued.length;
+        assert size >= 0 && size <= queued.length;
+        int count = 0;
+        for (int g = 0; g < pending.length; g++) {
+            if (pending[g]) {
+                count++;
+            }
+            assert streaks[g] >= 0 && (streaks[g] == 0 || lastTaken[g] < tick);
+        }
+        assert count == size : "queued and pending disagree";
+    }
+
+    /**
+     * Queue the action of a gadget for the end of the timestep, unless it is already queued.
+     * @param g position of the gadget whose action is triggered
+     * @return true iff the action was queued, false if it was already queued and so coalesced
+     */
+    public boolean trigger(int g) {
+        if (this.pending[g]) {
+            return false;
+        }
+        this.pending[g] = true;
+        this.queued[this.size++] = g;
+        return true;
+    }
+
+    /**
+     * @return number of actions due at the end of the timestep
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param k number of an action due, 0 <= k < size()
+     * @return position of the gadget whose action is k-th in order
+     */
+    public int get(int k) {
+        return this.queued[k];
+    }
+
+    /**
+     * End the timestep: the actions due are taken, and the queue empties for the next timestep.
+     * @return number of gadgets that started storming in this timestep
+     */
+    public int finishTick() {
+        int storms = 0;
+        for (int k = 0; k < this.size; k++) {
+            int g = this.queued[k];
+            this.pending[g] = false;
+            this.streaks[g] = this.streaks[g] > 0 && this.lastTaken[g] == this.tick - 1 ? this.streaks[g] + 1 : 1;
+            this.lastTaken[g] = this.tick;
+            if (this.streaks[g] == STORM_TICKS) {
+                storms++;
+            }
+        }
+        this.size = 0;
+        this.tick++;
+        return storms;
+    }
+
+    /**
+     * @param g position of a gadget
+     * @return true iff gadget g took its action in each of the last STORM_TICKS finished timesteps
+     */
+    public boolean isStorming(int g) {
+        return this.streaks[g] >= STORM_TICKS && this.lastTaken[g] == this.tick - 1;
+    }
+}
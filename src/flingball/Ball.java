@@ -8,24 +8,27 @@ import physics.Vect;
 
 /**
  * Represents a Ball in a Flingball game.
+ * A Ball is a handle to one ball of a BallStore; a Game keeps the state of all its balls
+ * in one store and updates them there directly.
  */
 class Ball {
-    private final String name;
-    private Circle ball;
-    private Vect velocity;
-    private Boolean status = true;
-    private static final double BALL_RADIUS = 0.25;
+    private final BallStore store;
+    private final int index;
+    static final double BALL_RADIUS = 0.25;
     
     // Abstract Function:
-    //   AF(name, ball, velocity, status, BALL_RADIUS) = ball of diameter 0.5L with a name, a velocity, 
-    //      a radius of BALL_RADIUS, and a status of activity in the Flingball playing area,   
+    //   AF(store, index, BALL_RADIUS) = ball of diameter 0.5L with the name, center, velocity 
+    //      and status of activity of ball index in store, and a radius of BALL_RADIUS,
+    //      in the Flingball playing area
     // Rep invariant:
+    //   0 <= index < store.size()
     //   diameter is 0.5L
     //   ball must be within the playing area
     //   ball must have velocity (0, 0) if its status is inactive
     // Safety from rep exposure:
-    //   fields are private, name is final
-    //   defensive copies are stored and returned
+    //   fields are private and final
+    //   store is shared only with the Game that owns this ball
+    //   getters return new immutable objects or primitives
     
     /**
      * Create a Ball object.
@@ -35,9 +38,19 @@ class Ball {
      * @param yVelocity y value of the ball velocity
      */
     public Ball(String name, double x, double y, double xVelocity, double yVelocity) {
-        this.name = name;
-        this.ball = new Circle(x, y, BALL_RADIUS);
-        this.velocity = new Vect(xVelocity, yVelocity);
+        this.store = new BallStore(1);
+        this.index = store.add(name, x, y, xVelocity, yVelocity);
+        checkRep();
+    }
+    
+    /**
+     * Create a handle to a ball that is already in a store.
+     * @param store containing the ball
+     * @param index of the ball in store
+     */
+    Ball(BallStore store, int index) {
+        this.store = store;
+        this.index = index;
         checkRep();
     }
     
@@ -46,12 +59,13 @@ class Ball {
      */
     private void checkRep() {
         final int WALL_LENGTH = 20;
-        assert(ball.getRadius() == BALL_RADIUS) : "radius must be equal to 0.25";
-        Vect center = ball.getCenter();
-        assert(center.x() >= BALL_RADIUS && center.x() <= WALL_LENGTH-BALL_RADIUS) : "ball x pos must be in playing area";
-        assert(center.y() >= BALL_RADIUS && center.y() <= WALL_LENGTH-BALL_RADIUS) : "ball y pos must be in playing area";
+        assert(index >= 0 && index < store.size()) : "ball must be in its store";
+        double x = store.x(index);
+        double y = store.y(index);
+        assert(x >= BALL_RADIUS && x <= WALL_LENGTH-BALL_RADIUS) : "ball x pos must be in playing area";
+        assert(y >= BALL_RADIUS && y <= WALL_LENGTH-BALL_RADIUS) : "ball y pos must be in playing area";
         // ball must have velocity (0, 0) if its status is inactive
-        if (!this.status) assert this.velocity.equals(new Vect(0, 0));
+        if (!store.isActive(index)) assert store.xVelocity(index) == 0 && store.yVelocity(index) == 0;
     }
     
     /**
@@ -59,7 +73,35 @@ class Ball {
      * @return the name of this Ball.
      */
     public String name() {
-        return this.name;
+        return store.name(index);
+    }
+    
+    /**
+     * @return x coordinate of the center of the ball
+     */
+    public double x() {
+        return store.x(index);
+    }
+    
+    /**
+     * @return y coordinate of the center of the ball
+     */
+    public double y() {
+        return store.y(index);
+    }
+    
+    /**
+     * @return x value of the velocity of the ball
+     */
+    public double xVelocity() {
+        return store.xVelocity(index);
+    }
+    
+    /**
+     * @return y value of the velocity of the ball
+     */
+    public double yVelocity() {
+        return store.yVelocity(index);
     }
     
     /**
@@ -67,7 +109,7 @@ class Ball {
      * @return coordinate of the center of the ball
      */
     public Vect getCenter() {
-        return new Vect(this.ball.getCenter().x(), this.ball.getCenter().y());
+        return new Vect(store.x(index), store.y(index));
     }
     
     /**
@@ -76,7 +118,7 @@ class Ball {
      * @param y coordinate of the center of the ball
      */
     public void setCenter(double x, double y) {
-        this.ball = new Circle(x, y, BALL_RADIUS);
+        store.setCenter(index, x, y);
     }
     
     /**
@@ -84,7 +126,7 @@ class Ball {
      * @return velocity of the ball
      */
     public Vect getVelocity() {
-        return new Vect(this.velocity.x(), this.velocity.y());
+        return new Vect(store.xVelocity(index), store.yVelocity(index));
     }
     
     /**
@@ -93,7 +135,7 @@ class Ball {
      * @y y value of the velocity of the ball
      */
     public void setVelocity(double x, double y) {
-        this.velocity = new Vect(x, y);
+        store.setVelocity(index, x, y);
     }
     
     /**
@@ -101,7 +143,7 @@ class Ball {
      * @return circle representing the ball
      */
     public Circle getCircle() {
-        return new Circle(this.ball.getCenter().x(), this.ball.getCenter().y(), BALL_RADIUS);
+        return new Circle(store.x(index), store.y(index), BALL_RADIUS);
     }
     
     /**
@@ -110,7 +152,7 @@ class Ball {
      * @param gravity value in L/sec2
      */
     public void gravity(double gravity, double deltaT) {
-        setVelocity(velocity.x(), velocity.y() + gravity*deltaT);
+        store.setVelocity(index, store.xVelocity(index), store.yVelocity(index) + gravity*deltaT);
         checkRep();
     }
     
@@ -119,17 +161,18 @@ class Ball {
      * frictional constants friction1 and friction2 (mu and mu2).
      */
     public void friction(double friction1, double friction2, double deltaT) {
-        Double scale = 1 - friction1*deltaT - friction2 * velocity.length()*deltaT;
-        Vect newVel = velocity.times(scale);
-        setVelocity(newVel.x(), newVel.y());
+        double xVelocity = store.xVelocity(index);
+        double yVelocity = store.yVelocity(index);
+        double scale = 1 - friction1*deltaT - friction2*Math.sqrt(xVelocity*xVelocity + yVelocity*yVelocity)*deltaT;
+        store.setVelocity(index, xVelocity*scale, yVelocity*scale);
         checkRep();
     }
     
     @Override 
     public String toString() {
-        String toStr = "name: " + this.name + "\n" +
-                       "center: (" + this.ball.getCenter().x() + "," + this.ball.getCenter().y() + ")" + "\n" +
-                       "velocity: (" + this.velocity.x() + "," + this.velocity.y() + ")";
+        String toStr = "name: " + name() + "\n" +
+                       "center: (" + x() + "," + y() + ")" + "\n" +
+                       "velocity: (" + xVelocity() + "," + yVelocity() + ")";
         return toStr;
     }
     
@@ -139,9 +182,9 @@ class Ball {
             return false;
         } 
         Ball thatBall = (Ball) that;
-        if (this.name.equals(thatBall.name()) &&
-            this.ball.equals(thatBall.getCircle()) &&
-            this.velocity.equals(thatBall.getVelocity())) {
+        if (this.name().equals(thatBall.name()) &&
+            this.x() == thatBall.x() && this.y() == thatBall.y() &&
+            this.xVelocity() == thatBall.xVelocity() && this.yVelocity() == thatBall.yVelocity()) {
             return true;
         }
         return false;
@@ -149,7 +192,7 @@ class Ball {
     
     @Override
     public int hashCode() {
-        return this.name.hashCode() + this.ball.hashCode() + this.velocity.hashCode();
+        return name().hashCode() + getCircle().hashCode() + getVelocity().hashCode();
     }
     
     /**
@@ -157,8 +200,9 @@ class Ball {
      * @return copy of the ball
      */
     public Ball copy() {
-        return new Ball(this.name, ball.getCenter().x(), ball.getCenter().y(),
-                        velocity.x(), velocity.y());
+        Ball copy = new Ball(name(), x(), y(), xVelocity(), yVelocity());
+        copy.setActive(isActive());
+        return copy;
     }
     
     /**
@@ -166,7 +210,7 @@ class Ball {
      * @return the status of the ball
      */
     public boolean isActive() {
-        return this.status;
+        return store.isActive(index);
     }
     
     /**s
@@ -174,10 +218,26 @@ class Ball {
      * @param status new status the ball is updated with
      */
     public void setActive(boolean status) {
-        this.status = status;
+        store.setActive(index, status);
         checkRep();
     }
     
+    /**
+     * @return place of the ball among the balls held by the absorber holding it, 
+     *         or -1 if no absorber has said it holds the ball
+     */
+    int heldSlot() {
+        return store.heldSlot(index);
+    }
+    
+    /**
+     * Set the place of the ball among the balls held by an absorber. Only for Absorber.
+     * @param slot place of the ball in the absorber holding it, or -1 if none does
+     */
+    void setHeldSlot(int slot) {
+        store.setHeldSlot(index, slot);
+    }
+    
     /**
      * Draw a ball icon on the given graphics with given scaler
      * @param g graphics that the icon is drawn on, mutated
@@ -185,13 +245,25 @@ class Ball {
      *        correspond with the value of L in the overall spec
      */
     public void drawIcon(final Graphics2D g, final int scaler) {
+        drawIcon(g, scaler, x(), y());
+        checkRep();
+    }
+    
+    /**
+     * Draw the icon of a ball given only its position, e.g. from a Snapshot.
+     * @param g graphics that the icon is drawn on, mutated
+     * @param scaler that the position and dimension is scaled,
+     *        correspond with the value of L in the overall spec
+     * @param x coordinate of the center of the ball
+     * @param y coordinate of the center of the ball
+     */
+    static void drawIcon(final Graphics2D g, final int scaler, double x, double y) {
         final int FILL_CONSTANT = 2;
         g.setColor(Color.BLUE);
-        int displayX = (int) Math.round(ball.getCenter().x()*scaler);
-        int displayY = (int) Math.round(ball.getCenter().y()*scaler);
-        int displayRadius = (int) Math.round(ball.getRadius()*scaler);
+        int displayX = (int) Math.round(x*scaler);
+        int displayY = (int) Math.round(y*scaler);
+        int displayRadius = (int) Math.round(BALL_RADIUS*scaler);
         
         g.fillOval(displayX, displayY, displayRadius*FILL_CONSTANT, displayRadius*FILL_CONSTANT);
-        checkRep();
     }
 }
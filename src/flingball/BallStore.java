@@ -0,0 +1,272 @@
+package flingball;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Mutable storage for the state of many balls in parallel primitive arrays,
+ * so that a game can update its balls without allocating objects.
+ * A ball is identified by its index, the order in which it was added;
+ * the index of a removed ball is given to the next ball added.
+ */
+class BallStore {
+    private String[] names;
+    private double[] x, y, xVelocity, yVelocity;
+    private int[] heldSlots;
+    private final BitSet active = new BitSet();
+    private final BitSet asleep = new BitSet();
+    private final BitSet removed = new BitSet();
+    private int size = 0;
+
+    // Abstraction Function:
+    //   AF(names, x, y, xVelocity, yVelocity, heldSlots, active, asleep, removed, size) = balls 0..size-1 
+    //     except those i for which removed.get(i), where ball i
+    //     is named names[i], has its center at (x[i], y[i]), velocity (xVelocity[i], yVelocity[i]),
+    //     is held in place heldSlots[i] of the absorber holding it, if any, or -1 if none has said it does,
+    //     is active iff active.get(i), and is at rest and asleep iff asleep.get(i)
+    // Rep Invariant:
+    //   0 <= size <= names.length
+    //   names, x, y, xVelocity, yVelocity and heldSlots have the same length
+    //   active has no bit set at an index >= size
+    //   a ball is never both active and asleep
+    //   removed has no bit set at an index >= size; a removed ball is neither active nor asleep
+    // Safety from rep exposure:
+    //   all fields private, arrays are never returned or taken from clients
+
+    /**
+     * Create an empty ball store.
+     * @param capacity number of balls the store can hold before it grows, must be positive
+     */
+    public BallStore(int capacity) {
+        this.names = new String[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.xVelocity = new double[capacity];
+        this.yVelocity = new double[capacity];
+        this.heldSlots = new int[capacity];
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert size >= 0 && size <= names.length;
+        assert x.length == names.length && y.length == names.length
+                && xVelocity.length == names.length && yVelocity.length == names.length
+                && heldSlots.length == names.length;
+        assert active.length() <= size;
+        assert !active.intersects(asleep) : "a sleeping ball must be inactive";
+        assert removed.length() <= size;
+        assert !removed.intersects(active) && !removed.intersects(asleep) : "a removed ball must be still";
+    }
+
+    /**
+     * Add an active ball to the store, in the place of the removed ball with the lowest index if any.
+     * @param name of the ball
+     * @param x coordinate of the center of the ball
+     * @param y coordinate of the center of the ball
+     * @param xVelocity x value of the ball velocity
+     * @param yVelocity y value of the ball velocity
+     * @return index of the new ball
+     */
+    public int add(String name, double x, double y, double xVelocity, double yVelocity) {
+        int index = this.removed.nextSetBit(0);
+        if (index >= 0) {
+            this.removed.clear(index);
+        } else {
+            index = addSlot();
+        }
+        this.names[index] = name;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.xVelocity[index] = xVelocity;
+        this.yVelocity[index] = yVelocity;
+        this.heldSlots[index] = -1;
+        this.active.set(index);
+        checkRep();
+        return index;
+    }
+
+    /**
+     * Make room for one more ball at the end of the store.
+     * @return index of the new place
+     */
+    private int addSlot() {
+        if (size == names.length) {
+            int capacity = Math.max(1, 2*size);
+            this.names = Arrays.copyOf(this.names, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.xVelocity = Arrays.copyOf(this.xVelocity, capacity);
+            this.yVelocity = Arrays.copyOf(this.yVelocity, capacity);
+            this.heldSlots = Arrays.copyOf(this.heldSlots, capacity);
+        }
+        return size++;
+    }
+
+    /**
+     * Remove a ball from the store. Its index stays below size(), but it is neither active nor asleep
+     * until another ball is added in its place.
+     * @param i index of a ball that hasn't been removed
+     */
+    public void remove(int i) {
+        this.names[i] = null;
+        this.xVelocity[i] = 0;
+        this.yVelocity[i] = 0;
+        this.heldSlots[i] = -1;
+        this.active.clear(i);
+        this.asleep.clear(i);
+        this.removed.set(i);
+        checkRep();
+    }
+
+    /**
+     * @return number of places for balls in the store: every ball has an index below it,
+     *         but some places may hold removed balls
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param i index of a place in the store, < size()
+     * @return true iff the ball at index i has been removed and not replaced
+     */
+    public boolean isRemoved(int i) {
+        return this.removed.get(i);
+    }
+
+    /**
+     * @param i index of a ball
+     * @return name of the ball
+     */
+    public String name(int i) {
+        return this.names[i];
+    }
+
+    /**
+     * @param i index of a ball
+     * @return x coordinate of the center of the ball
+     */
+    public double x(int i) {
+        return this.x[i];
+    }
+
+    /**
+     * @param i index of a ball
+     * @return y coordinate of the center of the ball
+     */
+    public double y(int i) {
+        return this.y[i];
+    }
+
+    /**
+     * @param i index of a ball
+     * @return x value of the velocity of the ball
+     */
+    public double xVelocity(int i) {
+        return this.xVelocity[i];
+    }
+
+    /**
+     * @param i index of a ball
+     * @return y value of the velocity of the ball
+     */
+    public double yVelocity(int i) {
+        return this.yVelocity[i];
+    }
+
+    /**
+     * Set the center of a ball.
+     * @param i index of a ball
+     * @param x coordinate of the center of the ball
+     * @param y coordinate of the center of the ball
+     */
+    public void setCenter(int i, double x, double y) {
+        this.x[i] = x;
+        this.y[i] = y;
+    }
+
+    /**
+     * Set the velocity of a ball.
+     * @param i index of a ball
+     * @param xVelocity x value of the velocity of the ball
+     * @param yVelocity y value of the velocity of the ball
+     */
+    public void setVelocity(int i, double xVelocity, double yVelocity) {
+        this.xVelocity[i] = xVelocity;
+        this.yVelocity[i] = yVelocity;
+    }
+
+    /**
+     * @param i index of a ball
+     * @return place of the ball among the balls held by the absorber holding it, 
+     *         or -1 if no absorber has said it holds the ball
+     */
+    public int heldSlot(int i) {
+        return this.heldSlots[i];
+    }
+
+    /**
+     * Set the place of a ball among the balls held by an absorber.
+     * @param i index of a ball
+     * @param slot place of the ball in the absorber holding it, or -1 if none does
+     */
+    public void setHeldSlot(int i, int slot) {
+        this.heldSlots[i] = slot;
+    }
+
+    /**
+     * @param i index of a ball
+     * @return true iff the ball is active
+     */
+    public boolean isActive(int i) {
+        return this.active.get(i);
+    }
+
+    /**
+     * Set whether a ball is active.
+     * @param i index of a ball
+     * @param status true iff the ball is active
+     */
+    public void setActive(int i, boolean status) {
+        this.active.set(i, status);
+    }
+
+    /**
+     * @param i index of a ball
+     * @return true iff the ball has been put to sleep at rest
+     */
+    public boolean isAsleep(int i) {
+        return this.asleep.get(i);
+    }
+
+    /**
+     * Put a ball to sleep or wake it up. A sleeping ball is inactive and doesn't move, 
+     * but unlike a ball held by an absorber it can be woken by another ball.
+     * @param i index of a ball
+     * @param status true to put the ball to sleep, making it inactive with velocity (0, 0);
+     *        false to wake it up, making it active again
+     */
+    public void setAsleep(int i, boolean status) {
+        if (status) {
+            this.active.clear(i);
+            this.xVelocity[i] = 0;
+            this.yVelocity[i] = 0;
+        }
+        this.asleep.set(i, status);
+        if (!status) {
+            this.active.set(i);
+        }
+    }
+
+    /**
+     * Find the next active ball.
+     * @param from index to start searching at, inclusive
+     * @return index of the first active ball at or after from, or -1 if there is none
+     */
+    public int nextActive(int from) {
+        return this.active.nextSetBit(from);
+    }
+}
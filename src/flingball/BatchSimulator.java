@@ -0,0 +1,261 @@
+package flingball;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+/**
+ * Monte Carlo simulation of many variants of a Flingball board:
+ * each variant is the board with its balls chosen by a generator, run for a bounded duration
+ * on a ForkJoinPool, whose work stealing keeps every worker busy even when variants take unequal time.
+ * The result of every variant is handed to a java.util.stream.Collector as soon as the variant finishes.
+ * Variants keep the engine of the template; those with the PARALLEL_FIXED_STEP engine spread each timestep
+ * over the same pool the variants run in, and never over the template's own pool.
+ */
+public class BatchSimulator {
+
+    /**
+     * Chooses the balls of each variant of a board.
+     * Must be safe to call from several threads at once.
+     */
+    @FunctionalInterface
+    public interface VariantGenerator {
+        /**
+         * @param variant number of the variant, >= 0
+         * @param random source of randomness for this variant alone,
+         *        seeded from the batch seed and the variant number
+         * @return the balls of the variant
+         */
+        List<Ball> balls(long variant, Random random);
+    }
+
+    private final Game template;
+    private final VariantGenerator generator;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    // Abstraction Function:
+    //   AF(template, generator, pool) = a batch of variants of the board of template,
+    //     where variant v has the balls generator.balls(v, ...), run in pool with the engine of template
+    // Rep Invariant:
+    //   true
+    // Safety from rep exposure:
+    //   template is a private copy of the client's game, never returned;
+    //   generator and pool are shared with the client on purpose
+    // Thread safety argument:
+    //   template is never ticked or mutated after construction, so workers may copy it at once;
+    //   each variant's game is confined to the worker that runs it;
+    //   results reach the collector through the ForkJoin joins, which publish them safely
+
+    /**
+     * Make a batch simulator.
+     * @param template board to simulate variants of; its balls are ignored, and it is not mutated
+     * @param generator chooses the balls of each variant
+     */
+    public BatchSimulator(Game template, VariantGenerator generator) {
+        this.template = template.withBalls(new ArrayList<>());
+        this.generator = generator;
+    }
+
+    /**
+     * Set the pool in which variants run, and in which variants with the PARALLEL_FIXED_STEP engine 
+     * spread their timesteps, ForkJoinPool.commonPool() by default.
+     * @param pool to run variants in, may be shared with other batches
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Simulate variants 0..variants-1 and collect their results.
+     * The results are accumulated in no particular order, so the collector's result
+     * depends only on the variants if the collector doesn't depend on the order of its inputs;
+     * each variant's result is the same on every run with the same seed.
+     * @param variants number of variants to simulate, >= 0
+     * @param seconds of game time to simulate each variant for, >= 0
+     * @param seed of the random numbers given to the generator
+     * @param collector to which the result of every variant is handed
+     * @param <A> type of the collector's accumulation
+     * @param <R> type of the collector's result
+     * @return result of the collector
+     */
+    public <A, R> R run(long variants, double seconds, long seed, Collector<? super Result, A, R> collector) {
+        A accumulation = this.pool.invoke(new SimulateVariants<>(0, variants, seconds, seed, collector));
+        return collector.finisher().apply(accumulation);
+    }
+
+    /**
+     * Simulate one variant.
+     * @param variant number of the variant
+     * @param seconds of game time to simulate it for
+     * @param seed of the batch
+     * @return result of the variant
+     */
+    private Result simulate(long variant, double seconds, long seed) {
+        // spread consecutive variants over the seeds, as SplittableRandom does
+        Random random = new Random(seed + variant * 0x9E3779B97F4A7C15L);
+        Game game = this.template.withBalls(this.generator.balls(variant, random));
+        game.setPool(this.pool);
+        HeadlessRunner.Report report = HeadlessRunner.runFor(game, seconds);
+        return new Result(variant, report.balls(), game.heldBalls(), report.metrics());
+    }
+
+    /**
+     * Simulation of a range of variants, accumulated into one container of a collector.
+     * @param <A> type of the collector's accumulation
+     */
+    private class SimulateVariants<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+        private final long from;
+        private final long to;
+        private final double seconds;
+        private final long seed;
+        private final Collector<? super Result, A, ?> collector;
+
+        /**
+         * @param from number of the first variant to simulate
+         * @param to number after the last variant to simulate
+         * @param seconds of game time to simulate each variant for
+         * @param seed of the batch
+         * @param collector to accumulate the results with
+         */
+        SimulateVariants(long from, long to, double seconds, long seed, Collector<? super Result, A, ?> collector) {
+            this.from = from;
+            this.to = to;
+            this.seconds = seconds;
+            this.seed = seed;
+            this.collector = collector;
+        }
+
+        @Override
+        protected A compute() {
+            if (this.to - this.from > 1) {
+                // split down to single variants, so that idle workers can steal any of them
+                long middle = (this.from + this.to) >>> 1;
+                SimulateVariants<A> right = new SimulateVariants<>(middle, this.to, this.seconds, this.seed,
+                                                                   this.collector);
+                right.fork();
+                A left = new SimulateVariants<>(this.from, middle, this.seconds, this.seed, this.collector).compute();
+                return this.collector.combiner().apply(left, right.join());
+            }
+            A accumulation = this.collector.supplier().get();
+            for (long variant = this.from; variant < this.to; variant++) {
+                this.collector.accumulator().accept(accumulation, simulate(variant, this.seconds, this.seed));
+            }
+            return accumulation;
+        }
+    }
+
+    /**
+     * Make a generator that moves the balls of a board by up to positionSpread in x and y,
+     * and changes their velocities by up to velocitySpread in x and y, uniformly at random.
+     * Balls stay inside the walls.
+     * @param board whose balls are varied; read when this method is called
+     * @param positionSpread largest change of each coordinate of a ball's center, >= 0
+     * @param velocitySpread largest change of each component of a ball's velocity, >= 0
+     * @return the generator
+     */
+    public static VariantGenerator jitter(Game board, double positionSpread, double velocitySpread) {
+        final List<Ball> balls = new ArrayList<>(new TreeMap<>(board.balls()).values());
+        final double min = Ball.BALL_RADIUS;
+        final double max = 20 - Ball.BALL_RADIUS;
+        return (variant, random) -> {
+            List<Ball> varied = new ArrayList<>();
+            for (Ball ball : balls) {
+                double x = ball.x() + (2*random.nextDouble() - 1)*positionSpread;
+                double y = ball.y() + (2*random.nextDouble() - 1)*positionSpread;
+                varied.add(new Ball(ball.name(), Math.min(Math.max(x, min), max), Math.min(Math.max(y, min), max),
+                                    ball.xVelocity() + (2*random.nextDouble() - 1)*velocitySpread,
+                                    ball.yVelocity() + (2*random.nextDouble() - 1)*velocitySpread));
+            }
+            return varied;
+        };
+    }
+
+    /**
+     * The immutable outcome of one variant: its balls at the end, how many each absorber holds,
+     * and the game's metrics.
+     */
+    public static class Result {
+        private final long variant;
+        private final Map<String, Ball> balls;
+        private final Map<String, Integer> heldBalls;
+        private final Metrics metrics;
+
+        // Abstraction Function:
+        //   AF(variant, balls, heldBalls, metrics) = the outcome of variant number variant,
+        //     which ended with the values of balls, by name, absorber a holding heldBalls.get(a) balls,
+        //     and its game's metrics
+        // Rep Invariant:
+        //   variant >= 0
+        // Safety from rep exposure:
+        //   all fields private and final; balls, heldBalls and metrics are copied on the way in and out
+
+        /**
+         * Make a result.
+         * @param variant number of the variant
+         * @param balls at the end, by name
+         * @param heldBalls number of balls held by each absorber at the end, by name
+         * @param metrics of the game at the end
+         */
+        Result(long variant, Map<String, Ball> balls, Map<String, Integer> heldBalls, Metrics metrics) {
+            this.variant = variant;
+            this.balls = new TreeMap<>();
+            for (Ball ball : balls.values()) {
+                this.balls.put(ball.name(), ball.copy());
+            }
+            this.heldBalls = new TreeMap<>(heldBalls);
+            this.metrics = metrics.copy();
+            checkRep();
+        }
+
+        /**
+         * Check that the rep invariant is satisfied.
+         */
+        private void checkRep() {
+            assert variant >= 0;
+        }
+
+        /**
+         * @return number of the variant
+         */
+        public long variant() {
+            return this.variant;
+        }
+
+        /**
+         * @return balls at the end of the variant, by name
+         */
+        public Map<String, Ball> balls() {
+            Map<String, Ball> ballsCopy = new TreeMap<>();
+            for (String ballName : this.balls.keySet()) {
+                ballsCopy.put(ballName, this.balls.get(ballName).copy());
+            }
+            return ballsCopy;
+        }
+
+        /**
+         * @return number of balls held by each absorber at the end of the variant, by absorber name
+         */
+        public Map<String, Integer> heldBalls() {
+            return new HashMap<>(this.heldBalls);
+        }
+
+        /**
+         * @return metrics of the variant's game at the end
+         */
+        public Metrics metrics() {
+            return this.metrics.copy();
+        }
+
+        @Override
+        public String toString() {
+            return "[Variant " + this.variant + ": held " + this.heldBalls + ", " + this.metrics + "]";
+        }
+    }
+}
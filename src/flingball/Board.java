@@ -0,0 +1,407 @@
+package flingball;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The immutable layout of a Flingball board: its name, constants, gadgets with the walls around them,
+ * and trigger / action interactions, without any balls.
+ * Many games may be played on one board at once; they share its gadget geometry, spatial index
+ * and interaction table, and each keeps only its own balls and gadget state.
+ */
+public class Board {
+    private static final int WALL_LENGTH = 20;
+    /** timesteps per second of a board that doesn't say otherwise */
+    public static final float DEFAULT_TICK_RATE = 20f;
+
+    private final String name;
+    private final float gravity;
+    private final float friction1;
+    private final float friction2;
+    private final float tickRate;
+    private final List<Gadget> prototypes;
+    private final Map<String, String> interactions;
+    private final SpatialGrid grid;
+    private final GeometryArena arena;
+    private final Map<String, Integer> positions;
+    private final int[] actionStarts;
+    private final int[] actionTargets;
+    private final Map<String, List<String>> keyDownActions;
+    private final Map<String, List<String>> keyUpActions;
+    private final Map<String, int[]> keyDownTargets;
+    private final Map<String, int[]> keyUpTargets;
+    private static final int[] NO_TARGETS = new int[0];
+
+    // Abstraction Function:
+    //   AF(name, gravity, friction1, friction2, tickRate, prototypes, interactions, grid, arena, positions,
+    //      actionStarts, actionTargets, keyDownActions, keyUpActions, keyDownTargets, keyUpTargets)
+    //     = a board named name with gravity, friction1 and friction2 constants, 
+    //       played at tickRate timesteps per second of real time,
+    //       whose gadgets, in the order they were added, are like prototypes,
+    //       where the gadget named t triggers the action of the gadget named interactions.get(t).
+    //       grid indexes the gadgets by position in prototypes, and arena holds the edges and corners
+    //       of prototypes.get(g) as its gadget g, and the gadget named n is prototypes.get(positions.get(n)).
+    //       Gadget g triggers the actions of gadgets actionTargets[actionStarts[g]..actionStarts[g+1]-1],
+    //       the interactions compiled into an adjacency array by gadget position.
+    //       Pressing key k triggers the actions of the gadgets named keyDownActions.get(k), 
+    //       at positions keyDownTargets.get(k), and releasing it those of keyUpActions.get(k) 
+    //       at positions keyUpTargets.get(k)
+    // Rep Invariant:
+    //   tickRate > 0 and finite
+    //   gadget names in prototypes are distinct, and include top, left, right and bottom
+    //   keys and values of interactions are names of gadgets in prototypes
+    //   prototypes.size() == arena.gadgetCount() == positions.size()
+    //   prototypes.get(positions.get(n)) is named n, for every key n of positions
+    //   actionStarts.length == prototypes.size() + 1, actionStarts[0] == 0,
+    //     actionStarts is nondecreasing and actionStarts[prototypes.size()] == actionTargets.length
+    //   actionTargets[actionStarts[g]..actionStarts[g+1]-1] are the positions of the gadgets named by
+    //     interactions.get(t), where t is the name of prototypes.get(g), or none if t isn't a key
+    //   keyDownActions and keyDownTargets have the same keys, and keyDownTargets.get(k)[j] is the position
+    //     of the gadget named keyDownActions.get(k).get(j); the same for keyUpActions and keyUpTargets
+    // Safety from rep exposure:
+    //   all fields private and final;
+    //   prototypes are copies of the client's gadgets, never wired to action objects, holding no balls,
+    //     and only copies of them are handed out;
+    //   interactions, positions and the key maps and their lists are unmodifiable,
+    //     and interactions and the key actions are copied on the way out;
+    //   grid, arena, the adjacency array and the key targets are handed only to games, which never mutate them
+    // Thread safety argument:
+    //   the board is immutable, so any number of games on any number of threads may share it
+
+    /**
+     * Make a board for Flingball played at DEFAULT_TICK_RATE, surrounded by walls named top, left, right 
+     * and bottom, which replace any gadgets with those names.
+     * @param name of the board
+     * @param gravity value. default value is 25.0f
+     * @param friction1 value. default value is 0.025f
+     * @param friction2 value. default value is 0.025f
+     * @param gadgets in the playing area; copied, not mutated
+     * @param interactions specifying trigger and action events between gadgets, by gadget name
+     * @throws IllegalArgumentException if an interaction names a gadget that isn't on the board
+     */
+    public Board(String name, float gravity, float friction1, float friction2,
+                 List<Gadget> gadgets, Map<String, String> interactions) {
+        this(name, gravity, friction1, friction2, DEFAULT_TICK_RATE, gadgets, interactions);
+    }
+
+    /**
+     * Make a board for Flingball, surrounded by walls named top, left, right and bottom,
+     * which replace any gadgets with those names.
+     * @param name of the board
+     * @param gravity value. default value is 25.0f
+     * @param friction1 value. default value is 0.025f
+     * @param friction2 value. default value is 0.025f
+     * @param tickRate timesteps per second of real time, > 0; default value is DEFAULT_TICK_RATE
+     * @param gadgets in the playing area; copied, not mutated
+     * @param interactions specifying trigger and action events between gadgets, by gadget name
+     * @throws IllegalArgumentException if tickRate is not positive and finite, 
+     *         or an interaction names a gadget that isn't on the board
+     */
+    public Board(String name, float gravity, float friction1, float friction2, float tickRate,
+                 List<Gadget> gadgets, Map<String, String> interactions) {
+        this(name, gravity, friction1, friction2, tickRate, gadgets, interactions, 
+             new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * Make a board for Flingball with actions bound to keys, surrounded by walls named top, left, right 
+     * and bottom, which replace any gadgets with those names.
+     * @param name of the board
+     * @param gravity value. default value is 25.0f
+     * @param friction1 value. default value is 0.025f
+     * @param friction2 value. default value is 0.025f
+     * @param tickRate timesteps per second of real time, > 0; default value is DEFAULT_TICK_RATE
+     * @param gadgets in the playing area; copied, not mutated
+     * @param interactions specifying trigger and action events between gadgets, by gadget name
+     * @param keyDownActions names of the gadgets whose actions pressing each key triggers, by key name
+     * @param keyUpActions names of the gadgets whose actions releasing each key triggers, by key name
+     * @throws IllegalArgumentException if tickRate is not positive and finite, 
+     *         or an interaction or key binding names a gadget that isn't on the board
+     */
+    public Board(String name, float gravity, float friction1, float friction2, float tickRate,
+                 List<Gadget> gadgets, Map<String, String> interactions,
+                 Map<String, List<String>> keyDownActions, Map<String, List<String>> keyUpActions) {
+        if (!(tickRate > 0) || Float.isInfinite(tickRate)) {
+            throw new IllegalArgumentException("tick rate must be positive, not " + tickRate);
+        }
+        this.name = name;
+        this.gravity = gravity;
+        this.friction1 = friction1;
+        this.friction2 = friction2;
+        this.tickRate = tickRate;
+
+        Map<String, Gadget> gadgetsByName = new LinkedHashMap<>();
+        for (Gadget gadget : gadgets) {
+            gadgetsByName.put(gadget.name(), gadget.copy());
+        }
+        gadgetsByName.put("top", new Wall("top", 0, 0, WALL_LENGTH, 0));
+        gadgetsByName.put("left", new Wall("left", 0, WALL_LENGTH, 0, 0));
+        gadgetsByName.put("right", new Wall("right", WALL_LENGTH, 0, WALL_LENGTH, WALL_LENGTH));
+        gadgetsByName.put("bottom", new Wall("bottom", WALL_LENGTH, WALL_LENGTH, 0, WALL_LENGTH));
+        this.prototypes = Collections.unmodifiableList(new ArrayList<>(gadgetsByName.values()));
+        this.interactions = Collections.unmodifiableMap(new LinkedHashMap<>(interactions));
+        this.grid = new SpatialGrid(this.prototypes, WALL_LENGTH);
+        this.arena = new GeometryArena(this.prototypes);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int g = 0; g < this.prototypes.size(); g++) {
+            positions.put(this.prototypes.get(g).name(), g);
+        }
+        this.positions = Collections.unmodifiableMap(positions);
+        for (String trigger : this.interactions.keySet()) {
+            for (String gadget : new String[] { trigger, this.interactions.get(trigger) }) {
+                if (!positions.containsKey(gadget)) {
+                    throw new IllegalArgumentException("no gadget named " + gadget);
+                }
+            }
+        }
+        // compile the interactions into an adjacency array, so that games dispatch actions by position alone
+        this.actionStarts = new int[this.prototypes.size() + 1];
+        this.actionTargets = new int[this.interactions.size()];
+        int edge = 0;
+        for (int g = 0; g < this.prototypes.size(); g++) {
+            this.actionStarts[g] = edge;
+            String action = this.interactions.get(this.prototypes.get(g).name());
+            if (action != null) {
+                this.actionTargets[edge++] = positions.get(action);
+            }
+        }
+        this.actionStarts[this.prototypes.size()] = edge;
+        this.keyDownActions = copyKeyActions(keyDownActions);
+        this.keyUpActions = copyKeyActions(keyUpActions);
+        this.keyDownTargets = compileKeyActions(this.keyDownActions, positions);
+        this.keyUpTargets = compileKeyActions(this.keyUpActions, positions);
+        checkRep();
+    }
+
+    /**
+     * @param keyActions gadget names by key name
+     * @return unmodifiable copy of keyActions
+     */
+    private static Map<String, List<String>> copyKeyActions(Map<String, List<String>> keyActions) {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (String key : keyActions.keySet()) {
+            copy.put(key, Collections.unmodifiableList(new ArrayList<>(keyActions.get(key))));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @param keyActions gadget names by key name
+     * @param positions of the gadgets of this board, by name
+     * @return unmodifiable map from the keys of keyActions to the positions of their gadgets
+     * @throws IllegalArgumentException if keyActions names a gadget that isn't on the board
+     */
+    private static Map<String, int[]> compileKeyActions(Map<String, List<String>> keyActions,
+                                                        Map<String, Integer> positions) {
+        Map<String, int[]> targets = new HashMap<>();
+        for (String key : keyActions.keySet()) {
+            List<String> actions = keyActions.get(key);
+            int[] keyTargets = new int[actions.size()];
+            for (int j = 0; j < keyTargets.length; j++) {
+                Integer g = positions.get(actions.get(j));
+                if (g == null) {
+                    throw new IllegalArgumentException("no gadget named " + actions.get(j));
+                }
+                keyTargets[j] = g;
+            }
+            targets.put(key, keyTargets);
+        }
+        return Collections.unmodifiableMap(targets);
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert tickRate > 0 && !Float.isInfinite(tickRate);
+        List<String> names = new ArrayList<>();
+        for (Gadget gadget : prototypes) {
+            assert !names.contains(gadget.name()) : "duplicate gadget " + gadget.name();
+            names.add(gadget.name());
+        }
+        assert names.contains("top") && names.contains("left") && names.contains("right")
+                && names.contains("bottom");
+        for (String trigger : interactions.keySet()) {
+            assert names.contains(trigger) && names.contains(interactions.get(trigger))
+                    : "interaction between unknown gadgets";
+        }
+        assert arena.gadgetCount() == prototypes.size() && positions.size() == prototypes.size();
+        for (String gadget : positions.keySet()) {
+            assert prototypes.get(positions.get(gadget)).name().equals(gadget);
+        }
+        assert actionStarts.length == prototypes.size() + 1 && actionStarts[0] == 0
+                && actionStarts[prototypes.size()] == actionTargets.length;
+        for (int g = 0; g < prototypes.size(); g++) {
+            assert actionStarts[g] <= actionStarts[g+1];
+            String action = interactions.get(prototypes.get(g).name());
+            assert (action != null) == (actionStarts[g] < actionStarts[g+1]);
+            for (int k = actionStarts[g]; k < actionStarts[g+1]; k++) {
+                assert prototypes.get(actionTargets[k]).name().equals(action);
+            }
+        }
+        assert keyDownTargets.keySet().equals(keyDownActions.keySet())
+                && keyUpTargets.keySet().equals(keyUpActions.keySet());
+    }
+
+    /**
+     * Get the name of this board.
+     * @return name of this board
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * Get the gravity constant of this board.
+     * @return gravity constant
+     */
+    public float gravity() {
+        return this.gravity;
+    }
+
+    /**
+     * Get the friction1 constant of this board.
+     * @return friction1 constant
+     */
+    public float friction1() {
+        return this.friction1;
+    }
+
+    /**
+     * Get the friction2 constant of this board.
+     * @return friction2 constant
+     */
+    public float friction2() {
+        return this.friction2;
+    }
+
+    /**
+     * Get the tick rate of this board.
+     * @return timesteps per second of real time
+     */
+    public float tickRate() {
+        return this.tickRate;
+    }
+
+    /**
+     * Get the length of a timestep on this board.
+     * @return seconds of game time, and of real time, that each timestep simulates
+     */
+    public double timestep() {
+        return 1.0 / this.tickRate;
+    }
+
+    /**
+     * Get the interactions of this board.
+     * @return map from the name of every trigger gadget to the name of the gadget whose action it triggers
+     */
+    public Map<String, String> interactions() {
+        return new LinkedHashMap<>(this.interactions);
+    }
+
+    /**
+     * Get the actions bound to the pressing of keys on this board.
+     * @return map from the name of every bound key to the names of the gadgets whose actions pressing it triggers
+     */
+    public Map<String, List<String>> keyDownActions() {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (String key : this.keyDownActions.keySet()) {
+            copy.put(key, new ArrayList<>(this.keyDownActions.get(key)));
+        }
+        return copy;
+    }
+
+    /**
+     * Get the actions bound to the release of keys on this board.
+     * @return map from the name of every bound key to the names of the gadgets whose actions releasing it triggers
+     */
+    public Map<String, List<String>> keyUpActions() {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        for (String key : this.keyUpActions.keySet()) {
+            copy.put(key, new ArrayList<>(this.keyUpActions.get(key)));
+        }
+        return copy;
+    }
+
+    /**
+     * Make fresh gadgets for a game on this board. They share the immutable geometry of this board's
+     * gadgets, hold no balls, and are not yet wired to their action objects.
+     * @return new gadgets, walls included, in the order they were added to this board
+     */
+    List<Gadget> newGadgets() {
+        List<Gadget> gadgets = new ArrayList<>();
+        for (Gadget prototype : this.prototypes) {
+            gadgets.add(prototype.copy());
+        }
+        return gadgets;
+    }
+
+    /**
+     * @return spatial index of the gadgets of this board, by position in newGadgets()
+     */
+    SpatialGrid grid() {
+        return this.grid;
+    }
+
+    /**
+     * @return edges and corners of the gadgets of this board, by position in newGadgets()
+     */
+    GeometryArena arena() {
+        return this.arena;
+    }
+
+    /**
+     * @param gadgetName name of a gadget
+     * @return position of the gadget named gadgetName in newGadgets(), or -1 if there is none
+     */
+    int position(String gadgetName) {
+        Integer g = this.positions.get(gadgetName);
+        return g == null ? -1 : g;
+    }
+
+    /**
+     * @param g position of a gadget in newGadgets()
+     * @return true iff gadget g triggers the action of some gadget
+     */
+    boolean triggersActions(int g) {
+        return this.actionStarts[g] < this.actionStarts[g+1];
+    }
+
+    /**
+     * The actions triggered by gadget g are those of the gadgets actionTarget(k),
+     * for actionStart(g) <= k < actionStart(g+1).
+     * @param g position of a gadget in newGadgets(), or newGadgets().size()
+     * @return start of the actions of gadget g in the adjacency array of this board
+     */
+    int actionStart(int g) {
+        return this.actionStarts[g];
+    }
+
+    /**
+     * @param k index into the adjacency array of this board, see actionStart()
+     * @return position in newGadgets() of the gadget whose action is triggered
+     */
+    int actionTarget(int k) {
+        return this.actionTargets[k];
+    }
+
+    /**
+     * @param key name of a key
+     * @param down true for the pressing of the key, false for its release
+     * @return positions in newGadgets() of the gadgets whose actions the key triggers, never mutated
+     */
+    int[] keyTargets(String key, boolean down) {
+        int[] targets = (down ? this.keyDownTargets : this.keyUpTargets).get(key);
+        return targets == null ? NO_TARGETS : targets;
+    }
+
+    @Override
+    public String toString() {
+        return "[Board " + this.name + ": " + this.prototypes.size() + " gadgets, "
+                + this.interactions.size() + " interactions]";
+    }
+}
@@ -0,0 +1,381 @@
+package flingball;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many Flingball games at once in real time, on a few shared carrier threads instead of
+ * a thread per game as run() needs.
+ * The games are spread over stripes, one per carrier; each stripe is swept at a fixed rate,
+ * and every sweep advances each running game of the stripe through the timesteps that have fallen due 
+ * at the game's own tick rate, so games never drift behind real time as long as the carriers keep up.
+ * Every hosted game can be started, paused and stopped on its own.
+ */
+public class BoardHost {
+
+    /**
+     * States of a hosted game.
+     */
+    public enum State {
+        /** hosted but not advancing; the initial state */
+        PAUSED,
+        /** advancing in real time at the tick rate of its board */
+        RUNNING,
+        /** no longer hosted; final */
+        STOPPED
+    }
+
+    // by default, sweep as often as a board at the default tick rate ticks
+    private static final long DEFAULT_SWEEP_NANOS = Math.round(1e9 / Board.DEFAULT_TICK_RATE);
+
+    private final ScheduledThreadPoolExecutor carriers;
+    private final Stripe[] stripes;
+    private final AtomicInteger nextStripe = new AtomicInteger();
+
+    // Abstraction Function:
+    //   AF(carriers, stripes, nextStripe) = a host whose games are the members of stripes,
+    //     each stripe swept at a fixed rate by one of the threads of carriers;
+    //     the next game hosted joins stripe nextStripe mod stripes.length
+    // Rep Invariant:
+    //   stripes.length >= 1
+    //   every game is a member of at most one stripe
+    // Safety from rep exposure:
+    //   all fields private and final, never returned;
+    //   Handles expose their games to the client on purpose, as the client made them
+    // Thread safety argument:
+    //   membership of a stripe changes only while holding the stripe's lock,
+    //     and is published to its sweeps through a volatile array that is replaced, never mutated;
+    //   a stripe's sweeps never overlap, because the executor never runs a periodic task concurrently
+    //     with itself, and successive sweeps happen-before one another;
+    //   a game and its clock are used by its stripe's sweeps alone, and Game.tickDue() and Game.action()
+    //     are synchronized, so clients may act on a hosted game from any thread;
+    //   handle states are volatile, and the sweep statistics are guarded by their stripe's lock
+
+    /**
+     * Make a host with one carrier thread per available processor,
+     * sweeping once per timestep of a board at the default tick rate.
+     */
+    public BoardHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Make a host sweeping once per timestep of a board at the default tick rate.
+     * @param carrierCount number of carrier threads, and of stripes of games, >= 1
+     */
+    public BoardHost(int carrierCount) {
+        this(carrierCount, DEFAULT_SWEEP_NANOS);
+    }
+
+    /**
+     * Make a host.
+     * @param carrierCount number of carrier threads, and of stripes of games, >= 1
+     * @param sweepNanos time between sweeps of each stripe in nanoseconds, > 0;
+     *        a game whose timesteps are shorter runs several timesteps per sweep,
+     *        and one whose timesteps are longer is left alone by sweeps when none is due
+     */
+    public BoardHost(int carrierCount, long sweepNanos) {
+        if (carrierCount < 1) {
+            throw new IllegalArgumentException("need at least one carrier thread, not " + carrierCount);
+        }
+        if (sweepNanos <= 0) {
+            throw new IllegalArgumentException("sweeps must be a positive time apart, not " + sweepNanos);
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "board-host-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.carriers = new ScheduledThreadPoolExecutor(carrierCount, factory);
+        this.stripes = new Stripe[carrierCount];
+        for (int s = 0; s < carrierCount; s++) {
+            this.stripes[s] = new Stripe(sweepNanos);
+            // stagger the stripes across the period, so their sweeps don't all start at once
+            long offset = sweepNanos * s / carrierCount;
+            this.stripes[s].schedule(this.carriers, offset);
+        }
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert stripes.length >= 1;
+    }
+
+    /**
+     * Host a game, paused. It must not be run, ticked or hosted elsewhere while it is hosted here.
+     * @param game to host
+     * @return handle with which to start, pause and stop the game
+     */
+    public Handle host(Game game) {
+        Stripe stripe = this.stripes[Math.floorMod(this.nextStripe.getAndIncrement(), this.stripes.length)];
+        Handle handle = new Handle(game, stripe);
+        stripe.add(handle);
+        return handle;
+    }
+
+    /**
+     * @return number of games hosted and not stopped
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : this.stripes) {
+            size += stripe.members().length;
+        }
+        return size;
+    }
+
+    /**
+     * @return number of sweeps that started a whole sweep period or more after they were due, so far
+     */
+    public long lateSweeps() {
+        long late = 0;
+        for (Stripe stripe : this.stripes) {
+            late += stripe.lateSweeps();
+        }
+        return late;
+    }
+
+    /**
+     * @return longest time a sweep has started after it was due so far, in nanoseconds
+     */
+    public long maxLatenessNanos() {
+        long lateness = 0;
+        for (Stripe stripe : this.stripes) {
+            lateness = Math.max(lateness, stripe.maxLatenessNanos());
+        }
+        return lateness;
+    }
+
+    /**
+     * Stop every hosted game and the carrier threads. The host can't be used afterwards.
+     */
+    public void shutdown() {
+        for (Stripe stripe : this.stripes) {
+            for (Handle handle : stripe.members()) {
+                handle.stop();
+            }
+        }
+        this.carriers.shutdownNow();
+    }
+
+    /**
+     * The games swept together by one carrier, and how punctual their sweeps have been.
+     */
+    private static class Stripe implements Runnable {
+        private final long sweepNanos;
+        private volatile Handle[] members = new Handle[0];
+        private long firstDue;
+        private long count = 0;
+        private long lateSweeps = 0;
+        private long maxLatenessNanos = 0;
+
+        // Abstraction Function:
+        //   AF(sweepNanos, members, firstDue, count, lateSweeps, maxLatenessNanos) = the games of members,
+        //     swept every sweepNanos starting at System.nanoTime() firstDue;
+        //     count sweeps have started, lateSweeps of them sweepNanos or more after they were due,
+        //     the latest by maxLatenessNanos
+        // Rep Invariant:
+        //   sweepNanos > 0
+        //   members has no duplicates; a handle leaves members when it is stopped
+        //   0 <= lateSweeps <= count, maxLatenessNanos >= 0
+        // Safety from rep exposure:
+        //   members is replaced, never mutated, so it may be handed out
+        // Thread safety argument:
+        //   members is replaced while holding this stripe's lock;
+        //   firstDue, count, lateSweeps and maxLatenessNanos are guarded by this stripe's lock
+
+        /**
+         * @param sweepNanos time between sweeps in nanoseconds, > 0
+         */
+        Stripe(long sweepNanos) {
+            this.sweepNanos = sweepNanos;
+        }
+
+        /**
+         * Start sweeping this stripe every sweepNanos.
+         * @param carriers executor to sweep in
+         * @param offset delay before the first sweep, in nanoseconds
+         */
+        synchronized void schedule(ScheduledThreadPoolExecutor carriers, long offset) {
+            this.firstDue = System.nanoTime() + offset;
+            carriers.scheduleAtFixedRate(this, offset, this.sweepNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return the current members of this stripe, never mutated
+         */
+        Handle[] members() {
+            return this.members;
+        }
+
+        /**
+         * @param handle to join this stripe
+         */
+        synchronized void add(Handle handle) {
+            Handle[] grown = Arrays.copyOf(this.members, this.members.length + 1);
+            grown[this.members.length] = handle;
+            this.members = grown;
+        }
+
+        /**
+         * @param handle to leave this stripe, if it is a member
+         */
+        synchronized void remove(Handle handle) {
+            for (int k = 0; k < this.members.length; k++) {
+                if (this.members[k] == handle) {
+                    Handle[] shrunk = new Handle[this.members.length - 1];
+                    System.arraycopy(this.members, 0, shrunk, 0, k);
+                    System.arraycopy(this.members, k + 1, shrunk, k, shrunk.length - k);
+                    this.members = shrunk;
+                    return;
+                }
+            }
+        }
+
+        synchronized long lateSweeps() {
+            return this.lateSweeps;
+        }
+
+        synchronized long maxLatenessNanos() {
+            return this.maxLatenessNanos;
+        }
+
+        /**
+         * Advance every running member through the timesteps that are due.
+         */
+        @Override
+        public void run() {
+            final long due = countSweep(System.nanoTime());
+            for (Handle handle : this.members) {
+                handle.sweep(due);
+            }
+        }
+
+        /**
+         * Record how late a sweep started.
+         * @param start System.nanoTime() when the sweep started
+         * @return System.nanoTime() when the sweep was due, never after start
+         */
+        private synchronized long countSweep(long start) {
+            long due = Math.min(start, this.firstDue + this.count * this.sweepNanos);
+            long lateness = start - due;
+            this.count++;
+            if (lateness >= this.sweepNanos) {
+                this.lateSweeps++;
+            }
+            this.maxLatenessNanos = Math.max(this.maxLatenessNanos, lateness);
+            return due;
+        }
+    }
+
+    /**
+     * A game hosted by a BoardHost, with which to start, pause and stop it.
+     */
+    public static class Handle {
+        private final Game game;
+        private final Stripe stripe;
+        private final TickClock clock;
+        private volatile State state = State.PAUSED;
+        private boolean restart = true;
+
+        // Abstraction Function:
+        //   AF(game, stripe, clock, state, restart) = game, hosted in stripe unless state is STOPPED,
+        //     whose timesteps are due by clock, which must be restarted before the next timestep iff restart
+        // Rep Invariant:
+        //   state == STOPPED iff this handle isn't a member of stripe, once host() has returned it
+        // Safety from rep exposure:
+        //   game is the client's own, returned on purpose; stripe is never returned
+        // Thread safety argument:
+        //   state is volatile, and changes of state are synchronized on this handle,
+        //   so that a stopped game stays stopped;
+        //   clock and restart are confined to the sweeps of stripe, which happen one after another
+
+        /**
+         * @param game to host
+         * @param stripe that sweeps the game
+         */
+        private Handle(Game game, Stripe stripe) {
+            this.game = game;
+            this.stripe = stripe;
+            this.clock = new TickClock(Math.round(game.timestep() * 1e9));
+        }
+
+        /**
+         * Advance the game through the timesteps that are due, if it is running.
+         * Like Game.run(), a quiescent game isn't ticked until an action makes a ball active,
+         * and timesteps that fall due while the game is paused or quiescent are not caught up.
+         * Called only by the sweeps of stripe.
+         * @param sweepDue System.nanoTime() when the calling sweep was due; a restarted clock
+         *        starts from it, so that timesteps fall due in step with the sweeps
+         */
+        private void sweep(long sweepDue) {
+            if (this.state != State.RUNNING || this.game.isQuiescent()) {
+                this.restart = true;
+                return;
+            }
+            if (this.restart) {
+                this.clock.restart(sweepDue);
+                this.restart = false;
+            }
+            this.game.tickDue(this.clock);
+        }
+
+        /**
+         * @return the hosted game
+         */
+        public Game game() {
+            return this.game;
+        }
+
+        /**
+         * @return state of the game
+         */
+        public State state() {
+            return this.state;
+        }
+
+        /**
+         * Start or resume advancing the game in real time, from the next sweep of its stripe.
+         * @throws IllegalStateException if the game has been stopped
+         */
+        public synchronized void start() {
+            if (this.state == State.STOPPED) {
+                throw new IllegalStateException("game " + this.game.name() + " has been stopped");
+            }
+            this.state = State.RUNNING;
+        }
+
+        /**
+         * Stop advancing the game until start() is called; the timestep in progress, if any, completes.
+         * @throws IllegalStateException if the game has been stopped
+         */
+        public synchronized void pause() {
+            if (this.state == State.STOPPED) {
+                throw new IllegalStateException("game " + this.game.name() + " has been stopped");
+            }
+            this.state = State.PAUSED;
+        }
+
+        /**
+         * Stop advancing the game for good and stop hosting it; does nothing if it is already stopped.
+         */
+        public synchronized void stop() {
+            if (this.state != State.STOPPED) {
+                this.state = State.STOPPED;
+                this.stripe.remove(this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "[Hosted " + this.game.name() + ": " + this.state + "]";
+        }
+    }
+}
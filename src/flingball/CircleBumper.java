@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import physics.Circle;
+import physics.LineSegment;
 import physics.Physics;
 import physics.Vect;
 
@@ -47,6 +48,19 @@ class CircleBumper implements Gadget {
         checkRep();
     }
     
+    /**
+     * Create a bumper with the same name and geometry as another, sharing its immutable circle,
+     * and with no action objects.
+     * @param prototype bumper to copy
+     */
+    private CircleBumper(CircleBumper prototype) {
+        this.name = prototype.name;
+        this.x = prototype.x;
+        this.y = prototype.y;
+        this.circle = prototype.circle;
+        checkRep();
+    }
+    
     /**
      * Check that the rep invariant is satisfied.
      */
@@ -68,6 +82,16 @@ class CircleBumper implements Gadget {
         return new Vect(this.x, this.y);
     }
     
+    @Override
+    public int getWidth() {
+        return 1;
+    }
+    
+    @Override
+    public int getHeight() {
+        return 1;
+    }
+    
     /**
      * Get the Circle object representing the cirlce bumper
      * @return circle representing circle bumper
@@ -76,6 +100,18 @@ class CircleBumper implements Gadget {
         return new Circle(this.x+CIRCLE_RADIUS, this.y+CIRCLE_RADIUS, CIRCLE_RADIUS);
     }
     
+    @Override
+    public List<LineSegment> getEdges() {
+        return new ArrayList<>();
+    }
+    
+    @Override
+    public List<Circle> getCorners() {
+        List<Circle> corners = new ArrayList<>();
+        corners.add(getCircle());
+        return corners;
+    }
+    
     @Override
     public String name() {
         return this.name;
@@ -129,19 +165,39 @@ class CircleBumper implements Gadget {
         return this.name.hashCode() + this.x + this.y + this.circle.hashCode();
     }
     
+    @Override
+    public boolean canCollide(Ball ball) {
+        return true;
+    }
+    
+    @Override
+    public void collision(Ball ball, Collision result) {
+        double time = Collisions.timeUntilCircleCollision(this.circle, ball);
+        if (time == Double.POSITIVE_INFINITY) {
+            result.clear();
+        } else {
+            Collisions.hitCircle(time, 0, this.circle.getCenter().x(), this.circle.getCenter().y(), 
+                    ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity(), result);
+        }
+    }
+    
+    @Override
+    public void collide(Ball ball, Collision contact) {
+        ball.setVelocity(contact.xVelocity(), contact.yVelocity());
+    }
+    
     @Override
     public boolean trigger(Ball ball, double deltaT) {
-        if (timeUntilCollision(ball) < deltaT) {
-            Vect newVel = this.velocityAfterCollision(ball);
-            ball.setVelocity(newVel.x(), newVel.y());
-            Vect displacement = new Vect(ball.getVelocity().x()*deltaT, ball.getVelocity().y()*deltaT);
-            Vect newCenter = ball.getCenter().plus(displacement);
-            ball.setCenter(newCenter.x(), newCenter.y());
-            
-            for (Gadget actionObject: actionObjects) {
-                actionObject.action();
-            }
-            
+        Collision contact = new Collision();
+        collision(ball, contact);
+        return trigger(ball, deltaT, contact);
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT, Collision contact) {
+        if (contact.time() < deltaT) {
+            collide(ball, contact);
+            ball.setCenter(ball.x() + ball.xVelocity()*deltaT, ball.y() + ball.yVelocity()*deltaT);
             return true;
         }
         return false;
@@ -154,16 +210,13 @@ class CircleBumper implements Gadget {
     
     @Override
     public CircleBumper copy() {
-        return new CircleBumper(this.name, this.x, this.y);
+        return new CircleBumper(this);
     }
     
     @Override
-    public void drawIcon(Graphics2D g, final int scaler, List<Ball> balls, double deltaT) {
+    public void drawIcon(Graphics2D g, final int scaler, boolean hit) {
         final int FILL_CONSTANT = 2;
-        g.setColor(Color.PINK); 
-        for (Ball ball : balls) {
-            if (trigger(ball, deltaT))  g.setColor(Color.YELLOW);
-        }
+        g.setColor(hit ? Color.YELLOW : Color.PINK);
 
         int displayX = (int) Math.round(x*scaler);
         int displayY = (int) Math.round(y*scaler);
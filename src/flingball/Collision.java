@@ -0,0 +1,104 @@
+package flingball;
+
+/**
+ * A mutable, reusable result of a collision query between a ball and a gadget:
+ * when the ball hits the gadget, which edge or corner of the gadget it hits,
+ * and the ball's velocity after bouncing off that edge or corner.
+ * Reusing one Collision for many queries lets a game find collisions without allocating.
+ */
+class Collision {
+    private double time = Double.POSITIVE_INFINITY;
+    private int feature = -1;
+    private double xVelocity = 0;
+    private double yVelocity = 0;
+
+    // Abstraction Function:
+    //   AF(time, feature, xVelocity, yVelocity) = no collision if time is POSITIVE_INFINITY,
+    //     otherwise a collision time seconds from now with feature number feature of the gadget,
+    //     where a gadget numbers its edges from 0 in the order of getEdges()
+    //     and then its corners in the order of getCorners(),
+    //     after which the ball moves with velocity (xVelocity, yVelocity)
+    // Rep Invariant:
+    //   time >= 0
+    //   feature == -1 iff time is POSITIVE_INFINITY
+    // Safety from rep exposure:
+    //   all fields private and primitive
+
+    /**
+     * Make a Collision that records no collision.
+     */
+    public Collision() {
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert time >= 0 : "collision time must be non-negative";
+        assert (feature == -1) == (time == Double.POSITIVE_INFINITY) : "only a collision has a feature";
+    }
+
+    /**
+     * Record that there is no collision.
+     */
+    public void clear() {
+        this.time = Double.POSITIVE_INFINITY;
+        this.feature = -1;
+        this.xVelocity = 0;
+        this.yVelocity = 0;
+        checkRep();
+    }
+
+    /**
+     * Record a collision.
+     * @param time until the collision in seconds, >= 0 and finite
+     * @param feature number of the edge or corner hit, >= 0
+     * @param xVelocity x value of the ball velocity after the collision
+     * @param yVelocity y value of the ball velocity after the collision
+     */
+    public void set(double time, int feature, double xVelocity, double yVelocity) {
+        this.time = time;
+        this.feature = feature;
+        this.xVelocity = xVelocity;
+        this.yVelocity = yVelocity;
+        checkRep();
+    }
+
+    /**
+     * @return time until the collision in seconds, POSITIVE_INFINITY if there is none
+     */
+    public double time() {
+        return this.time;
+    }
+
+    /**
+     * @return number of the edge or corner hit, -1 if there is no collision
+     */
+    public int feature() {
+        return this.feature;
+    }
+
+    /**
+     * @return x value of the ball velocity after the collision
+     */
+    public double xVelocity() {
+        return this.xVelocity;
+    }
+
+    /**
+     * @return y value of the ball velocity after the collision
+     */
+    public double yVelocity() {
+        return this.yVelocity;
+    }
+
+    @Override
+    public String toString() {
+        if (this.feature < 0) {
+            return "[Collision: none]";
+        }
+        return "[Collision: feature " + this.feature + " at " + this.time
+                + ", velocity after <" + this.xVelocity + "," + this.yVelocity + ">]";
+    }
+}
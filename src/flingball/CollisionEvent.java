@@ -0,0 +1,121 @@
+package flingball;
+
+/**
+ * An immutable prediction that a ball will collide with a gadget at a given time,
+ * and of how it will bounce off, used by the event-driven engine of a Game.
+ */
+class CollisionEvent implements Comparable<CollisionEvent> {
+    private final double time;
+    private final int ball;
+    private final int gadget;
+    private final int version;
+    private final int feature;
+    private final double xVelocity;
+    private final double yVelocity;
+
+    // Abstraction Function:
+    //   AF(time, ball, gadget, version, feature, xVelocity, yVelocity) = the prediction that 
+    //     the ball with index ball hits edge or corner number feature of the gadget with index gadget
+    //     at time seconds into the current timestep and leaves it with velocity (xVelocity, yVelocity),
+    //     valid only while the ball's prediction version is still version
+    // Rep Invariant:
+    //   time >= 0
+    //   ball >= 0, gadget >= 0 and feature >= 0
+    // Safety from rep exposure:
+    //   all fields private, final and immutable
+
+    /**
+     * Create a collision event.
+     * @param time of the collision, in seconds since the start of the timestep, must be >= 0
+     * @param ball index of the ball in its game
+     * @param gadget index of the gadget in its game
+     * @param version of the ball's prediction when this event was made
+     * @param contact collision of the ball with the gadget, as found when this event was made
+     */
+    public CollisionEvent(double time, int ball, int gadget, int version, Collision contact) {
+        this.time = time;
+        this.ball = ball;
+        this.gadget = gadget;
+        this.version = version;
+        this.feature = contact.feature();
+        this.xVelocity = contact.xVelocity();
+        this.yVelocity = contact.yVelocity();
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert time >= 0 : "collision time must be non-negative";
+        assert ball >= 0 && gadget >= 0 && feature >= 0 : "indices must be non-negative";
+    }
+
+    /**
+     * @return time of the collision, in seconds since the start of the timestep
+     */
+    public double time() {
+        return this.time;
+    }
+
+    /**
+     * @return index of the colliding ball
+     */
+    public int ball() {
+        return this.ball;
+    }
+
+    /**
+     * @return index of the gadget hit
+     */
+    public int gadget() {
+        return this.gadget;
+    }
+
+    /**
+     * @return version of the ball's prediction when this event was made
+     */
+    public int version() {
+        return this.version;
+    }
+
+    /**
+     * Set a Collision to the collision this event predicts, as seen at the time of the event.
+     * @param contact set to a collision at time 0 with the predicted edge or corner and velocity, mutated
+     */
+    public void contact(Collision contact) {
+        contact.set(0, this.feature, this.xVelocity, this.yVelocity);
+    }
+
+    /**
+     * Order events by time, breaking ties by ball and then gadget index so that
+     * simultaneous collisions are always handled in the same order.
+     */
+    @Override
+    public int compareTo(CollisionEvent that) {
+        int byTime = Double.compare(this.time, that.time);
+        if (byTime != 0) return byTime;
+        if (this.ball != that.ball) return Integer.compare(this.ball, that.ball);
+        return Integer.compare(this.gadget, that.gadget);
+    }
+
+    @Override
+    public String toString() {
+        return "[CollisionEvent: ball " + this.ball + " hits gadget " + this.gadget + " at " + this.time + "]";
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof CollisionEvent)) return false;
+        CollisionEvent thatEvent = (CollisionEvent) that;
+        return this.time == thatEvent.time() && this.ball == thatEvent.ball()
+                && this.gadget == thatEvent.gadget() && this.version == thatEvent.version()
+                && this.feature == thatEvent.feature && this.xVelocity == thatEvent.xVelocity
+                && this.yVelocity == thatEvent.yVelocity;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(this.time) + this.ball + this.gadget + this.version + this.feature;
+    }
+}
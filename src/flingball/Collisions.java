@@ -0,0 +1,411 @@
+package flingball;
+
+import java.util.List;
+
+import physics.Circle;
+import physics.LineSegment;
+import physics.Vect;
+
+/**
+ * Collision calculations between a moving ball and static geometry on primitive values,
+ * so that they can run every timestep without allocating.
+ * Times until collision are computed with the same formulas as physics.Physics,
+ * and reflections give the same velocities up to rounding.
+ */
+final class Collisions {
+
+    // nobody should be constructing a Collisions
+    private Collisions() {
+    }
+
+    /**
+     * Find the smaller root of a quadratic equation a*t^2 + b*t + c = 0,
+     * as in physics.Physics.minQuadraticSolution.
+     * @param a coefficient of t^2
+     * @param b coefficient of t
+     * @param c constant term
+     * @return smaller root, or NaN if there is no real root
+     */
+    static double minQuadraticSolution(double a, double b, double c) {
+        if (a == 0.0) {
+            if (b == 0.0) {
+                return Double.NaN;
+            }
+            return -c/b;
+        }
+        double discriminant = (b * b) - (4.0 * a * c);
+        if (discriminant < 0.0) {
+            return Double.NaN;
+        }
+        double sqrt = Math.sqrt(discriminant);
+        double twoA = 2.0 * a;
+        if (a > 0) {
+            return (-b - sqrt)/twoA;
+        } else {
+            return (-b + sqrt)/twoA;
+        }
+    }
+
+    /**
+     * Calculate the time until a ball collides with a line segment,
+     * as in physics.Physics.timeUntilWallCollision.
+     * @param x1 x coordinate of the first end point of the segment
+     * @param y1 y coordinate of the first end point of the segment
+     * @param x2 x coordinate of the second end point of the segment
+     * @param y2 y coordinate of the second end point of the segment
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param radius of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the segment
+     */
+    static double timeUntilWallCollision(double x1, double y1, double x2, double y2,
+                                         double a, double b, double radius, double va, double vb) {
+        double width = x2 - x1;
+        double height = y2 - y1;
+        double f = (va * height) - (vb * width);
+        double g = (a * height) - (b * width) + ((x2 * y1) - (x1 * y2));
+        double h = (width * width) + (height * height);
+        double collisionTime = minQuadraticSolution(f * f, 2.0 * f * g, g * g - (radius * radius * h));
+        if (Double.isNaN(collisionTime)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // the point of impact must be within the segment
+        double cX = a + (collisionTime * va);
+        double cY = b + (collisionTime * vb);
+        double minS = ((width * (cX - x1)) + (height * (cY - y1))) / h;
+        if (!(0.0 <= minS && minS < 1.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (collisionTime > 0) {
+            return collisionTime;
+        }
+        // the ball overlaps the segment: it collides now only if it is moving toward it
+        double impactX = x1 + minS * width;
+        double impactY = y1 + minS * height;
+        if (va * (a - impactX) + vb * (b - impactY) >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 0;
+    }
+
+    /**
+     * Calculate the time until a ball collides with a fixed circle,
+     * as in physics.Physics.timeUntilCircleCollision.
+     * @param x x coordinate of the center of the circle
+     * @param y y coordinate of the center of the circle
+     * @param circleRadius radius of the circle
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param radius of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the circle
+     */
+    static double timeUntilCircleCollision(double x, double y, double circleRadius,
+                                           double a, double b, double radius, double va, double vb) {
+        double distance = circleRadius + radius;
+        double width = a - x;
+        double height = b - y;
+        double ans = minQuadraticSolution((va * va) + (vb * vb),
+                                          2.0 * ((va * width) + (vb * height)),
+                                          (width * width) + (height * height) - (distance * distance));
+        if (Double.isNaN(ans)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (ans > 0) {
+            return ans;
+        }
+        // the ball overlaps the circle: it collides now only if it is moving toward it
+        if (width * va + height * vb >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 0;
+    }
+
+    /**
+     * Calculate the time until a ball collides with a horizontal line segment.
+     * Gives the same result as timeUntilWallCollision(x1, y, x2, y, ...) up to rounding,
+     * with the quadratic solved in closed form.
+     * @param x1 x coordinate of the first end point of the segment
+     * @param x2 x coordinate of the second end point of the segment, != x1
+     * @param y coordinate of the segment
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param radius of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the segment
+     */
+    static double timeUntilHorizontalWallCollision(double x1, double x2, double y,
+                                                   double a, double b, double radius, double va, double vb) {
+        double distance = b - y;
+        // a ball moving parallel to or away from the line never hits it, even if it overlaps it
+        if (distance * vb >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // the ball's near side reaches the line: b + vb*t = y +- radius
+        double collisionTime = ((vb > 0 ? -radius : radius) - distance) / vb;
+        double minS = (a + collisionTime * va - x1) / (x2 - x1);
+        if (!(0.0 <= minS && minS < 1.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (collisionTime > 0) {
+            return collisionTime;
+        }
+        // the ball overlaps the segment: as in timeUntilWallCollision, 
+        // it collides now only if it is moving toward the point of impact
+        if (va * (-collisionTime * va) + vb * distance >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 0;
+    }
+
+    /**
+     * Calculate the time until a ball collides with a vertical line segment.
+     * Gives the same result as timeUntilWallCollision(x, y1, x, y2, ...) up to rounding,
+     * with the quadratic solved in closed form.
+     * @param x coordinate of the segment
+     * @param y1 y coordinate of the first end point of the segment
+     * @param y2 y coordinate of the second end point of the segment, != y1
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param radius of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the segment
+     */
+    static double timeUntilVerticalWallCollision(double x, double y1, double y2,
+                                                 double a, double b, double radius, double va, double vb) {
+        double distance = a - x;
+        // a ball moving parallel to or away from the line never hits it, even if it overlaps it
+        if (distance * va >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // the ball's near side reaches the line: a + va*t = x +- radius
+        double collisionTime = ((va > 0 ? -radius : radius) - distance) / va;
+        double minS = (b + collisionTime * vb - y1) / (y2 - y1);
+        if (!(0.0 <= minS && minS < 1.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (collisionTime > 0) {
+            return collisionTime;
+        }
+        // the ball overlaps the segment: as in timeUntilWallCollision, 
+        // it collides now only if it is moving toward the point of impact
+        if (vb * (-collisionTime * vb) + va * distance >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 0;
+    }
+
+    /**
+     * Calculate the time until a ball collides with a point, i.e. a circle of radius zero.
+     * Gives the same result as timeUntilCircleCollision(x, y, 0, ...) up to rounding.
+     * @param x coordinate of the point
+     * @param y coordinate of the point
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param radius of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the point
+     */
+    static double timeUntilPointCollision(double x, double y,
+                                          double a, double b, double radius, double va, double vb) {
+        double width = a - x;
+        double height = b - y;
+        double approach = (va * width) + (vb * height);
+        // a ball moving away from the point never hits it, even if it overlaps it
+        if (approach >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double speedSquared = (va * va) + (vb * vb);
+        double c = (width * width) + (height * height) - (radius * radius);
+        double discriminant = (approach * approach) - (speedSquared * c);
+        if (discriminant < 0.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.max((-approach - Math.sqrt(discriminant)) / speedSquared, 0);
+    }
+
+    /**
+     * Calculate the time until two moving balls collide,
+     * as in physics.Physics.timeUntilBallBallCollision.
+     * @param x1 x coordinate of the center of the first ball
+     * @param y1 y coordinate of the center of the first ball
+     * @param vx1 x value of the velocity of the first ball
+     * @param vy1 y value of the velocity of the first ball
+     * @param x2 x coordinate of the center of the second ball
+     * @param y2 y coordinate of the center of the second ball
+     * @param vx2 x value of the velocity of the second ball
+     * @param vy2 y value of the velocity of the second ball
+     * @param radius of each ball
+     * @return time until collision, or POSITIVE_INFINITY if the balls will not collide
+     */
+    static double timeUntilBallBallCollision(double x1, double y1, double vx1, double vy1,
+                                             double x2, double y2, double vx2, double vy2, double radius) {
+        double width = x1 - x2;
+        double height = y1 - y2;
+        double va = vx1 - vx2;
+        double vb = vy1 - vy2;
+        double distance = 2 * radius;
+        double gap = (width * width) + (height * height) - (distance * distance);
+        // overlapping or touching balls collide now only if they are moving toward each other
+        if (gap <= 0.0) {
+            return (va * width) + (vb * height) < 0.0 ? 0.0 : Double.POSITIVE_INFINITY;
+        }
+        double time = minQuadraticSolution((va * va) + (vb * vb), 2 * ((width * va) + (height * vb)), gap);
+        if (time > 0) {
+            return time;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Compute the velocities of two balls of equal mass after they collide,
+     * as in physics.Physics.reflectBalls.
+     * @param x1 x coordinate of the center of the first ball at the moment of impact
+     * @param y1 y coordinate of the center of the first ball at the moment of impact
+     * @param vx1 x value of the velocity of the first ball
+     * @param vy1 y value of the velocity of the first ball
+     * @param x2 x coordinate of the center of the second ball at the moment of impact,
+     *        different from the first ball's center
+     * @param y2 y coordinate of the center of the second ball at the moment of impact
+     * @param vx2 x value of the velocity of the second ball
+     * @param vy2 y value of the velocity of the second ball
+     * @param result set to the velocity of the first ball in result[0] and result[1]
+     *        and of the second ball in result[2] and result[3], mutated
+     */
+    static void reflectBalls(double x1, double y1, double vx1, double vy1,
+                             double x2, double y2, double vx2, double vy2, double[] result) {
+        // the balls exchange the components of their velocities along the line between their centers
+        double width = x1 - x2;
+        double height = y1 - y2;
+        double length = Math.sqrt((width * width) + (height * height));
+        double tx = width / length;
+        double ty = height / length;
+        double gamma = -(((vx1 - vx2) * tx) + ((vy1 - vy2) * ty));
+        result[0] = vx1 + tx * gamma;
+        result[1] = vy1 + ty * gamma;
+        result[2] = vx2 - tx * gamma;
+        result[3] = vy2 - ty * gamma;
+    }
+
+    /**
+     * Calculate the time until a ball collides with a line segment.
+     * @param line segment the ball may hit
+     * @param ball moving ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the segment
+     */
+    static double timeUntilWallCollision(LineSegment line, Ball ball) {
+        return timeUntilWallCollision(line.p1().x(), line.p1().y(), line.p2().x(), line.p2().y(),
+                ball.x(), ball.y(), Ball.BALL_RADIUS, ball.xVelocity(), ball.yVelocity());
+    }
+
+    /**
+     * Calculate the time until a ball collides with a fixed circle.
+     * @param circle the ball may hit
+     * @param ball moving ball
+     * @return time until collision, or POSITIVE_INFINITY if the ball will not collide with the circle
+     */
+    static double timeUntilCircleCollision(Circle circle, Ball ball) {
+        return timeUntilCircleCollision(circle.getCenter().x(), circle.getCenter().y(), circle.getRadius(),
+                ball.x(), ball.y(), Ball.BALL_RADIUS, ball.xVelocity(), ball.yVelocity());
+    }
+
+    /**
+     * Record a collision with a line segment, with the velocity of the ball reflected off it
+     * as in physics.Physics.reflectWall.
+     * @param time until the collision, >= 0 and finite
+     * @param feature number of the segment in its gadget
+     * @param x1 x coordinate of the first end point of the segment
+     * @param y1 y coordinate of the first end point of the segment
+     * @param x2 x coordinate of the second end point of the segment
+     * @param y2 y coordinate of the second end point of the segment
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @param result set to the collision, mutated
+     */
+    static void hitWall(double time, int feature, double x1, double y1, double x2, double y2,
+                        double va, double vb, Collision result) {
+        double width = x2 - x1;
+        double height = y2 - y1;
+        // mirror the velocity across the direction of the segment
+        double scale = 2 * ((va * width) + (vb * height)) / ((width * width) + (height * height));
+        result.set(time, feature, scale * width - va, scale * height - vb);
+    }
+
+    /**
+     * Record a collision with a fixed circle, with the velocity of the ball reflected off it
+     * at the point of impact as in physics.Physics.reflectCircle.
+     * @param time until the collision, >= 0 and finite
+     * @param feature number of the circle in its gadget
+     * @param x x coordinate of the center of the circle
+     * @param y y coordinate of the center of the circle
+     * @param a x coordinate of the center of the ball now
+     * @param b y coordinate of the center of the ball now
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @param result set to the collision, mutated
+     */
+    static void hitCircle(double time, int feature, double x, double y,
+                          double a, double b, double va, double vb, Collision result) {
+        // from the center of the circle to the center of the ball at the moment of impact
+        double width = a + va * time - x;
+        double height = b + vb * time - y;
+        double lengthSquared = (width * width) + (height * height);
+        if (lengthSquared == 0.0) {
+            result.set(time, feature, va, vb);
+            return;
+        }
+        // mirror the velocity across the tangent at the point of impact
+        double scale = 2 * ((va * width) + (vb * height)) / lengthSquared;
+        result.set(time, feature, va - scale * width, vb - scale * height);
+    }
+
+    /**
+     * Find the earliest collision of a ball with a gadget made of line segments and circles,
+     * in one pass over them. A tie between a segment and a circle goes to the circle,
+     * and a tie within the segments or within the circles to the first one listed.
+     * @param edges segments of the gadget, numbered from 0
+     * @param corners circles of the gadget, numbered after the segments
+     * @param ball moving ball
+     * @param result set to the earliest collision, or to no collision if the ball never hits the gadget,
+     *        mutated
+     */
+    static void closestCollision(List<LineSegment> edges, List<Circle> corners, Ball ball, Collision result) {
+        int closestEdge = -1;
+        double minEdge = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < edges.size(); i++) {
+            double time = timeUntilWallCollision(edges.get(i), ball);
+            if (time < minEdge) {
+                minEdge = time;
+                closestEdge = i;
+            }
+        }
+        int closestCorner = -1;
+        double minCorner = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < corners.size(); i++) {
+            double time = timeUntilCircleCollision(corners.get(i), ball);
+            if (time < minCorner) {
+                minCorner = time;
+                closestCorner = i;
+            }
+        }
+
+        if (closestCorner >= 0 && minCorner <= minEdge) {
+            Vect center = corners.get(closestCorner).getCenter();
+            hitCircle(minCorner, edges.size() + closestCorner, center.x(), center.y(),
+                    ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity(), result);
+        } else if (closestEdge >= 0) {
+            LineSegment edge = edges.get(closestEdge);
+            hitWall(minEdge, closestEdge, edge.p1().x(), edge.p1().y(), edge.p2().x(), edge.p2().y(),
+                    ball.xVelocity(), ball.yVelocity(), result);
+        } else {
+            result.clear();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package flingball;
+
+/**
+ * An immutable request to change a running Flingball game, posted to its mailbox with Game.post()
+ * from any thread, and carried out by the thread that advances the game at the start of its next timestep.
+ * Commands from one thread are carried out in the order they were posted.
+ * A command that can't be carried out when its turn comes, e.g. removing a ball that isn't there,
+ * is dropped and counted in Metrics.rejectedCommands().
+ */
+public class Command {
+
+    /**
+     * Kinds of command.
+     */
+    enum Kind {
+        ADD_BALL, REMOVE_BALL, ACTION, KEY_DOWN, KEY_UP, SET_GRAVITY, SET_FRICTION, PAUSE, RESUME
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final Ball ball;
+    private final float value1;
+    private final float value2;
+
+    // Abstraction Function:
+    //   AF(kind, name, ball, value1, value2) = a command of kind kind:
+    //     ADD_BALL adds a ball like ball; REMOVE_BALL removes the ball named name;
+    //     ACTION performs the action of the gadget named name;
+    //     KEY_DOWN and KEY_UP press and release the key named name, triggering the actions bound to it;
+    //     SET_GRAVITY sets gravity to value1; SET_FRICTION sets friction1 to value1 and friction2 to value2;
+    //     PAUSE and RESUME stop and restart the game's timesteps
+    // Rep Invariant:
+    //   ball != null iff kind == ADD_BALL
+    //   name != null iff kind is REMOVE_BALL, ACTION, KEY_DOWN or KEY_UP
+    // Safety from rep exposure:
+    //   all fields private and final;
+    //   ball is a copy of the client's ball, whose own copies are handed out
+
+    /**
+     * Make a command.
+     * @param kind of command
+     * @param name of the ball, gadget or key it applies to, if any
+     * @param ball to add, if any; not copied
+     * @param value1 first value to set, if any
+     * @param value2 second value to set, if any
+     */
+    private Command(Kind kind, String name, Ball ball, float value1, float value2) {
+        this.kind = kind;
+        this.name = name;
+        this.ball = ball;
+        this.value1 = value1;
+        this.value2 = value2;
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert (ball != null) == (kind == Kind.ADD_BALL);
+        assert (name != null) == (kind == Kind.REMOVE_BALL || kind == Kind.ACTION
+                || kind == Kind.KEY_DOWN || kind == Kind.KEY_UP);
+    }
+
+    /**
+     * @param ball to add to the game, active; rejected if the game has a ball with the same name
+     * @return command adding a copy of ball
+     */
+    public static Command addBall(Ball ball) {
+        return new Command(Kind.ADD_BALL, null, ball.copy(), 0, 0);
+    }
+
+    /**
+     * @param ballName name of the ball to remove from the game, even if an absorber holds it;
+     *        rejected if there is no such ball
+     * @return command removing the ball
+     */
+    public static Command removeBall(String ballName) {
+        return new Command(Kind.REMOVE_BALL, ballName, null, 0, 0);
+    }
+
+    /**
+     * @param gadgetName name of the gadget whose action to perform, as if it had been triggered;
+     *        rejected if there is no such gadget
+     * @return command performing the action at the start of the next timestep
+     */
+    public static Command action(String gadgetName) {
+        return new Command(Kind.ACTION, gadgetName, null, 0, 0);
+    }
+
+    /**
+     * @param key name of a key, as in the keydown lines of a board
+     * @return command pressing the key, which triggers the actions bound to its press;
+     *         accepted even if no action is bound to it
+     */
+    public static Command keyDown(String key) {
+        return new Command(Kind.KEY_DOWN, key, null, 0, 0);
+    }
+
+    /**
+     * @param key name of a key, as in the keyup lines of a board
+     * @return command releasing the key, which triggers the actions bound to its release;
+     *         accepted even if no action is bound to it
+     */
+    public static Command keyUp(String key) {
+        return new Command(Kind.KEY_UP, key, null, 0, 0);
+    }
+
+    /**
+     * @param gravity new gravity constant of the game
+     * @return command setting gravity
+     */
+    public static Command setGravity(float gravity) {
+        return new Command(Kind.SET_GRAVITY, null, null, gravity, 0);
+    }
+
+    /**
+     * @param friction1 new friction1 constant of the game
+     * @param friction2 new friction2 constant of the game
+     * @return command setting friction
+     */
+    public static Command setFriction(float friction1, float friction2) {
+        return new Command(Kind.SET_FRICTION, null, null, friction1, friction2);
+    }
+
+    /**
+     * @return command pausing the game: its timesteps change nothing until it is resumed,
+     *         though it still carries out commands
+     */
+    public static Command pause() {
+        return new Command(Kind.PAUSE, null, null, 0, 0);
+    }
+
+    /**
+     * @return command resuming a paused game; accepted even if the game isn't paused
+     */
+    public static Command resume() {
+        return new Command(Kind.RESUME, null, null, 0, 0);
+    }
+
+    /**
+     * @return kind of this command
+     */
+    Kind kind() {
+        return this.kind;
+    }
+
+    /**
+     * @return name of the ball, gadget or key this command applies to, or null if none
+     */
+    String name() {
+        return this.name;
+    }
+
+    /**
+     * @return ball to add, not copied, or null if none
+     */
+    Ball ball() {
+        return this.ball;
+    }
+
+    /**
+     * @return first value to set
+     */
+    float value1() {
+        return this.value1;
+    }
+
+    /**
+     * @return second value to set
+     */
+    float value2() {
+        return this.value2;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.kind) {
+        case ADD_BALL:
+            return "[Command " + this.kind + " " + this.ball.name() + "]";
+        case SET_GRAVITY:
+            return "[Command " + this.kind + " " + this.value1 + "]";
+        case SET_FRICTION:
+            return "[Command " + this.kind + " " + this.value1 + ", " + this.value2 + "]";
+        default:
+            return "[Command " + this.kind + (this.name == null ? "" : " " + this.name) + "]";
+        }
+    }
+}
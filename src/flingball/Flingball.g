@@ -3,24 +3,30 @@
  */
 
 @skip whitespace {
-	game ::= COMMENT* board (COMMENT | ball | gadget | interaction)*;
-	board::= 'board' 'name''=' NAME gravity? friction1? friction2?;
+	game ::= COMMENT* board (COMMENT | ball | gadget | interaction | keyup | keydown)*;
+	board::= 'board' 'name''=' NAME gravity? friction1? friction2? tickRate?;
 	gadget::= circle | triangle | absorber | square;
 	square::= 'squareBumper' 'name''='NAME 'x''='INTEGER 'y''='INTEGER;
 	circle::= 'circleBumper' 'name''='NAME 'x''='INTEGER 'y''='INTEGER;
 	triangle::= 'triangleBumper' 'name''='NAME 'x''='INTEGER 'y''='INTEGER ('orientation''=' ANGLE)?;
-	absorber::= 'absorber' 'name''='NAME 'x''='INTEGER 'y''='INTEGER 'width''='INTEGER 'height''='INTEGER;
+	absorber::= 'absorber' 'name''='NAME 'x''='INTEGER 'y''='INTEGER 'width''='INTEGER 'height''='INTEGER capacity? ejectRate?;
 	interaction::= 'fire' 'trigger''='NAME 'action''='NAME;
+	keyup::= 'keyup' 'key''='KEY 'action''='NAME;
+	keydown::= 'keydown' 'key''='KEY 'action''='NAME;
 	ball::= 'ball name='NAME 'x='FLOAT 'y='FLOAT 'xVelocity='FLOAT 'yVelocity='FLOAT;
 	
 	gravity::= 'gravity''=' FLOAT;
 	friction1::= 'friction1''=' FLOAT;
 	friction2::= 'friction2''=' FLOAT;
+	tickRate::= 'tickRate''=' FLOAT;
+	capacity::= 'capacity''=' INTEGER;
+	ejectRate::= 'ejectRate''=' INTEGER;
 }
 
 whitespace ::= [ \t\n\r]+;
 INTEGER ::= [0-9]+;
 NAME ::= [A-Za-z_][A-Za-z_0-9]*;
+KEY ::= [A-Za-z_0-9]+;
 FLOAT ::= '-'?([0-9]+.[0-9]*|.?[0-9]+);
 ANGLE ::= '0'|'90'|'180'|'270';
 COMMENT::= '#'[^\n]*'\n';
@@ -1,10 +1,15 @@
 package flingball;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 
 import edu.mit.eecs.parserlib.UnableToParseException;
@@ -15,18 +20,38 @@ import edu.mit.eecs.parserlib.UnableToParseException;
  */
 public class Flingball {
     
+    private static final String USAGE = "usage: Flingball [--engine ENGINE] [--ticks N | --seconds S | --fps F --active]\n"
+            + "                 [--png DIR | --rgb] [--scale P] [BOARD]\n"
+            + "  with --ticks or --seconds, runs BOARD headless as fast as possible and prints a report,\n"
+            + "  or with --png or --rgb records a frame per timestep at P pixels per L, by default 20,\n"
+            + "  as DIR/frame00000.png onwards or as raw rgb24 video on standard output;\n"
+            + "  otherwise displays BOARD at F frames per second, by default the display's refresh rate,\n"
+            + "  rendered on a thread of its own with --active,\n"
+            + "  or asks for boards to display if none is given";
+    
     /**
      * Main method. Loads and runs Flingball board from file pathname.
-     * If no path is specified, then loads and runs default Flingball 
-     * board.
+     * If no path is specified, then asks for boards to load and run 
+     * until q is entered.
      * 
      * Displays the running game as a graphical user interface that 
-     * pops up in a new window.
+     * pops up in a new window, or with --ticks N or --seconds S runs it
+     * headless for N timesteps or S seconds of game time, as fast as 
+     * possible, and prints a report of the run.
      * 
-     * @param args command line arguments -- optional argument specifying
-     * file pathname of Flingball board
+     * @param args command line arguments -- optional --engine ENGINE choosing
+     * one of Game.Engine, optional --ticks N or --seconds S choosing a headless run, 
+     * optional --fps F choosing the frames drawn per second of a displayed run,
+     * optional --active rendering a displayed run actively on a render thread,
+     * optional --png DIR or --rgb recording a headless run as PNG files or raw video,
+     * optional --scale P choosing the pixels per L of the recording,
+     * and optional file pathname of Flingball board
      */
     public static void main(String[] args) throws IOException{
+        if (args.length > 0) {
+            runCommandLine(args);
+            return;
+        }
         final BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
         
         try {
@@ -67,6 +92,125 @@ public class Flingball {
         
     }
     
+    /**
+     * Run a board as the command line arguments say.
+     * Prints the usage and exits if they are malformed.
+     * @param args command line arguments, as described by USAGE
+     */
+    private static void runCommandLine(String[] args) {
+        Game.Engine engine = Game.Engine.FIXED_STEP;
+        Long ticks = null;
+        Double seconds = null;
+        Double frameRate = null;
+        boolean active = false;
+        String pngDirectory = null;
+        boolean rgb = false;
+        Integer scale = null;
+        String board = "boards/default.fb";
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "--engine":
+                    engine = Game.Engine.valueOf(args[++i]);
+                    break;
+                case "--ticks":
+                    ticks = Long.parseLong(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Double.parseDouble(args[++i]);
+                    break;
+                case "--fps":
+                    frameRate = Double.parseDouble(args[++i]);
+                    break;
+                case "--active":
+                    active = true;
+                    break;
+                case "--png":
+                    pngDirectory = args[++i];
+                    break;
+                case "--rgb":
+                    rgb = true;
+                    break;
+                case "--scale":
+                    scale = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("unknown option " + args[i]);
+                    }
+                    board = args[i];
+                    break;
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        if ((ticks != null && ticks < 0) || (seconds != null && seconds < 0) || (frameRate != null && !(frameRate > 0))
+                || (ticks != null && seconds != null) || ((frameRate != null || active) && (ticks != null || seconds != null))
+                || (scale != null && !(scale > 0)) || (pngDirectory != null && rgb)
+                || ((pngDirectory != null || rgb) && ticks == null && seconds == null)
+                || (scale != null && pngDirectory == null && !rgb)) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        
+        final Game game;
+        try {
+            game = FlingballParser.parse(getString(board));
+        } catch (FileNotFoundException e) {
+            System.err.println("can't find " + board);
+            System.exit(1);
+            return;
+        } catch (UnableToParseException e) {
+            System.err.println("can't parse " + board);
+            System.exit(1);
+            return;
+        }
+        game.setEngine(engine);
+        
+        if (pngDirectory != null || rgb) {
+            final long frames = ticks != null ? ticks : HeadlessRunner.ticksFor(game, seconds);
+            record(game, frames, scale == null ? FrameRecorder.DEFAULT_PIXELS_PER_L : scale, pngDirectory);
+        } else if (ticks != null) {
+            System.out.print(HeadlessRunner.run(game, ticks));
+        } else if (seconds != null) {
+            System.out.print(HeadlessRunner.runFor(game, seconds));
+        } else {
+            final Simulator simulator = frameRate == null ? new Simulator(game) : new Simulator(game, frameRate);
+            if (active) {
+                simulator.drawActively();
+            } else {
+                simulator.draw();
+            }
+            game.run();
+        }
+    }
+    
+    /**
+     * Record a game headless, reporting on standard error, and exit if it can't be recorded.
+     * @param game to record
+     * @param frames number of frames to record
+     * @param pixelsPerL pixels per L of the frames
+     * @param pngDirectory directory to write PNG files to, or null to write raw video to standard output
+     */
+    private static void record(Game game, long frames, int pixelsPerL, String pngDirectory) {
+        final FrameRecorder recorder = new FrameRecorder(game, pixelsPerL);
+        final long start = System.nanoTime();
+        try {
+            if (pngDirectory != null) {
+                recorder.recordPngs(frames, Files.createDirectories(Paths.get(pngDirectory)));
+            } else {
+                recorder.recordRgb(frames, new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+            }
+        } catch (IOException e) {
+            System.err.println("can't record: " + e.getMessage());
+            System.exit(1);
+        }
+        System.err.printf("recorded %d frames of %dx%d pixels at %.1f frames per second of game time, in %.1f s%n",
+                frames, recorder.size(), recorder.size(), 1 / game.timestep(), (System.nanoTime() - start) * 1e-9);
+    }
+    
     /**
      * Get the content of a file as a string
      * @param filepath the path of the file
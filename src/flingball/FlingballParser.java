@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -47,10 +48,10 @@ public class FlingballParser {
     
     // non-terminals of the Flingball grammar
     private enum FlingballGrammar {
-        GAME, BOARD, GADGET, INTERACTION,
+        GAME, BOARD, GADGET, INTERACTION, KEYUP, KEYDOWN,
         SQUARE, CIRCLE, TRIANGLE, ABSORBER, BALL, 
-        GRAVITY, FRICTION1, FRICTION2,
-        INTEGER, NAME, FLOAT, ANGLE, COMMENT, WHITESPACE
+        GRAVITY, FRICTION1, FRICTION2, TICKRATE, CAPACITY, EJECTRATE,
+        INTEGER, NAME, KEY, FLOAT, ANGLE, COMMENT, WHITESPACE
     }
 
     private static Parser<FlingballGrammar> parser = makeParser();
@@ -119,6 +120,7 @@ public class FlingballParser {
                 float gravity = defaultGravity;
                 float friction1 = defaultFriction;
                 float friction2 = defaultFriction;
+                float tickRate = Board.DEFAULT_TICK_RATE;
                 
                 for (ParseTree<FlingballGrammar> fact : information) {
                     switch (fact.name()) {
@@ -131,6 +133,9 @@ public class FlingballParser {
                     case FRICTION2:
                         friction2 = Float.parseFloat(fact.children().get(0).text());
                         break;
+                    case TICKRATE:
+                        tickRate = Float.parseFloat(fact.children().get(0).text());
+                        break;
                     default:
                         break;
                     }
@@ -139,6 +144,8 @@ public class FlingballParser {
                 final List<Ball> balls = new ArrayList<>();
                 final List<Gadget> gadgets = new ArrayList<>();
                 final Map<String, String> interactions = new HashMap<>();
+                final Map<String, List<String>> keyDownActions = new LinkedHashMap<>();
+                final Map<String, List<String>> keyUpActions = new LinkedHashMap<>();
                 
                 for (int i = currentIndex + 1; i < children.size(); i++) {
                     ParseTree<FlingballGrammar> child = children.get(i);
@@ -164,12 +171,25 @@ public class FlingballParser {
                         interactions.put(triggerName, actionName);
                         break;
                     }
+                    case KEYDOWN:
+                    case KEYUP:
+                    {
+                        // bind an action to the pressing or release of a key
+                        String key = child.children().get(0).text();
+                        String actionName = child.children().get(1).text();
+                        Map<String, List<String>> keyActions = 
+                                child.name() == FlingballGrammar.KEYDOWN ? keyDownActions : keyUpActions;
+                        keyActions.computeIfAbsent(key, k -> new ArrayList<>()).add(actionName);
+                        break;
+                    }
                     default:
                         break;
                     }
                 }
 
-                return new Game(name, gravity, friction1, friction2, balls, gadgets, interactions);
+                return new Game(new Board(name, gravity, friction1, friction2, tickRate, gadgets, interactions,
+                                          keyDownActions, keyUpActions), 
+                                balls);
             }
 
         default:
@@ -223,13 +243,27 @@ public class FlingballParser {
         
         case ABSORBER:
         {
-            assert(specific.children().size() == 5);
+            assert(specific.children().size() >= 5 && specific.children().size() <= 7);
             String name = specific.children().get(0).text();
             int x = Integer.parseInt(specific.children().get(1).text());
             int y = Integer.parseInt(specific.children().get(2).text());
             int width = Integer.parseInt(specific.children().get(3).text());
             int height = Integer.parseInt(specific.children().get(4).text());
-            return new Absorber(name, x, y, width, height);
+            int capacity = Absorber.UNLIMITED_CAPACITY;
+            int ejectRate = Absorber.DEFAULT_EJECT_RATE;
+            for (ParseTree<FlingballGrammar> option : specific.children().subList(5, specific.children().size())) {
+                switch (option.name()) {
+                case CAPACITY:
+                    capacity = Integer.parseInt(option.children().get(0).text());
+                    break;
+                case EJECTRATE:
+                    ejectRate = Integer.parseInt(option.children().get(0).text());
+                    break;
+                default:
+                    break;
+                }
+            }
+            return new Absorber(name, x, y, width, height, capacity, ejectRate);
         }
 
         default:
@@ -0,0 +1,155 @@
+package flingball;
+
+/**
+ * Mutable counters describing the frames a Simulator has drawn and how long they took to render.
+ * A simulator keeps one FrameMetrics and hands out copies, so clients see a consistent reading.
+ */
+public class FrameMetrics {
+    private long frames = 0;
+    private long renderNanos = 0;
+    private long lastRenderNanos = 0;
+    private long maxRenderNanos = 0;
+    private long periods = 0;
+    private long periodNanos = 0;
+    private long droppedFrames = 0;
+    private long skippedFrames = 0;
+
+    // Abstraction Function:
+    //   AF(frames, renderNanos, lastRenderNanos, maxRenderNanos, periods, periodNanos, droppedFrames, skippedFrames)
+    //     = a simulator that has drawn frames frames, taking renderNanos in total to render them,
+    //     lastRenderNanos the last and maxRenderNanos the slowest,
+    //     with periods intervals of periodNanos in total between consecutive frames drawn on schedule,
+    //     has given up on droppedFrames frames that fell due while it was still rendering,
+    //     and has not drawn skippedFrames frames because nothing on screen would have changed
+    // Rep Invariant:
+    //   all counters >= 0
+    //   periods <= frames
+    //   lastRenderNanos <= maxRenderNanos <= renderNanos
+    // Safety from rep exposure:
+    //   all fields private and primitive
+
+    /**
+     * Make a FrameMetrics with every counter at zero.
+     */
+    public FrameMetrics() {
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert frames >= 0 && renderNanos >= 0 && lastRenderNanos >= 0 && maxRenderNanos >= 0
+                && periods >= 0 && periodNanos >= 0 && droppedFrames >= 0 && skippedFrames >= 0;
+        assert periods <= frames;
+        assert lastRenderNanos <= maxRenderNanos && maxRenderNanos <= renderNanos;
+    }
+
+    /**
+     * Count a frame.
+     * @param nanos time taken to render and show the frame, in nanoseconds, >= 0
+     * @param interval time since the previous frame drawn on schedule started, in nanoseconds,
+     *        or -1 if frames were not drawn on a schedule just before
+     */
+    void countFrame(long nanos, long interval) {
+        this.frames++;
+        this.renderNanos += nanos;
+        this.lastRenderNanos = nanos;
+        this.maxRenderNanos = Math.max(this.maxRenderNanos, nanos);
+        if (interval >= 0) {
+            this.periods++;
+            this.periodNanos += interval;
+        }
+        checkRep();
+    }
+
+    /**
+     * Count frames given up because rendering fell behind schedule.
+     * @param count number of frames dropped, >= 0
+     */
+    void countDroppedFrames(long count) {
+        this.droppedFrames += count;
+        checkRep();
+    }
+
+    /**
+     * Count a frame not drawn because it would have looked just like the one before.
+     */
+    void countSkippedFrame() {
+        this.skippedFrames++;
+        checkRep();
+    }
+
+    /**
+     * @return number of frames drawn
+     */
+    public long frames() {
+        return this.frames;
+    }
+
+    /**
+     * @return mean time taken to render a frame, in nanoseconds, or 0 if there have been none
+     */
+    public double meanRenderNanos() {
+        return this.frames == 0 ? 0 : (double) this.renderNanos / this.frames;
+    }
+
+    /**
+     * @return time taken to render the last frame, in nanoseconds, or 0 if there have been none
+     */
+    public long lastRenderNanos() {
+        return this.lastRenderNanos;
+    }
+
+    /**
+     * @return longest time taken to render a frame, in nanoseconds
+     */
+    public long maxRenderNanos() {
+        return this.maxRenderNanos;
+    }
+
+    /**
+     * @return mean frames drawn per second on schedule, or 0 if there have been fewer than two
+     */
+    public double frameRate() {
+        return this.periodNanos == 0 ? 0 : this.periods * 1e9 / this.periodNanos;
+    }
+
+    /**
+     * @return number of frames never drawn because rendering fell behind schedule
+     */
+    public long droppedFrames() {
+        return this.droppedFrames;
+    }
+
+    /**
+     * @return number of frames not drawn because nothing on screen would have changed
+     */
+    public long skippedFrames() {
+        return this.skippedFrames;
+    }
+
+    /**
+     * @return a copy of these counters
+     */
+    public FrameMetrics copy() {
+        FrameMetrics copy = new FrameMetrics();
+        copy.frames = this.frames;
+        copy.renderNanos = this.renderNanos;
+        copy.lastRenderNanos = this.lastRenderNanos;
+        copy.maxRenderNanos = this.maxRenderNanos;
+        copy.periods = this.periods;
+        copy.periodNanos = this.periodNanos;
+        copy.droppedFrames = this.droppedFrames;
+        copy.skippedFrames = this.skippedFrames;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[FrameMetrics: %d frames at %.1f fps, render %.2f ms on average, "
+                + "%.2f ms last, %.2f ms at most; %d dropped, %d skipped unchanged]",
+                this.frames, frameRate(), meanRenderNanos() * 1e-6, this.lastRenderNanos * 1e-6,
+                this.maxRenderNanos * 1e-6, this.droppedFrames, this.skippedFrames);
+    }
+}
@@ -0,0 +1,274 @@
+package flingball;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Records a Flingball game as a sequence of frames drawn offscreen, one per timestep,
+ * with no display: as numbered PNG files, or as a stream of raw RGB frames for a video encoder, e.g.
+ *   ffmpeg -f rawvideo -pix_fmt rgb24 -s 400x400 -r 20 -i - replay.mp4
+ * for a game of 20 timesteps per second drawn at 20 pixels per L.
+ * The game advances on the calling thread while earlier frames are drawn and encoded in parallel
+ * by a pool of encoder threads; frames are written in order.
+ */
+public class FrameRecorder {
+
+    /**
+     * Pixels per L, the side of a gadget of size 1, that the Simulator draws at.
+     */
+    public static final int DEFAULT_PIXELS_PER_L = 20;
+
+    private static final int GAMEBOARD_SIZE = 20;
+    private static final int PENDING_PER_THREAD = 2;
+
+    private final Game game;
+    private final int pixelsPerL;
+    private final int encoderThreads;
+    private final List<Gadget> layout;
+    private final BufferedImage staticLayer;
+
+    // Abstraction Function:
+    //   AF(game, pixelsPerL, encoderThreads, layout, staticLayer) = a recorder of game drawing
+    //     pixelsPerL pixels per L, with encoderThreads threads drawing and encoding frames,
+    //     drawing the gadgets of layout, which have the geometry of the gadgets of game,
+    //     over staticLayer, a picture of the background and the gadgets of layout with no bumper highlighted
+    // Rep Invariant:
+    //   pixelsPerL > 0, encoderThreads > 0
+    //   staticLayer is GAMEBOARD_SIZE*pixelsPerL square
+    // Safety from rep exposure:
+    //   all fields private and final
+    //   layout holds this recorder's own gadgets, which never hold balls or take actions
+    //   staticLayer is never returned; frames are drawn into new images
+    // Thread safety argument:
+    //   the game is advanced only by the thread recording, and frames are drawn from its snapshots,
+    //   which are immutable;
+    //   layout and staticLayer are never mutated after construction and drawing only reads them,
+    //   so encoder threads, which receive them through the thread pool, may draw frames at once
+
+    /**
+     * Make a recorder with a thread per processor to draw and encode frames.
+     * @param game to record; the recorder advances it, so no other thread may while it records
+     * @param pixelsPerL pixels per L, the side of a gadget of size 1, > 0
+     * @throws IllegalArgumentException if pixelsPerL is not positive
+     */
+    public FrameRecorder(Game game, int pixelsPerL) {
+        this(game, pixelsPerL, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Make a recorder.
+     * @param game to record; the recorder advances it, so no other thread may while it records
+     * @param pixelsPerL pixels per L, the side of a gadget of size 1, > 0
+     * @param encoderThreads number of threads drawing and encoding frames, > 0
+     * @throws IllegalArgumentException if pixelsPerL or encoderThreads is not positive
+     */
+    public FrameRecorder(Game game, int pixelsPerL, int encoderThreads) {
+        if (pixelsPerL <= 0 || encoderThreads <= 0) {
+            throw new IllegalArgumentException("pixels per L and encoder threads must be positive, not "
+                    + pixelsPerL + " and " + encoderThreads);
+        }
+        this.game = game;
+        this.pixelsPerL = pixelsPerL;
+        this.encoderThreads = encoderThreads;
+        this.layout = game.board().newGadgets();
+        this.staticLayer = new BufferedImage(size(), size(), BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D g2 = this.staticLayer.createGraphics();
+        try {
+            g2.setColor(Color.black);
+            g2.fillRect(0, 0, size(), size());
+            for (Gadget gadget : this.layout) {
+                gadget.drawIcon(g2, pixelsPerL, false);
+            }
+        } finally {
+            g2.dispose();
+        }
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert pixelsPerL > 0 && encoderThreads > 0;
+        assert staticLayer.getWidth() == size() && staticLayer.getHeight() == size();
+    }
+
+    /**
+     * @return width and height of the frames in pixels
+     */
+    public int size() {
+        return GAMEBOARD_SIZE * this.pixelsPerL;
+    }
+
+    /**
+     * Draw a frame of the game. Safe to call from any thread.
+     * @param frame snapshot of the game to draw
+     * @param hitsAfter the gadgets hit during timesteps after this one are highlighted
+     * @return new image, size() pixels square, of the board as of frame
+     */
+    public BufferedImage render(Snapshot frame, long hitsAfter) {
+        BufferedImage image = new BufferedImage(size(), size(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.drawImage(this.staticLayer, 0, 0, null);
+            for (int g = 0; g < this.layout.size(); g++) {
+                if (frame.lastHit(g) > hitsAfter) {
+                    this.layout.get(g).drawIcon(g2, this.pixelsPerL, true);
+                }
+            }
+            for (int i = 0; i < frame.ballCount(); i++) {
+                Ball.drawIcon(g2, this.pixelsPerL, frame.x(i), frame.y(i));
+            }
+        } finally {
+            g2.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Record frames of the game as PNG files named frame00000.png, frame00001.png, and so on.
+     * Frame k shows the game k timesteps after the recording started.
+     * @param frames number of frames to record, >= 0; the game advances frames-1 timesteps
+     * @param directory to write the files to, which must exist; files of the same names are replaced
+     * @throws IOException if a file can't be written, or the recording thread is interrupted
+     */
+    public void recordPngs(long frames, Path directory) throws IOException {
+        record(frames, image -> {
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", png);
+            return png.toByteArray();
+        }, (index, bytes) -> {
+            Files.write(directory.resolve(String.format("frame%05d.png", index)), bytes);
+        });
+    }
+
+    /**
+     * Record frames of the game as raw video: each frame is size() rows of size() pixels, top to bottom
+     * and left to right, each pixel three bytes of red, green and blue, with nothing between frames.
+     * Frame k shows the game k timesteps after the recording started.
+     * @param frames number of frames to record, >= 0; the game advances frames-1 timesteps
+     * @param out stream to write the frames to; flushed, not closed
+     * @throws IOException if out can't be written, or the recording thread is interrupted
+     */
+    public void recordRgb(long frames, OutputStream out) throws IOException {
+        record(frames, FrameRecorder::rgb, (index, bytes) -> out.write(bytes));
+        out.flush();
+    }
+
+    /**
+     * @param image of type TYPE_INT_RGB
+     * @return the pixels of image, row by row, as red, green and blue bytes
+     */
+    private static byte[] rgb(BufferedImage image) {
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        final byte[] bytes = new byte[3*pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            bytes[3*i] = (byte) (pixels[i] >> 16);
+            bytes[3*i + 1] = (byte) (pixels[i] >> 8);
+            bytes[3*i + 2] = (byte) pixels[i];
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a frame.
+     */
+    private interface Encoder {
+        /**
+         * @param image frame to encode
+         * @return encoded frame
+         * @throws IOException if the frame can't be encoded
+         */
+        byte[] encode(BufferedImage image) throws IOException;
+    }
+
+    /**
+     * Writes encoded frames.
+     */
+    private interface Sink {
+        /**
+         * @param index number of the frame, starting from 0; frames are written in order
+         * @param bytes encoded frame
+         * @throws IOException if the frame can't be written
+         */
+        void write(long index, byte[] bytes) throws IOException;
+    }
+
+    /**
+     * Record frames of the game, advancing it on this thread while encoder threads draw and encode
+     * the frames before, and write them in order.
+     * At most PENDING_PER_THREAD frames per encoder thread wait to be written at once,
+     * so a slow encoder holds the game back rather than filling memory.
+     * @param frames number of frames to record, >= 0
+     * @param encoder encoding every frame, called from encoder threads
+     * @param sink to write the frames to, called from this thread
+     * @throws IOException if a frame can't be encoded or written, or this thread is interrupted
+     */
+    private void record(long frames, Encoder encoder, Sink sink) throws IOException {
+        final ExecutorService encoders = Executors.newFixedThreadPool(this.encoderThreads);
+        final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        long written = 0;
+        long hitsAfter = this.game.snapshot().tick();
+        try {
+            for (long k = 0; k < frames; k++) {
+                if (k > 0) {
+                    this.game.tick();
+                }
+                final Snapshot frame = this.game.snapshot();
+                final long after = hitsAfter;
+                pending.add(encoders.submit(() -> encoder.encode(render(frame, after))));
+                hitsAfter = frame.tick();
+                while (pending.size() >= PENDING_PER_THREAD * this.encoderThreads) {
+                    sink.write(written++, await(pending.poll()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                sink.write(written++, await(pending.poll()));
+            }
+        } finally {
+            encoders.shutdownNow();
+        }
+    }
+
+    /**
+     * @param frame being encoded
+     * @return the encoded frame, once it is ready
+     * @throws IOException if the frame couldn't be encoded, or this thread is interrupted while waiting
+     */
+    private static byte[] await(Future<byte[]> frame) throws IOException {
+        try {
+            return frame.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while recording");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("frame couldn't be encoded", cause);
+        }
+    }
+}
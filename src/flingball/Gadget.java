@@ -2,6 +2,8 @@ package flingball;
 import java.awt.Graphics2D;
 import java.util.List;
 
+import physics.Circle;
+import physics.LineSegment;
 import physics.Vect;
 
 /**
@@ -13,14 +15,40 @@ public interface Gadget {
     //   Bumper = SquareBumper(name: String, x: int, y: int) 
     //          + CircleBumper(name: String, x: int, y: int, orientation: int) 
     //          + TriangleBumper(name: String, x: int, y: int, orientation: int) 
-    //          + Absorber(name: String, x: int, y: int, width: int, height: int)
+    //          + Absorber(name: String, x: int, y: int, width: int, height: int, capacity: int, ejectRate: int)
     //          + Wall(startX: int, startY: int, endX: int, endY: int)
     
     /**
      * @return the name of the gadget
      */
     public String name();
-    
+
+    /**
+     * @return top left corner of the bounding box of the gadget
+     */
+    public Vect getOrigin();
+
+    /**
+     * @return width of the bounding box of the gadget, 0 for a vertical wall
+     */
+    public int getWidth();
+
+    /**
+     * @return height of the bounding box of the gadget, 0 for a horizontal wall
+     */
+    public int getHeight();
+
+    /**
+     * @return line segments on the boundary of the gadget
+     */
+    public List<LineSegment> getEdges();
+
+    /**
+     * @return circles on the boundary of the gadget: zero-radius circles at the corners 
+     *         of a polygonal gadget, or the whole circle of a circle bumper
+     */
+    public List<Circle> getCorners();
+
     /**
      * Calculate the time until the ball collides with this gadget.
      * @param ball in the playing area 
@@ -34,6 +62,36 @@ public interface Gadget {
      */
     public Vect velocityAfterCollision(Ball ball);
     
+    /**
+     * Check whether the ball can currently collide with this gadget. 
+     * A gadget may let some balls pass through it, e.g. an Absorber lets the ball 
+     * it just ejected leave before it can be captured again.
+     * @param ball in the playing area
+     * @return true if and only if a collision between ball and this gadget should be handled
+     */
+    public boolean canCollide(Ball ball);
+    
+    /**
+     * Find the earliest collision of the ball with this gadget in a single pass over its geometry:
+     * the time until the ball hits this gadget, the edge or corner it hits, 
+     * numbered as in Collision, and the ball's velocity after bouncing off it.
+     * @param ball in the playing area
+     * @param result set to the earliest collision, or to no collision if the ball never hits 
+     *        this gadget, mutated
+     */
+    public void collision(Ball ball, Collision result);
+    
+    /**
+     * Handle a collision of the ball with this gadget at the moment of contact: 
+     * update the ball's velocity (and for some gadgets its position and status).
+     * The actions of the action objects of this gadget are not taken here: the game queues them
+     * and takes them together at the end of the timestep.
+     * @param ball touching this gadget, mutated
+     * @param contact the collision of ball with this gadget found by collision(ball, contact)
+     *        or an equivalent query
+     */
+    public void collide(Ball ball, Collision contact);
+    
     /**
      * boolean that indicates if a gadget is on trigger from a ball
      * detailed condition varies according to specific gadget types
@@ -43,6 +101,16 @@ public interface Gadget {
      */
     public boolean trigger(Ball ball, double deltaT);
     
+    /**
+     * Same as trigger(ball, deltaT), given the earliest collision of the ball with this gadget 
+     * already found by collision(ball, contact) or an equivalent query.
+     * @param ball to check if it is triggering this gadget
+     * @param deltaT threshold for collisions
+     * @param contact earliest collision of ball with this gadget
+     * @return boolean that indicates if a gadget is on trigger from a ball
+     */
+    public boolean trigger(Ball ball, double deltaT, Collision contact);
+    
     /**
      * action a gadget takes after specific trigger is on
      */
@@ -50,13 +118,12 @@ public interface Gadget {
     
     /**
      * draw corresponding icon on the given graphics object with
-     * position and dimension scaled.
+     * position and dimension scaled. Drawing never changes the gadget or runs any physics.
      * @param g Graphics to be drawn on, mutated
      * @param scaler coefficient that helps turning Gadget size into values;
-     * @param balls list of balls
-     * @param deltaT timestep of drawing the icon
+     * @param hit true iff a ball hit the gadget recently, in which case a bumper is highlighted
      */
-    public void drawIcon(Graphics2D g, int scaler, List<Ball> balls, double deltaT);
+    public void drawIcon(Graphics2D g, int scaler, boolean hit);
     
     /**
      * make a defensive copy of gadget
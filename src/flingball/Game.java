@@ -1,10 +1,20 @@
 package flingball;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import physics.Vect;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A Flingball game containing balls and gadgets and characterized by gravity, friction constants, 
@@ -12,46 +22,176 @@ import physics.Vect;
  */
 public class Game {
 
+    /**
+     * Ways a Game can advance its balls through a timestep.
+     */
+    public enum Engine {
+        /** test every gadget near each ball once per timestep */
+        FIXED_STEP,
+        /** move balls straight to their next predicted collision, in time order */
+        EVENT_DRIVEN,
+        /** same results as FIXED_STEP, finding collisions and moving balls that hit nothing in parallel */
+        PARALLEL_FIXED_STEP
+    }
+
     private final String name;
-    private final float gravity;
-    private final float friction1;
-    private final float friction2;
-    private final Map<String, Ball> balls = new HashMap<>();
-    private final Map<String, Gadget> gadgets = new HashMap<>();
-    private final Map<Gadget, Gadget> interactions = new HashMap<>();
-    
-    private static final int TIMER_INTERVAL_MILLISECONDS = 50;
-    private static final double TIMER_INTERVAL = TIMER_INTERVAL_MILLISECONDS * 0.001;
+    private float gravity;
+    private float friction1;
+    private float friction2;
+    private final double timestep;
+    private final List<Gadget> gadgetOrder = new ArrayList<>();
+    private final SpatialGrid grid;
+    private final GeometryArena arena;
+    private final int[] candidates;
+    private final Collision contact = new Collision();
+    private final BallStore store;
+    private final List<Ball> ballOrder = new ArrayList<>();
+    private final Board board;
+    private final ActionQueue actionQueue;
+    private final PriorityQueue<CollisionEvent> events = new PriorityQueue<>();
+    private double[] ballTimes;
+    private int[] versions;
+    private int[] eventCounts;
+    private int[] stepStatus;
+    private double[] integrated;
+    private StepBatch[] batches = new StepBatch[0];
+    private final SweepAndPrune sweep;
+    private final double[] reflected = new double[4];
+    private int[] restTicks;
+    private double[] restCenters;
+    private final Metrics metrics = new Metrics();
+    private String[] ballNames;
+    private final String[] gadgetNames;
+    private final long[] lastHits;
+    private volatile Snapshot snapshot = null;
+    private final Queue<Command> mailbox = new ConcurrentLinkedQueue<>();
+    private boolean paused = false;
+    private volatile boolean parked = false;
+    private boolean woken = false;
+    private Engine engine = Engine.FIXED_STEP;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    
+    // most timesteps run at once to catch up with real time; any more that are due are skipped
+    private static final int MAX_CATCH_UP_TICKS = 5;
     private static final int WALL_LENGTH = 20;
+    // values of stepStatus, and the number of balls handled by one parallel task
+    private static final int INTEGRATED = 1;
+    private static final int MAY_COLLIDE = 2;
+    private static final int PARALLEL_BATCH = 256;
+    // a ball that stays within REST_DISTANCE of one point for REST_TICKS timesteps, 
+    // still all the while, is at rest
+    private static final double REST_DISTANCE = 0.1;
+    private static final int REST_TICKS = 20;
+    // a still ball moves slower than REST_SPEED, but for the speed gravity gives it in a timestep 
+    // if a gadget supports it against gravity
+    private static final double REST_SPEED = 0.01;
     
     // Abstraction Function:
-    //   AF(name, gravity, friction1, friction2, balls, gadgets, interactions)
+    //   AF(name, gravity, friction1, friction2, timestep, gadgetOrder, grid, arena, candidates,
+    //      contact, store, ballOrder, board, actionQueue, events, ballTimes, versions, eventCounts, 
+    //      stepStatus, integrated, batches, sweep, reflected, restTicks, restCenters, metrics, ballNames, gadgetNames,
+    //      lastHits, snapshot, mailbox, paused, parked, woken, engine, pool)
     //     = a Flingball Game named name with gravity, friction1 and friction2 constants, 
-    //       balls and gadgets in the playing area
-    //       and trigger / action event interactions 
+    //       the balls of ballOrder and gadgets of gadgetOrder in the playing area
+    //       and the trigger / action event interactions of board, advanced through each timestep by engine,
+    //       played on board, whose name, constants and layout these are, 
+    //       each timestep simulating timestep seconds.
+    //       Balls and gadgets are identified by dense ids: ball i is ballOrder.get(i), unless it has been 
+    //       removed from store, and gadget g is gadgetOrder.get(g), listed in the order they were added to the board;
+    //       grid, shared with the board, indexes the gadgets by id.
+    //       arena, shared with the board, holds the edges and corners of gadgetOrder.get(g) as its gadget g.
+    //       store holds the state of every ball, and ballOrder.get(i) is the handle to ball i of store.
+    //       The balls are updated through store directly, 
+    //       and candidates and contact are scratch space for grid and collision queries.
+    //       Gadget g triggers the actions of gadgets board.actionTarget(k), 
+    //       for board.actionStart(g) <= k < board.actionStart(g+1);
+    //       actionQueue holds the actions triggered so far in the current timestep.
+    //       During an event-driven timestep, events holds the predicted collisions, 
+    //       ball i has been moved up to ballTimes[i] seconds into the timestep,
+    //       only events whose version equals versions[i] are still valid for ball i,
+    //       and eventCounts[i] counts the collisions of ball i during the timestep.
+    //       During a parallel timestep, once the parallel phase has stepped active ball i, stepStatus[i] says
+    //       whether it has been moved without hitting anything to the center and velocity in integrated[4i..4i+3],
+    //       or may hit a gadget and must be stepped in order; batches[b] steps batch b of PARALLEL_BATCH balls
+    //       in the parallel phase, on this thread for the first batch and in pool for the others.
+    //       sweep finds the balls that may hit each other during a timestep,
+    //       and reflected is scratch space for their velocities after they do.
+    //       Active ball i has stayed still and within REST_DISTANCE of (restCenters[2i], restCenters[2i+1])
+    //       for the last restTicks[i] timesteps, or has just become active if restTicks[i] < 0.
+    //       metrics counts the work done so far, 
+    //       ballNames lists the names of the balls that haven't been removed, in order of id,
+    //       gadgetNames[g] is the name of gadget g,
+    //       and a ball last hit gadget g during timestep lastHits[g], counting from 1, or never if lastHits[g] == 0.
+    //       snapshot is the game as it was at the end of the latest timestep, action or command since a snapshot
+    //       was first asked for, or null if none has been.
+    //       mailbox holds the commands posted and not yet carried out, the game's timesteps change nothing
+    //       while paused, the thread running the game is waiting in awaitActivity() iff parked,
+    //       and woken is true iff wake() was called since run() last parked
     // Rep Invariant:
-    //   String name of keys in balls and gadgets must match the name of its value object
-    //   keys and values in interactions must be in gadgets
+    //   names of the balls in ballOrder are distinct
+    //   candidates.length == gadgetOrder.size() == arena.gadgetCount()
+    //   grid and arena are those of board, and gadgetOrder.get(g) is a copy of gadget g of board
+    //   ballOrder.get(i) is the handle to ball i of store, and store.size() == ballOrder.size()
+    //   ballTimes, versions, eventCounts and stepStatus have length >= ballOrder.size()
+    //   integrated.length >= 4*ballOrder.size()
+    //   batches.length*PARALLEL_BATCH >= ballOrder.size(), and batches[b] steps batch b
+    //   reflected.length == 4
+    //   restTicks.length >= ballOrder.size() and restCenters.length >= 2*ballOrder.size()
+    //   ballNames has one name per ball not removed from store, and gadgetNames.length == gadgetOrder.size()
+    //   lastHits.length == gadgetOrder.size(), and 0 <= lastHits[g] <= metrics.ticks()
     // Safety from rep exposure:
-    //   fields are private and final
+    //   fields are private and final, except the constants, the per-ball arrays, which grow as balls are added,
+    //     snapshot, paused, parked, woken, engine, which is immutable, and pool,
+    //     which is shared with the client on purpose so that games can share threads
+    //   commands are immutable, and balls added by them are copied into store
     //   defensive copies of inputs are stored and returned
+    //   board is immutable, and so are grid, arena and the geometry the gadgets share with it
+    //   snapshots are immutable, and share with the game only ballNames and gadgetNames, 
+    //     which are replaced, never mutated
+    // Thread safety argument:
+    //   run() may park waiting for another thread to call wake() or action(); 
+    //   tick(), tickDue(), action(), wake(), metrics() and the parking in run() are synchronized on this game,
+    //   so an action from another thread never happens in the middle of a timestep.
+    //   post() may be called from any thread without locking: mailbox is a concurrent queue, 
+    //     drained only by tick(), so every change made by a command happens on the thread that advances the game,
+    //     between timesteps; post() wakes a parked game, and parked is volatile and set before the parked thread
+    //     last checks mailbox, so a command is never left waiting while the game is parked.
+    //   Other methods must be called from the thread that runs the game.
+    //   board is immutable, so games on other threads may share it.
+    //   snapshot is volatile, replaced and never mutated, so snapshot() may be called from any thread
+    //   without locking, and sees every ball and gadget as of the same moment.
     
     /**
      * Check that the rep invariant is true.
      */
     private void checkRep() {
-        // String name of keys in balls and gadgets must match the name of its value object
-        for (String ballName : balls.keySet()) {
-            ballName.equals(balls.get(ballName).name());
+        // names of the balls must be distinct
+        Set<String> names = new TreeSet<>();
+        for (int i = 0; i < ballOrder.size(); i++) {
+            if (!store.isRemoved(i)) {
+                assert names.add(store.name(i)) : "duplicate ball " + store.name(i);
+            }
         }
-        for (String gadgetName : gadgets.keySet()) {
-            gadgetName.equals(gadgets.get(gadgetName).name());
+        assert ballNames.length == names.size();
+        for (int g = 0; g < gadgetOrder.size(); g++) {
+            assert board.position(gadgetOrder.get(g).name()) == g : "gadget out of place " + gadgetOrder.get(g);
         }
-            
-        // keys and values in interactions must be in gadgets
-        for (Gadget trigger : interactions.keySet()) {
-            assert gadgets.values().contains(trigger): "Trigger gadgets must be in gadgets map ";
-            assert gadgets.values().contains(interactions.get(trigger)) : "Action gadgets must be in gadgets map";
+        assert candidates.length == gadgetOrder.size() && arena.gadgetCount() == gadgetOrder.size();
+        assert arena == board.arena() && grid == board.grid();
+        assert store.size() == ballOrder.size();
+        assert ballTimes.length >= ballOrder.size() && versions.length >= ballOrder.size() 
+                && eventCounts.length >= ballOrder.size()
+                && stepStatus.length >= ballOrder.size() && integrated.length >= 4*ballOrder.size();
+        assert batches.length*PARALLEL_BATCH >= ballOrder.size();
+        for (int b = 0; b < batches.length; b++) {
+            assert batches[b].batch == b;
+        }
+        assert reflected.length == 4;
+        assert restTicks.length >= ballOrder.size() && restCenters.length >= 2*ballOrder.size();
+        assert gadgetNames.length == gadgetOrder.size();
+        assert lastHits.length == gadgetOrder.size();
+        for (long hit : lastHits) {
+            assert hit >= 0 && hit <= metrics.ticks();
         }
     }
     
@@ -66,53 +206,598 @@ public class Game {
      * @param interactions specifying trigger and action events between gadgets
      */
     public Game(String name, Float gravity, Float friction1, Float friction2, List<Ball> balls, List<Gadget> gadgets, Map<String,String> interactions) {
-        this.name = name;
-        this.gravity = gravity;
-        this.friction1 = friction1;
-        this.friction2 = friction2;
+        this(new Board(name, gravity, friction1, friction2, gadgets, interactions), balls);
+    }
+    
+    /**
+     * Make a Game object for Flingball played on a board, which it shares with any other games on that board.
+     * @param board the game is played on
+     * @param balls in the Flingball game playing area
+     */
+    public Game(Board board, List<Ball> balls) {
+        this.board = board;
+        this.name = board.name();
+        this.gravity = board.gravity();
+        this.friction1 = board.friction1();
+        this.friction2 = board.friction2();
+        this.timestep = board.timestep();
 
+        Map<String, Ball> ballsByName = new LinkedHashMap<>();
         for (Ball ball : balls) {
-            // make a defensive copy of the ball before storing it to prevent rep exposure
-            this.balls.put(ball.name(), ball.copy());
+            ballsByName.put(ball.name(), ball);
         }
-        
-        // create walls
-        Wall top = new Wall("top", 0, 0, WALL_LENGTH, 0);
-        Wall left = new Wall("left", 0, WALL_LENGTH, 0, 0);
-        Wall right = new Wall("right", WALL_LENGTH, 0, WALL_LENGTH, WALL_LENGTH);
-        Wall bottom = new Wall("bottom", WALL_LENGTH, WALL_LENGTH, 0, WALL_LENGTH);
-        gadgets.add(top);
-        gadgets.add(left);
-        gadgets.add(right);
-        gadgets.add(bottom);
-        
-        for (Gadget gadget : gadgets) {
-            // make a defensive copy of the gadget before storing it to prevent rep exposure
-            this.gadgets.put(gadget.name(), gadget);
+        this.store = new BallStore(Math.max(1, ballsByName.size()));
+        for (Ball ball : ballsByName.values()) {
+            // make a defensive copy of the ball into the store to prevent rep exposure
+            int index = this.store.add(ball.name(), ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity());
+            this.ballOrder.add(new Ball(this.store, index));
         }
+        this.ballTimes = new double[this.ballOrder.size()];
+        this.versions = new int[this.ballOrder.size()];
+        this.eventCounts = new int[this.ballOrder.size()];
+        this.stepStatus = new int[this.ballOrder.size()];
+        this.integrated = new double[4*this.ballOrder.size()];
+        this.sweep = new SweepAndPrune(Math.max(1, this.ballOrder.size()));
+        this.restTicks = new int[this.ballOrder.size()];
+        Arrays.fill(this.restTicks, -1);
+        this.restCenters = new double[2*this.ballOrder.size()];
+        this.ballNames = presentBallNames();
         
-        for (String triggerName: interactions.keySet()) {
-            Gadget triggerObject = this.gadgets.get(triggerName);
-            Gadget actionObject = this.gadgets.get(interactions.get(triggerName));
-            this.interactions.put(triggerObject, actionObject);
-            triggerObject.addActionObject(actionObject);
+        // the board's gadgets share their geometry with it, and hold this game's gadget state
+        this.gadgetOrder.addAll(board.newGadgets());
+        this.grid = board.grid();
+        this.arena = board.arena();
+        this.candidates = new int[this.gadgetOrder.size()];
+        growBatches();
+        this.actionQueue = new ActionQueue(this.gadgetOrder.size());
+        this.gadgetNames = new String[this.gadgetOrder.size()];
+        for (int g = 0; g < this.gadgetNames.length; g++) {
+            this.gadgetNames[g] = this.gadgetOrder.get(g).name();
         }
+        this.lastHits = new long[this.gadgetOrder.size()];
         
         checkRep();
     }
     
     /**
-     * Start running the game
+     * Run the game in real time until the calling thread is interrupted.
+     * Timesteps are due at a fixed rate, one every timestep() seconds, however long each takes to compute;
+     * a game that falls behind runs the timesteps that are due back to back to catch up,
+     * up to MAX_CATCH_UP_TICKS at once, and skips the rest.
+     * While no ball is active, the game is quiescent: the thread parks 
+     * until action() or wake() is called, instead of advancing through empty timesteps,
+     * and the timesteps that would have fallen due meanwhile are not caught up.
      */
     public void run() {
+        final TickClock clock = new TickClock(Math.round(this.timestep * 1e9));
+        clock.restart(System.nanoTime());
         try {
             while (true) {
-                updateBalls();
-                Thread.sleep(TIMER_INTERVAL_MILLISECONDS);
+                if (awaitActivity()) {
+                    clock.restart(System.nanoTime());
+                }
+                tickDue(clock);
+                TimeUnit.NANOSECONDS.sleep(clock.nanosUntilDue(System.nanoTime()));
             }
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            // stop running, leaving the thread marked as interrupted for its owner
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Advance the game through the timesteps that are due by a real-time clock, 
+     * at most MAX_CATCH_UP_TICKS of them; skip any more that are due.
+     * Records in the metrics how late each timestep started.
+     * @param clock schedule of the timesteps of this game, mutated
+     */
+    synchronized void tickDue(TickClock clock) {
+        long due = clock.due(System.nanoTime());
+        if (due > MAX_CATCH_UP_TICKS) {
+            clock.skip(due - MAX_CATCH_UP_TICKS);
+            this.metrics.countSkippedTicks(due - MAX_CATCH_UP_TICKS);
+            due = MAX_CATCH_UP_TICKS;
+        }
+        for (long k = 0; k < due; k++) {
+            final long start = System.nanoTime();
+            this.metrics.countTimedTick(clock.lateness(start), clock.started(start));
+            tick();
+        }
+    }
+    
+    /**
+     * Park the calling thread while the game is quiescent, until action(), post() or wake() is called.
+     * @return true iff the thread parked
+     * @throws InterruptedException if the thread is interrupted while parked
+     */
+    private synchronized boolean awaitActivity() throws InterruptedException {
+        boolean didPark = false;
+        if (isQuiescent() && !this.woken) {
+            long start = System.nanoTime();
+            // announce the parking before looking at the mailbox, so that post() either sees it or is seen
+            this.parked = true;
+            try {
+                while (isQuiescent() && !this.woken) {
+                    wait();
+                }
+            } finally {
+                this.parked = false;
+            }
+            this.metrics.countIdlePeriod(System.nanoTime() - start);
+            didPark = true;
+        }
+        this.woken = false;
+        return didPark;
+    }
+    
+    /**
+     * Wake the thread running this game if it is parked, so that it advances at least one more timestep.
+     */
+    public synchronized void wake() {
+        this.woken = true;
+        notifyAll();
+    }
+    
+    /**
+     * Perform the action of a gadget, as if it had been triggered, and wake the game.
+     * May be called from any thread.
+     * @param gadgetName name of a gadget in this game
+     * @throws IllegalArgumentException if there is no gadget named gadgetName
+     */
+    public synchronized void action(String gadgetName) {
+        int g = this.board.position(gadgetName);
+        if (g < 0) {
+            throw new IllegalArgumentException("no gadget named " + gadgetName);
         }
+        this.gadgetOrder.get(g).action();
+        publishSnapshot();
+        wake();
+    }
+    
+    /**
+     * Check whether the game is quiescent: no command is waiting in its mailbox, 
+     * and it is paused or no ball is active, every ball being held by an absorber or asleep,
+     * so a timestep would change nothing.
+     * @return true iff no command is waiting, and this game is paused or no ball in it is active
+     */
+    public synchronized boolean isQuiescent() {
+        return this.mailbox.isEmpty() && isIdle();
+    }
+    
+    /**
+     * @return true iff this game is paused or no ball in it is active
+     */
+    private boolean isIdle() {
+        return this.paused || store.nextActive(0) < 0;
+    }
+    
+    /**
+     * Post a command to this game, to be carried out at the start of its next timestep
+     * by the thread that advances it, after the commands posted before it. Wakes a parked game.
+     * May be called from any thread, and never waits for a timestep in progress.
+     * @param command to carry out
+     */
+    public void post(Command command) {
+        this.mailbox.add(command);
+        if (this.parked) {
+            wake();
+        }
+    }
+    
+    /**
+     * Get the game as it was at the end of the latest timestep, or the latest action() since.
+     * The first call takes a snapshot of the game as it is; from then on the game publishes a new snapshot 
+     * whenever a timestep or action() changes it, so a game nobody watches never pays for snapshots.
+     * May be called from any thread, and doesn't wait for a timestep in progress.
+     * @return immutable snapshot of the game
+     */
+    public Snapshot snapshot() {
+        Snapshot latest = this.snapshot;
+        return latest != null ? latest : firstSnapshot();
+    }
+    
+    /**
+     * Take the first snapshot of the game, unless another thread has just done so.
+     * @return the current snapshot
+     */
+    private synchronized Snapshot firstSnapshot() {
+        if (this.snapshot == null) {
+            this.snapshot = takeSnapshot();
+        }
+        return this.snapshot;
+    }
+    
+    /**
+     * Publish a snapshot of the game as it is now, if snapshots have been asked for.
+     */
+    private void publishSnapshot() {
+        if (this.snapshot != null) {
+            this.snapshot = takeSnapshot();
+        }
+    }
+    
+    /**
+     * @return new snapshot of the game as it is now
+     */
+    private Snapshot takeSnapshot() {
+        final int ballCount = this.ballNames.length;
+        double[] state = new double[4*ballCount];
+        boolean[] active = new boolean[ballCount];
+        int k = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (store.isRemoved(i)) {
+                continue;
+            }
+            state[4*k] = store.x(i);
+            state[4*k + 1] = store.y(i);
+            state[4*k + 2] = store.xVelocity(i);
+            state[4*k + 3] = store.yVelocity(i);
+            active[k] = store.isActive(i);
+            k++;
+        }
+        int[] held = new int[this.gadgetOrder.size()];
+        for (int g = 0; g < held.length; g++) {
+            Gadget gadget = this.gadgetOrder.get(g);
+            if (gadget instanceof Absorber) {
+                held[g] = ((Absorber) gadget).heldCount();
+            }
+        }
+        return new Snapshot(this.metrics.ticks(), System.nanoTime(), this.ballNames, state, active, this.gadgetNames, held, 
+                this.lastHits.clone());
+    }
+    
+    /**
+     * Carry out, in order, the commands waiting in the mailbox, including any posted meanwhile,
+     * and publish a snapshot if they changed the game.
+     */
+    private void carryOutCommands() {
+        boolean changed = false;
+        for (Command command = this.mailbox.poll(); command != null; command = this.mailbox.poll()) {
+            boolean done = carryOut(command);
+            this.metrics.countCommand(!done);
+            changed |= done;
+        }
+        if (changed) {
+            publishSnapshot();
+        }
+    }
+    
+    /**
+     * Carry out a command.
+     * @param command to carry out
+     * @return true iff the command could be carried out
+     */
+    private boolean carryOut(Command command) {
+        switch (command.kind()) {
+        case ADD_BALL:
+            return addBall(command.ball());
+        case REMOVE_BALL:
+            return removeBall(command.name());
+        case ACTION:
+            {
+                int g = this.board.position(command.name());
+                if (g < 0) {
+                    return false;
+                }
+                this.gadgetOrder.get(g).action();
+                return true;
+            }
+        case KEY_DOWN:
+        case KEY_UP:
+            for (int g : this.board.keyTargets(command.name(), command.kind() == Command.Kind.KEY_DOWN)) {
+                this.gadgetOrder.get(g).action();
+            }
+            return true;
+        case SET_GRAVITY:
+            this.gravity = command.value1();
+            wakeAllBalls();
+            return true;
+        case SET_FRICTION:
+            this.friction1 = command.value1();
+            this.friction2 = command.value2();
+            wakeAllBalls();
+            return true;
+        case PAUSE:
+            this.paused = true;
+            return true;
+        case RESUME:
+            this.paused = false;
+            return true;
+        default:
+            throw new AssertionError("unknown command " + command);
+        }
+    }
+    
+    /**
+     * Add an active ball, in the place of a removed ball if there is one.
+     * @param ball to copy into the game
+     * @return true iff the ball was added, i.e. no ball in the game has its name
+     */
+    private boolean addBall(Ball ball) {
+        for (String ballName : this.ballNames) {
+            if (ballName.equals(ball.name())) {
+                return false;
+            }
+        }
+        int i = this.store.add(ball.name(), ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity());
+        if (i == this.ballOrder.size()) {
+            this.ballOrder.add(new Ball(this.store, i));
+            growBallArrays();
+        }
+        this.restTicks[i] = -1;
+        this.ballNames = presentBallNames();
+        checkRep();
+        return true;
+    }
+    
+    /**
+     * Remove a ball, releasing it from any absorber that holds it.
+     * @param ballName name of the ball
+     * @return true iff there was a ball named ballName
+     */
+    private boolean removeBall(String ballName) {
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.isRemoved(i) && store.name(i).equals(ballName)) {
+                Ball ball = this.ballOrder.get(i);
+                for (Gadget gadget : this.gadgetOrder) {
+                    if (gadget instanceof Absorber) {
+                        ((Absorber) gadget).release(ball);
+                    }
+                }
+                this.store.remove(i);
+                this.ballNames = presentBallNames();
+                checkRep();
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Make room in the per-ball arrays for every ball of ballOrder, doubling them when they are full.
+     */
+    private void growBallArrays() {
+        final int count = this.ballOrder.size();
+        if (this.ballTimes.length >= count) {
+            return;
+        }
+        final int capacity = Math.max(count, 2*this.ballTimes.length);
+        final int oldCapacity = this.restTicks.length;
+        this.ballTimes = Arrays.copyOf(this.ballTimes, capacity);
+        this.versions = Arrays.copyOf(this.versions, capacity);
+        this.eventCounts = Arrays.copyOf(this.eventCounts, capacity);
+        this.stepStatus = Arrays.copyOf(this.stepStatus, capacity);
+        this.integrated = Arrays.copyOf(this.integrated, 4*capacity);
+        this.restTicks = Arrays.copyOf(this.restTicks, capacity);
+        Arrays.fill(this.restTicks, oldCapacity, capacity, -1);
+        this.restCenters = Arrays.copyOf(this.restCenters, 2*capacity);
+        growBatches();
+    }
+    
+    /**
+     * Make a parallel task for every batch of PARALLEL_BATCH balls the per-ball arrays have room for.
+     */
+    private void growBatches() {
+        final int count = (this.stepStatus.length + PARALLEL_BATCH - 1) / PARALLEL_BATCH;
+        final int oldCount = this.batches.length;
+        if (oldCount >= count) {
+            return;
+        }
+        this.batches = Arrays.copyOf(this.batches, count);
+        for (int b = oldCount; b < count; b++) {
+            this.batches[b] = new StepBatch(b);
+        }
+    }
+    
+    /**
+     * @return new array of the names of the balls not removed from store, in order of index
+     */
+    private String[] presentBallNames() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.isRemoved(i)) {
+                names.add(store.name(i));
+            }
+        }
+        return names.toArray(new String[names.size()]);
+    }
+    
+    /**
+     * Get the work done and the time spent idle by this game so far.
+     * @return a copy of the metrics of this game
+     */
+    public synchronized Metrics metrics() {
+        return this.metrics.copy();
+    }
+    
+    /**
+     * Advance the game by one timestep: first carry out the commands in its mailbox, 
+     * then bounce balls off each other, then move them and bounce them off gadgets using the game's engine,
+     * then take the actions triggered during the timestep,
+     * and finally put to sleep the balls that have come to rest, and publish a snapshot if any have been asked for.
+     * A paused game, or one with no active ball, does no more work.
+     */
+    public synchronized void tick() {
+        carryOutCommands();
+        if (isIdle()) {
+            this.metrics.countTick(true);
+            this.actionQueue.finishTick();
+            return;
+        }
+        this.metrics.countTick(false);
+        collideBalls();
+        switch (this.engine) {
+        case EVENT_DRIVEN:
+            updateBallsEventDriven();
+            break;
+        case PARALLEL_FIXED_STEP:
+            updateBallsParallel();
+            break;
+        default:
+            updateBalls();
+            break;
+        }
+        takeActions();
+        sleepRestingBalls();
+        publishSnapshot();
+    }
+    
+    /**
+     * Queue the actions triggered by a gadget for the end of the timestep, 
+     * coalescing each with the same action if that is already due.
+     * @param g position in gadgetOrder of a gadget that triggers actions
+     */
+    private void queueAction(int g) {
+        for (int k = this.board.actionStart(g); k < this.board.actionStart(g+1); k++) {
+            if (!this.actionQueue.trigger(this.board.actionTarget(k))) {
+                this.metrics.countCoalescedAction();
+            }
+        }
+    }
+    
+    /**
+     * Take the actions triggered during the timestep, once each, in the order they were first triggered.
+     * Balls released by the actions start moving at the next timestep.
+     */
+    private void takeActions() {
+        for (int k = 0; k < this.actionQueue.size(); k++) {
+            this.gadgetOrder.get(this.actionQueue.get(k)).action();
+            this.metrics.countAction();
+        }
+        this.metrics.countActionStorms(this.actionQueue.finishTick());
+    }
+    
+    /**
+     * Get the gadgets whose actions are storming: gadgets that have taken their action in each of the 
+     * last ActionQueue.STORM_TICKS timesteps, because their triggers keep firing them.
+     * @return names of the storming gadgets
+     */
+    public synchronized Set<String> stormingActions() {
+        Set<String> storming = new TreeSet<>();
+        for (int g = 0; g < this.gadgetOrder.size(); g++) {
+            if (this.actionQueue.isStorming(g)) {
+                storming.add(this.gadgetOrder.get(g).name());
+            }
+        }
+        return storming;
+    }
+    
+    /**
+     * Put to sleep every active ball that has stayed still and near one point for REST_TICKS timesteps.
+     * Only a ball that neither moves nor would start moving is still: a ball slower than REST_SPEED
+     * with no gravity, or one resting on a gadget against gravity, moving no faster than the gadget
+     * lets gravity make it in a timestep.
+     */
+    private void sleepRestingBalls() {
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.isActive(i)) {
+                // a held ball starts resting afresh when it is released
+                if (!store.isAsleep(i)) {
+                    this.restTicks[i] = -1;
+                }
+                continue;
+            }
+            double dx = store.x(i) - this.restCenters[2*i];
+            double dy = store.y(i) - this.restCenters[2*i + 1];
+            if (this.restTicks[i] < 0 || dx*dx + dy*dy > REST_DISTANCE*REST_DISTANCE || !isStill(i)) {
+                this.restCenters[2*i] = store.x(i);
+                this.restCenters[2*i + 1] = store.y(i);
+                this.restTicks[i] = 0;
+            } else if (++this.restTicks[i] >= REST_TICKS) {
+                store.setAsleep(i, true);
+                this.metrics.countSleep();
+            }
+        }
+    }
+    
+    /**
+     * @param i index of an active ball in store
+     * @return true iff the ball is still: slower than REST_SPEED and free of gravity, 
+     *         or supported against gravity and moving only as fast as gravity makes it in a timestep
+     */
+    private boolean isStill(int i) {
+        final double xVelocity = Math.abs(store.xVelocity(i));
+        final double yVelocity = Math.abs(store.yVelocity(i));
+        if (this.gravity == 0) {
+            return xVelocity*xVelocity + yVelocity*yVelocity < REST_SPEED*REST_SPEED;
+        }
+        final double fall = this.gravity*this.timestep;
+        return xVelocity < REST_SPEED && yVelocity < REST_SPEED + Math.abs(fall) && isSupported(i, fall);
+    }
+    
+    /**
+     * @param i index of an active ball in store
+     * @param fall velocity gravity gives a ball in a timestep, along y, nonzero
+     * @return true iff a gadget, walls included, would stop the ball falling at that velocity within a timestep
+     */
+    private boolean isSupported(int i, double fall) {
+        final double reach = Math.abs(fall)*this.timestep + Ball.BALL_RADIUS;
+        final int count = this.grid.query(store.x(i) - reach, store.y(i) - reach, 
+                store.x(i) + reach, store.y(i) + reach, this.candidates);
+        for (int k = 0; k < count; k++) {
+            this.arena.collision(this.candidates[k], store.x(i), store.y(i), 0, fall, this.timestep, this.contact);
+            if (this.contact.time() < this.timestep) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Wake every sleeping ball, and make every active ball start resting afresh,
+     * since balls at rest under the old constants may not be under the new ones.
+     */
+    private void wakeAllBalls() {
+        for (int i = 0; i < store.size(); i++) {
+            wakeBall(i);
+            this.restTicks[i] = -1;
+        }
+    }
+    
+    /**
+     * Wake a ball if it is asleep.
+     * @param i index of a ball in store
+     */
+    private void wakeBall(int i) {
+        if (store.isAsleep(i)) {
+            store.setAsleep(i, false);
+            this.restTicks[i] = -1;
+            this.metrics.countWake();
+        }
+    }
+    
+    /**
+     * Get the length of a timestep, set by the tick rate of the board.
+     * @return seconds of game time that each call to tick() simulates, 
+     *         and seconds of real time between timesteps when the game is run in real time
+     */
+    public double timestep() {
+        return this.timestep;
+    }
+    
+    /**
+     * Get the engine used to advance this game.
+     * @return engine of this game
+     */
+    public Engine engine() {
+        return this.engine;
+    }
+    
+    /**
+     * Set the engine used to advance this game from the next timestep on.
+     * @param engine to use
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+    
+    /**
+     * Set the pool in which the PARALLEL_FIXED_STEP engine spreads its work, 
+     * ForkJoinPool.commonPool() by default.
+     * @param pool to run parallel timesteps in, may be shared with other games
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
     
     /**
@@ -153,8 +838,10 @@ public class Game {
      */
     public Map<String, Ball> balls() {
         Map<String, Ball> ballsCopy = new HashMap<>();
-        for (String ball : this.balls.keySet()) {
-            ballsCopy.put(ball, balls.get(ball).copy());
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.isRemoved(i)) {
+                ballsCopy.put(store.name(i), this.ballOrder.get(i).copy());
+            }
         }
         return ballsCopy;
     }
@@ -165,8 +852,8 @@ public class Game {
      */
     public Map<String, Gadget> gadgets() {
         Map<String, Gadget> gadgetsCopy = new HashMap<>();
-        for (String gadget : this.gadgets.keySet()) {
-            gadgetsCopy.put(gadget, gadgets.get(gadget).copy());
+        for (Gadget gadget : this.gadgetOrder) {
+            gadgetsCopy.put(gadget.name(), gadget.copy());
         }
         return gadgetsCopy;
     }
@@ -177,44 +864,403 @@ public class Game {
      */
     public Map<Gadget, Gadget> interactions() {
         Map<Gadget, Gadget> interactionsCopy = new HashMap<>();
-        for (Gadget trigger : this.interactions.keySet()) {
-            interactionsCopy.put(trigger.copy(), interactions.get(trigger).copy());
+        for (int g = 0; g < this.gadgetOrder.size(); g++) {
+            for (int k = this.board.actionStart(g); k < this.board.actionStart(g+1); k++) {
+                interactionsCopy.put(this.gadgetOrder.get(g).copy(), 
+                                     this.gadgetOrder.get(this.board.actionTarget(k)).copy());
+            }
         }
         return interactionsCopy;
     }
     
+    /**
+     * Bounce off each other the balls that would collide during the coming timestep,
+     * waking sleeping balls that are hit.
+     * Only the velocities of the balls change; the engine then moves them.
+     * Pairs are handled in the order the broad phase finds them, 
+     * each with the velocities left by the pairs before it,
+     * so a collision missed because an earlier bounce changed a ball's course 
+     * is found at the next timestep.
+     */
+    private void collideBalls() {
+        this.sweep.update(this.store, this.timestep);
+        int pairCount = this.sweep.findPairs();
+        for (int p = 0; p < pairCount; p++) {
+            int i = this.sweep.first(p);
+            int j = this.sweep.second(p);
+            if (!store.isActive(i) && !store.isActive(j)) {
+                // two sleeping balls stay where they are
+                continue;
+            }
+            double time = Collisions.timeUntilBallBallCollision(
+                    store.x(i), store.y(i), store.xVelocity(i), store.yVelocity(i),
+                    store.x(j), store.y(j), store.xVelocity(j), store.yVelocity(j), Ball.BALL_RADIUS);
+            if (time >= this.timestep) {
+                continue;
+            }
+            wakeBall(i);
+            wakeBall(j);
+            this.metrics.countCollision(false);
+            // reflect about the line between the centers at the moment of impact
+            Collisions.reflectBalls(
+                    store.x(i) + store.xVelocity(i)*time, store.y(i) + store.yVelocity(i)*time,
+                    store.xVelocity(i), store.yVelocity(i),
+                    store.x(j) + store.xVelocity(j)*time, store.y(j) + store.yVelocity(j)*time,
+                    store.xVelocity(j), store.yVelocity(j), this.reflected);
+            store.setVelocity(i, this.reflected[0], this.reflected[1]);
+            store.setVelocity(j, this.reflected[2], this.reflected[3]);
+        }
+    }
+    
+    /**
+     * Make a new game on the same board as this one, with the same engine and the same pool
+     * for the PARALLEL_FIXED_STEP engine, but different balls. 
+     * The gadgets start afresh: absorbers of the new game hold no balls.
+     * The new game shares the board, and with it the geometry of the gadgets, with this one.
+     * @param balls in the playing area of the new game
+     * @return the new game
+     */
+    public Game withBalls(List<Ball> balls) {
+        Game game = new Game(this.board, balls);
+        game.setEngine(this.engine);
+        game.setPool(this.pool);
+        return game;
+    }
+    
+    /**
+     * Get the board this game is played on.
+     * @return the board of this game, which is immutable and may be shared with other games
+     */
+    public Board board() {
+        return this.board;
+    }
+    
+    /**
+     * Get the number of balls held by each absorber in this game.
+     * @return map from the name of every absorber to the number of balls it holds
+     */
+    public Map<String, Integer> heldBalls() {
+        Map<String, Integer> held = new HashMap<>();
+        for (Gadget gadget : this.gadgetOrder) {
+            if (gadget instanceof Absorber) {
+                held.put(gadget.name(), ((Absorber) gadget).heldCount());
+            }
+        }
+        return held;
+    }
+    
     /**
      * Calculates Ball positions and velocities at every timestep.
      */
     public void updateBalls() {
-        final double BALL_CENTER_MIN_OFFSET = 0.25;
-        for (Ball ball : this.balls.values()) {
-            if (ball.isActive()) {
-                Boolean skipGravity = false;
-                // initialize values
-                // find closest object
-                for (Gadget gadget : this.gadgets.values()) {
-                    if (gadget.trigger(ball, TIMER_INTERVAL)) {
-                        skipGravity = true;
-                    }
+        for (int i = store.nextActive(0); i >= 0; i = store.nextActive(i+1)) {
+            updateBall(i);
+        }        
+    }
+    
+    /**
+     * Calculates Ball positions and velocities at every timestep, with the same results as updateBalls().
+     * First, in parallel, every active ball that can't hit a gadget during the timestep is moved
+     * into integrated, and the others are marked to be stepped in order; this phase only reads shared state.
+     * Then, in ball order on this thread, the moved balls are stored and the others are stepped 
+     * as in updateBalls(), so gadget state changes and actions are queued in exactly the same order.
+     * Called on a worker thread of pool, it helps run the batches it waits for, 
+     * so games may be run by tasks in the pool their parallel phase uses.
+     */
+    public void updateBallsParallel() {
+        final int count = (store.size() + PARALLEL_BATCH - 1) / PARALLEL_BATCH;
+        final Thread thread = Thread.currentThread();
+        if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == this.pool) {
+            // waiting without helping could leave every worker waiting for batches that no worker runs
+            for (int b = count - 1; b >= 0; b--) {
+                this.batches[b].reinitialize();
+            }
+            for (int b = count - 1; b > 0; b--) {
+                this.batches[b].fork();
+            }
+            try {
+                if (count > 0) {
+                    this.batches[0].invoke();
                 }
-                
-                if (!skipGravity) {
-                    // update position
-                    ball.gravity(this.gravity, TIMER_INTERVAL);
-                    ball.friction(this.friction1, this.friction2, TIMER_INTERVAL);
-                    
-                    // add a method for ball to update position given velocity and frame rate
-                    Vect displacement = new Vect(ball.getVelocity().x()*TIMER_INTERVAL, ball.getVelocity().y()*TIMER_INTERVAL);
-                    Vect newCenter = ball.getCenter().plus(displacement);
-                    
-                    // clip to prevent the ball from going out of the playing area
-                    double centerX = Math.min(Math.max(newCenter.x(), BALL_CENTER_MIN_OFFSET), WALL_LENGTH-BALL_CENTER_MIN_OFFSET);
-                    double centerY = Math.min(Math.max(newCenter.y(), BALL_CENTER_MIN_OFFSET), WALL_LENGTH-BALL_CENTER_MIN_OFFSET);
-                    ball.setCenter(centerX, centerY);
+            } finally {
+                // joining from a worker runs the batches no other worker has taken yet
+                for (int b = 1; b < count; b++) {
+                    this.batches[b].quietlyJoin();
                 }
             }
-        }        
+            for (int b = 1; b < count; b++) {
+                this.batches[b].join();
+            }
+            storeParallelSteps();
+            return;
+        }
+        for (int b = 1; b < count; b++) {
+            this.batches[b].reinitialize();
+            this.pool.execute(this.batches[b]);
+        }
+        try {
+            if (count > 0) {
+                this.batches[0].reinitialize();
+                this.batches[0].invoke();
+            }
+        } finally {
+            // no batch may still be running when it is reused; and join() would allocate a node 
+            // to block this thread on, since it isn't one of the pool's, which run the batches meanwhile
+            for (int b = 1; b < count; b++) {
+                while (!this.batches[b].isDone()) {
+                    Thread.yield();
+                }
+            }
+        }
+        for (int b = 1; b < count; b++) {
+            this.batches[b].join();
+        }
+        storeParallelSteps();
+    }
+    
+    /**
+     * Second phase of updateBallsParallel(): in ball order, store the balls the parallel phase moved
+     * and step the others.
+     */
+    private void storeParallelSteps() {
+        for (int i = store.nextActive(0); i >= 0; i = store.nextActive(i+1)) {
+            if (this.stepStatus[i] == INTEGRATED) {
+                store.setVelocity(i, this.integrated[4*i + 2], this.integrated[4*i + 3]);
+                store.setCenter(i, this.integrated[4*i], this.integrated[4*i + 1]);
+            } else {
+                updateBall(i);
+            }
+        }
+    }
+    
+    /**
+     * The parallel phase of updateBallsParallel() for a batch of PARALLEL_BATCH balls, 
+     * with its own scratch space for grid and collision queries.
+     * The same task steps the same batch every timestep, so a parallel timestep allocates nothing.
+     */
+    private class StepBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int batch;
+        private final int[] nearby = new int[gadgetOrder.size()];
+        private final Collision contact = new Collision();
+        
+        /**
+         * @param batch steps balls batch*PARALLEL_BATCH to (batch+1)*PARALLEL_BATCH-1
+         */
+        StepBatch(int batch) {
+            this.batch = batch;
+        }
+        
+        @Override
+        protected void compute() {
+            final int from = this.batch * PARALLEL_BATCH;
+            final int to = Math.min(from + PARALLEL_BATCH, store.size());
+            for (int i = store.nextActive(from); i >= 0 && i < to; i = store.nextActive(i+1)) {
+                if (canHitGadget(i, this.nearby, this.contact)) {
+                    stepStatus[i] = MAY_COLLIDE;
+                } else {
+                    integrate(i, integrated);
+                    stepStatus[i] = INTEGRATED;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check whether a ball may hit a gadget during one timestep, reading shared state only.
+     * @param i index of an active ball in store
+     * @param nearby scratch space with room for every gadget, mutated
+     * @param contact scratch space, mutated
+     * @return true if the ball hits the geometry of a nearby gadget before the end of the timestep
+     */
+    private boolean canHitGadget(int i, int[] nearby, Collision contact) {
+        int count = nearbyGadgets(i, nearby);
+        for (int k = 0; k < count; k++) {
+            this.arena.collision(nearby[k], store.x(i), store.y(i), store.xVelocity(i), store.yVelocity(i), 
+                    this.timestep, contact);
+            if (contact.time() < this.timestep) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Step one ball through a timestep: let it trigger the gadgets it hits, 
+     * or if it hits none, apply gravity and friction and move it.
+     * @param i index of an active ball in store
+     */
+    private void updateBall(int i) {
+        Ball ball = this.ballOrder.get(i);
+        boolean skipGravity = false;
+        // only gadgets near the ball's path can be hit during this step
+        int count = nearbyGadgets(i, this.candidates);
+        for (int k = 0; k < count; k++) {
+            // one pass over the flattened geometry finds the collision the gadget reacts to
+            int g = candidates[k];
+            this.arena.collision(g, store.x(i), store.y(i), store.xVelocity(i), store.yVelocity(i), 
+                    this.timestep, this.contact);
+            if (this.contact.time() < this.timestep 
+                    && this.gadgetOrder.get(g).trigger(ball, this.timestep, this.contact)) {
+                skipGravity = true;
+                boolean triggers = this.board.triggersActions(g);
+                this.metrics.countCollision(triggers);
+                this.lastHits[g] = this.metrics.ticks();
+                if (triggers) {
+                    queueAction(g);
+                }
+            }
+        }
+        
+        if (!skipGravity) {
+            integrate(i, this.integrated);
+            store.setVelocity(i, this.integrated[4*i + 2], this.integrated[4*i + 3]);
+            store.setCenter(i, this.integrated[4*i], this.integrated[4*i + 1]);
+        }
+    }
+    
+    /**
+     * Apply gravity and friction to a ball for one timestep and move it, without changing store.
+     * @param i index of an active ball in store
+     * @param next set to the new center and velocity of the ball at indices 4i to 4i+3, mutated
+     */
+    private void integrate(int i, double[] next) {
+        // update velocity
+        double xVelocity = store.xVelocity(i);
+        double yVelocity = store.yVelocity(i) + this.gravity*this.timestep;
+        double scale = 1 - this.friction1*this.timestep 
+                - this.friction2*Math.sqrt(xVelocity*xVelocity + yVelocity*yVelocity)*this.timestep;
+        next[4*i + 2] = xVelocity*scale;
+        next[4*i + 3] = yVelocity*scale;
+        
+        // update position, clipped to prevent the ball from going out of the playing area
+        next[4*i] = clip(store.x(i) + next[4*i + 2]*this.timestep);
+        next[4*i + 1] = clip(store.y(i) + next[4*i + 3]*this.timestep);
+    }
+    
+    /**
+     * Clip a coordinate of a ball's center to the playing area.
+     * @param coord x or y coordinate of the center of a ball
+     * @return nearest coordinate that keeps the ball inside the walls
+     */
+    private static double clip(double coord) {
+        return Math.min(Math.max(coord, Ball.BALL_RADIUS), WALL_LENGTH-Ball.BALL_RADIUS);
+    }
+    
+    /**
+     * Calculates Ball positions and velocities at every timestep by handling collisions in time order.
+     * Gravity and friction update the velocities once at the start of the timestep; 
+     * between collisions each ball moves in a straight line, straight to its next predicted collision.
+     * A collision only invalidates the prediction of the colliding ball; 
+     * the actions it triggers are taken at the end of the timestep.
+     * A ball that collides MAX_COLLISIONS_PER_BALL times in a timestep stops where it is until the next one.
+     */
+    public void updateBallsEventDriven() {
+        final int MAX_COLLISIONS_PER_BALL = 16;
+        this.events.clear();
+        for (int i = 0; i < store.size(); i++) {
+            Ball ball = this.ballOrder.get(i);
+            this.ballTimes[i] = 0;
+            this.versions[i]++;
+            this.eventCounts[i] = 0;
+            if (store.isActive(i)) {
+                ball.gravity(this.gravity, this.timestep);
+                ball.friction(this.friction1, this.friction2, this.timestep);
+                predictCollision(i);
+            }
+        }
+        
+        while (!this.events.isEmpty() && this.events.peek().time() < this.timestep) {
+            CollisionEvent event = this.events.poll();
+            int i = event.ball();
+            if (event.version() != this.versions[i]) {
+                // the ball has changed course since this prediction was made
+                continue;
+            }
+            
+            Ball ball = this.ballOrder.get(i);
+            Gadget gadget = this.gadgetOrder.get(event.gadget());
+            advance(i, event.time());
+            
+            boolean triggers = this.board.triggersActions(event.gadget());
+            event.contact(this.contact);
+            gadget.collide(ball, this.contact);
+            this.metrics.countCollision(triggers);
+            this.lastHits[event.gadget()] = this.metrics.ticks();
+            if (triggers) {
+                queueAction(event.gadget());
+            }
+            this.versions[i]++;
+            this.eventCounts[i]++;
+            if (store.isActive(i)) {
+                if (this.eventCounts[i] < MAX_COLLISIONS_PER_BALL) {
+                    predictCollision(i);
+                } else {
+                    // with no prediction it would move through whatever is ahead, so it stays put
+                    // for the rest of the timestep, keeping its velocity for the next one
+                    this.ballTimes[i] = this.timestep;
+                    this.metrics.countCappedBall();
+                }
+            }
+        }
+        
+        for (int i = store.nextActive(0); i >= 0; i = store.nextActive(i+1)) {
+            advance(i, this.timestep);
+            // clip to prevent the ball from going out of the playing area
+            store.setCenter(i, clip(store.x(i)), clip(store.y(i)));
+        }
+    }
+    
+    /**
+     * Move a ball in a straight line to a later time in the current timestep.
+     * @param i index of the ball in store
+     * @param time to move the ball to, in seconds since the start of the timestep
+     */
+    private void advance(int i, double time) {
+        double elapsed = time - this.ballTimes[i];
+        store.setCenter(i, store.x(i) + store.xVelocity(i)*elapsed, store.y(i) + store.yVelocity(i)*elapsed);
+        this.ballTimes[i] = time;
+    }
+    
+    /**
+     * Predict the next collision of a ball during the rest of the current timestep, 
+     * and add it to the event queue if there is one.
+     * @param i index of an active ball in store
+     */
+    private void predictCollision(int i) {
+        Ball ball = this.ballOrder.get(i);
+        double remaining = this.timestep - this.ballTimes[i];
+        double reach = (Math.abs(store.xVelocity(i)) + Math.abs(store.yVelocity(i)))*remaining + Ball.BALL_RADIUS;
+        int count = this.grid.query(store.x(i) - reach, store.y(i) - reach, 
+                                    store.x(i) + reach, store.y(i) + reach, this.candidates);
+        
+        CollisionEvent next = null;
+        for (int k = 0; k < count; k++) {
+            int g = this.candidates[k];
+            double limit = next == null ? remaining : next.time() - this.ballTimes[i];
+            this.arena.collision(g, store.x(i), store.y(i), store.xVelocity(i), store.yVelocity(i), limit, this.contact);
+            if (this.contact.time() < limit && this.gadgetOrder.get(g).canCollide(ball)) {
+                next = new CollisionEvent(this.ballTimes[i] + this.contact.time(), i, g, this.versions[i], this.contact);
+            }
+        }
+        if (next != null) {
+            this.events.add(next);
+        }
+    }
+    
+    /**
+     * Find the gadgets that the ball could reach during one timestep.
+     * A collision reflects the ball and moves it one more step, so the box searched 
+     * extends twice the ball's travel in every direction.
+     * @param i index of an active ball in store
+     * @param result filled with the indices in gadgetOrder of the gadgets found, 
+     *        must have room for every gadget; mutated
+     * @return number of gadgets found
+     */
+    private int nearbyGadgets(int i, int[] result) {
+        double reach = 2*(Math.abs(store.xVelocity(i)) + Math.abs(store.yVelocity(i)))*this.timestep + Ball.BALL_RADIUS;
+        return this.grid.query(store.x(i) - reach, store.y(i) - reach, 
+                               store.x(i) + reach, store.y(i) + reach, result);
     }
     
     @Override
@@ -226,21 +1272,26 @@ public class Game {
                 + "; Balls: ");
         
         // balls
-        for (String ball : this.balls.keySet()) gameString.append(ball + ", "); 
+        for (String ball : this.ballNames) gameString.append(ball + ", "); 
         // remove the last comma and space once all balls have been added
-        if (!this.balls.isEmpty()) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
+        if (this.ballNames.length > 0) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
         gameString.append("; Gadgets: ");
         
         // gadgets
-        for (String gadget : this.gadgets.keySet()) gameString.append(gadget + ", ");
+        for (Gadget gadget : this.gadgetOrder) gameString.append(gadget.name() + ", ");
         // remove the last comma and space once all gadgets have been added
-        if (!this.gadgets.isEmpty()) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
+        if (!this.gadgetOrder.isEmpty()) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
         gameString.append("; Events: ");
         
         // events
-        for (Gadget interaction : this.interactions.keySet()) gameString.append("(Trigger: " + interaction + ", Action: " + this.interactions.get(interaction) + "), ");
+        for (int g = 0; g < this.gadgetOrder.size(); g++) {
+            for (int k = this.board.actionStart(g); k < this.board.actionStart(g+1); k++) {
+                gameString.append("(Trigger: " + this.gadgetOrder.get(g) 
+                        + ", Action: " + this.gadgetOrder.get(this.board.actionTarget(k)) + "), ");
+            }
+        }
         // remove the last comma and space once all gadgets have been added
-        if (!this.interactions.isEmpty()) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
+        if (this.board.actionStart(this.gadgetOrder.size()) > 0) gameString.delete(gameString.length()-NUM_CHARS_TO_REMOVE, gameString.length());
         gameString.append("]");
         
         return gameString.toString();
@@ -260,11 +1311,11 @@ public class Game {
                 || this.friction2 != gameThat.friction2()) return false;
         
         // balls must be the same
-        if (!this.balls.equals(gameThat.balls())) return false;
+        if (!this.balls().equals(gameThat.balls())) return false;
         // gadgets must be the same
-        if (!this.gadgets.equals(gameThat.gadgets())) return false;
+        if (!this.gadgets().equals(gameThat.gadgets())) return false;
         // interactions must be the same
-        if (!this.interactions.equals(gameThat.interactions())) return false;
+        if (!this.interactions().equals(gameThat.interactions())) return false;
         
         return true;
     }
@@ -275,8 +1326,8 @@ public class Game {
                 + (int)this.gravity
                 + (int)this.friction1
                 + (int)this.friction2
-                + this.balls.hashCode() 
-                + this.gadgets.hashCode()
-                + this.interactions.hashCode();
+                + this.balls().hashCode() 
+                + this.gadgets().hashCode()
+                + this.interactions().hashCode();
     }
 }
@@ -0,0 +1,219 @@
+package flingball;
+
+import java.util.List;
+
+import physics.Circle;
+import physics.LineSegment;
+
+/**
+ * The static geometry of a Flingball board flattened into primitive arrays,
+ * so that the time until a ball hits a gadget can be computed without following references
+ * and with the collision kernel specialized to each segment or circle.
+ * Gadgets are identified by their position in the list the arena was built from.
+ */
+class GeometryArena {
+    private static final int HORIZONTAL = 0;
+    private static final int VERTICAL = 1;
+    private static final int GENERAL = 2;
+    private static final int SEGMENT_STRIDE = 4;
+    private static final int CIRCLE_STRIDE = 3;
+    private static final int BOX_STRIDE = 4;
+
+    private final double[] segments;
+    private final int[] kinds;
+    private final double[] circles;
+    private final int[] segmentStart;
+    private final int[] circleStart;
+    private final double[] boxes;
+
+    // Abstraction Function:
+    //   AF(segments, kinds, circles, segmentStart, circleStart, boxes) = the boundaries of gadgets
+    //     0..segmentStart.length-2, where gadget g is made of the line segments
+    //     segmentStart[g]..segmentStart[g+1]-1 and the circles circleStart[g]..circleStart[g+1]-1.
+    //     Segment s runs from (segments[4s], segments[4s+1]) to (segments[4s+2], segments[4s+3])
+    //     and kinds[s] says whether it is HORIZONTAL, VERTICAL or GENERAL.
+    //     Circle c has its center at (circles[3c], circles[3c+1]) and radius circles[3c+2].
+    //     Gadget g lies within the box from (boxes[4g], boxes[4g+1]) to (boxes[4g+2], boxes[4g+3])
+    // Rep Invariant:
+    //   segments.length == SEGMENT_STRIDE*kinds.length
+    //   circles.length % CIRCLE_STRIDE == 0
+    //   segmentStart and circleStart have the same length, at least 1,
+    //     start at 0, are non-decreasing and end at the number of segments and circles
+    //   kinds[s] == HORIZONTAL implies segment s has distinct x and equal y coordinates,
+    //     kinds[s] == VERTICAL implies it has equal x and distinct y coordinates
+    //   every radius is >= 0
+    //   boxes.length == BOX_STRIDE*(segmentStart.length-1), and each box contains 
+    //     the segments and circles of its gadget
+    // Safety from rep exposure:
+    //   all fields private and final, arrays are never returned
+
+    /**
+     * Flatten the geometry of the given gadgets.
+     * @param gadgets whose edges and corners make up the arena
+     */
+    public GeometryArena(List<Gadget> gadgets) {
+        this.segmentStart = new int[gadgets.size() + 1];
+        this.circleStart = new int[gadgets.size() + 1];
+        for (int g = 0; g < gadgets.size(); g++) {
+            this.segmentStart[g+1] = this.segmentStart[g] + gadgets.get(g).getEdges().size();
+            this.circleStart[g+1] = this.circleStart[g] + gadgets.get(g).getCorners().size();
+        }
+        this.kinds = new int[this.segmentStart[gadgets.size()]];
+        this.segments = new double[SEGMENT_STRIDE*this.kinds.length];
+        this.circles = new double[CIRCLE_STRIDE*this.circleStart[gadgets.size()]];
+        this.boxes = new double[BOX_STRIDE*gadgets.size()];
+
+        for (int g = 0; g < gadgets.size(); g++) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            List<LineSegment> edges = gadgets.get(g).getEdges();
+            for (int k = 0; k < edges.size(); k++) {
+                LineSegment edge = edges.get(k);
+                int s = this.segmentStart[g] + k;
+                this.segments[SEGMENT_STRIDE*s] = edge.p1().x();
+                this.segments[SEGMENT_STRIDE*s + 1] = edge.p1().y();
+                this.segments[SEGMENT_STRIDE*s + 2] = edge.p2().x();
+                this.segments[SEGMENT_STRIDE*s + 3] = edge.p2().y();
+                if (edge.p1().y() == edge.p2().y() && edge.p1().x() != edge.p2().x()) {
+                    this.kinds[s] = HORIZONTAL;
+                } else if (edge.p1().x() == edge.p2().x() && edge.p1().y() != edge.p2().y()) {
+                    this.kinds[s] = VERTICAL;
+                } else {
+                    this.kinds[s] = GENERAL;
+                }
+                minX = Math.min(minX, Math.min(edge.p1().x(), edge.p2().x()));
+                minY = Math.min(minY, Math.min(edge.p1().y(), edge.p2().y()));
+                maxX = Math.max(maxX, Math.max(edge.p1().x(), edge.p2().x()));
+                maxY = Math.max(maxY, Math.max(edge.p1().y(), edge.p2().y()));
+            }
+            List<Circle> corners = gadgets.get(g).getCorners();
+            for (int k = 0; k < corners.size(); k++) {
+                Circle corner = corners.get(k);
+                int c = this.circleStart[g] + k;
+                this.circles[CIRCLE_STRIDE*c] = corner.getCenter().x();
+                this.circles[CIRCLE_STRIDE*c + 1] = corner.getCenter().y();
+                this.circles[CIRCLE_STRIDE*c + 2] = corner.getRadius();
+                minX = Math.min(minX, corner.getCenter().x() - corner.getRadius());
+                minY = Math.min(minY, corner.getCenter().y() - corner.getRadius());
+                maxX = Math.max(maxX, corner.getCenter().x() + corner.getRadius());
+                maxY = Math.max(maxY, corner.getCenter().y() + corner.getRadius());
+            }
+            this.boxes[BOX_STRIDE*g] = minX;
+            this.boxes[BOX_STRIDE*g + 1] = minY;
+            this.boxes[BOX_STRIDE*g + 2] = maxX;
+            this.boxes[BOX_STRIDE*g + 3] = maxY;
+        }
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert segments.length == SEGMENT_STRIDE*kinds.length;
+        assert circles.length % CIRCLE_STRIDE == 0;
+        assert segmentStart.length == circleStart.length && segmentStart.length >= 1;
+        assert segmentStart[0] == 0 && circleStart[0] == 0;
+        for (int g = 0; g + 1 < segmentStart.length; g++) {
+            assert segmentStart[g] <= segmentStart[g+1] && circleStart[g] <= circleStart[g+1];
+        }
+        assert segmentStart[segmentStart.length-1] == kinds.length;
+        assert circleStart[circleStart.length-1] == circles.length / CIRCLE_STRIDE;
+        for (int c = 0; c < circles.length / CIRCLE_STRIDE; c++) {
+            assert circles[CIRCLE_STRIDE*c + 2] >= 0 : "circle radius must be non-negative";
+        }
+        assert boxes.length == BOX_STRIDE*(segmentStart.length-1);
+    }
+
+    /**
+     * @return number of gadgets in the arena
+     */
+    public int gadgetCount() {
+        return this.segmentStart.length - 1;
+    }
+    /**
+     * Find the earliest collision of a ball with a gadget, without allocating.
+     * Agrees with the collision found by the gadget itself up to rounding
+     * whenever it happens before limit: features are numbered as in Collision, 
+     * and ties are broken as in Collisions.closestCollision.
+     * @param g index of the gadget
+     * @param a x coordinate of the center of the ball
+     * @param b y coordinate of the center of the ball
+     * @param va x value of the velocity of the ball
+     * @param vb y value of the velocity of the ball
+     * @param limit time beyond which collisions are of no interest, >= 0
+     * @param result set to the earliest collision if it happens before limit, 
+     *        otherwise to no collision or a collision at some time >= limit, mutated
+     */
+    public void collision(int g, double a, double b, double va, double vb, double limit, Collision result) {
+        final double radius = Ball.BALL_RADIUS;
+        // a ball that can't reach the gadget's box before limit can't hit the gadget
+        double reachX = Math.abs(va)*limit + radius;
+        double reachY = Math.abs(vb)*limit + radius;
+        int box = BOX_STRIDE*g;
+        if (a + reachX < this.boxes[box] || b + reachY < this.boxes[box+1] 
+                || a - reachX > this.boxes[box+2] || b - reachY > this.boxes[box+3]) {
+            result.clear();
+            return;
+        }
+        
+        int closestSegment = -1;
+        double minSegment = Double.POSITIVE_INFINITY;
+        for (int s = this.segmentStart[g]; s < this.segmentStart[g+1]; s++) {
+            int offset = SEGMENT_STRIDE*s;
+            double time;
+            switch (this.kinds[s]) {
+            case HORIZONTAL:
+                time = Collisions.timeUntilHorizontalWallCollision(this.segments[offset], this.segments[offset+2],
+                        this.segments[offset+1], a, b, radius, va, vb);
+                break;
+            case VERTICAL:
+                time = Collisions.timeUntilVerticalWallCollision(this.segments[offset], this.segments[offset+1],
+                        this.segments[offset+3], a, b, radius, va, vb);
+                break;
+            default:
+                time = Collisions.timeUntilWallCollision(this.segments[offset], this.segments[offset+1],
+                        this.segments[offset+2], this.segments[offset+3], a, b, radius, va, vb);
+                break;
+            }
+            if (time < minSegment) {
+                minSegment = time;
+                closestSegment = s;
+            }
+        }
+        int closestCircle = -1;
+        double minCircle = Double.POSITIVE_INFINITY;
+        for (int c = this.circleStart[g]; c < this.circleStart[g+1]; c++) {
+            int offset = CIRCLE_STRIDE*c;
+            double circleRadius = this.circles[offset+2];
+            double time;
+            if (circleRadius == 0) {
+                time = Collisions.timeUntilPointCollision(this.circles[offset], this.circles[offset+1],
+                        a, b, radius, va, vb);
+            } else {
+                time = Collisions.timeUntilCircleCollision(this.circles[offset], this.circles[offset+1],
+                        circleRadius, a, b, radius, va, vb);
+            }
+            if (time < minCircle) {
+                minCircle = time;
+                closestCircle = c;
+            }
+        }
+        
+        if (closestCircle >= 0 && minCircle <= minSegment) {
+            int offset = CIRCLE_STRIDE*closestCircle;
+            int feature = this.segmentStart[g+1] - this.segmentStart[g] + closestCircle - this.circleStart[g];
+            Collisions.hitCircle(minCircle, feature, this.circles[offset], this.circles[offset+1], 
+                    a, b, va, vb, result);
+        } else if (closestSegment >= 0) {
+            int offset = SEGMENT_STRIDE*closestSegment;
+            Collisions.hitWall(minSegment, closestSegment - this.segmentStart[g], 
+                    this.segments[offset], this.segments[offset+1], this.segments[offset+2], this.segments[offset+3], 
+                    va, vb, result);
+        } else {
+            result.clear();
+        }
+    }
+}
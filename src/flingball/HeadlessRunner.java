@@ -0,0 +1,181 @@
+package flingball;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs a Flingball game as fast as the CPU allows, with no display and no sleeping between timesteps,
+ * for regression runs and capacity planning.
+ */
+public class HeadlessRunner {
+
+    // nobody should be constructing a HeadlessRunner
+    private HeadlessRunner() {
+    }
+
+    /**
+     * Advance a game through a number of timesteps without pausing between them.
+     * @param game to run, mutated
+     * @param ticks number of timesteps, >= 0
+     * @return report on the run
+     */
+    public static Report run(Game game, long ticks) {
+        final long start = System.nanoTime();
+        for (long i = 0; i < ticks; i++) {
+            game.tick();
+        }
+        final long elapsed = System.nanoTime() - start;
+        return new Report(game.name(), game.engine(), ticks, ticks*game.timestep(), elapsed,
+                          game.metrics(), game.balls());
+    }
+
+    /**
+     * Advance a game through a duration of simulated time without pausing between timesteps.
+     * @param game to run, mutated
+     * @param seconds of simulated time, >= 0; rounded up to a whole number of timesteps
+     * @return report on the run
+     */
+    public static Report runFor(Game game, double seconds) {
+        return run(game, ticksFor(game, seconds));
+    }
+
+    /**
+     * @param game to run
+     * @param seconds of simulated time, >= 0
+     * @return number of timesteps of game that simulate seconds, rounded up
+     */
+    static long ticksFor(Game game, double seconds) {
+        // allow for rounding, so that a whole number of timesteps isn't rounded up one more
+        final double slack = 1e-9;
+        return (long) Math.ceil(seconds / game.timestep() - slack);
+    }
+
+    /**
+     * An immutable report on a headless run: its speed, the work done by the game,
+     * and the state of every ball at the end.
+     */
+    public static class Report {
+        private final String name;
+        private final Game.Engine engine;
+        private final long ticks;
+        private final double simulatedSeconds;
+        private final long elapsedNanos;
+        private final Metrics metrics;
+        private final Map<String, Ball> balls;
+
+        // Abstraction Function:
+        //   AF(name, engine, ticks, simulatedSeconds, elapsedNanos, metrics, balls) = a run of the game
+        //     named name with engine through ticks timesteps, simulating simulatedSeconds of game time
+        //     in elapsedNanos nanoseconds of real time, after which the game's metrics were metrics
+        //     and its balls were the values of balls, by name
+        // Rep Invariant:
+        //   ticks >= 0, simulatedSeconds >= 0, elapsedNanos >= 0
+        //   every key of balls is the name of its value
+        // Safety from rep exposure:
+        //   all fields private and final;
+        //   metrics and balls are copied when the report is made and copied again when returned
+
+        /**
+         * Make a report.
+         * @param name of the game
+         * @param engine the game was run with
+         * @param ticks number of timesteps run
+         * @param simulatedSeconds game time simulated
+         * @param elapsedNanos real time taken, in nanoseconds
+         * @param metrics of the game at the end of the run
+         * @param balls of the game at the end of the run, by name
+         */
+        Report(String name, Game.Engine engine, long ticks, double simulatedSeconds, long elapsedNanos,
+               Metrics metrics, Map<String, Ball> balls) {
+            this.name = name;
+            this.engine = engine;
+            this.ticks = ticks;
+            this.simulatedSeconds = simulatedSeconds;
+            this.elapsedNanos = elapsedNanos;
+            this.metrics = metrics.copy();
+            this.balls = new TreeMap<>();
+            for (Ball ball : balls.values()) {
+                this.balls.put(ball.name(), ball.copy());
+            }
+            checkRep();
+        }
+
+        /**
+         * Check that the rep invariant is satisfied.
+         */
+        private void checkRep() {
+            assert ticks >= 0 && simulatedSeconds >= 0 && elapsedNanos >= 0;
+            for (String ballName : balls.keySet()) {
+                assert ballName.equals(balls.get(ballName).name());
+            }
+        }
+
+        /**
+         * @return number of timesteps run
+         */
+        public long ticks() {
+            return this.ticks;
+        }
+
+        /**
+         * @return game time simulated, in seconds
+         */
+        public double simulatedSeconds() {
+            return this.simulatedSeconds;
+        }
+
+        /**
+         * @return real time taken by the run, in nanoseconds
+         */
+        public long elapsedNanos() {
+            return this.elapsedNanos;
+        }
+
+        /**
+         * @return timesteps run per second of real time
+         */
+        public double ticksPerSecond() {
+            return this.ticks / Math.max(this.elapsedNanos * 1e-9, Double.MIN_VALUE);
+        }
+
+        /**
+         * @return metrics of the game at the end of the run
+         */
+        public Metrics metrics() {
+            return this.metrics.copy();
+        }
+
+        /**
+         * @return balls of the game at the end of the run, by name
+         */
+        public Map<String, Ball> balls() {
+            Map<String, Ball> ballsCopy = new TreeMap<>();
+            for (String ballName : this.balls.keySet()) {
+                ballsCopy.put(ballName, this.balls.get(ballName).copy());
+            }
+            return ballsCopy;
+        }
+
+        /**
+         * @return a human-readable report, one ball per line in order of name,
+         *         whose ball lines are the same on every run of the same board
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("game %s, engine %s%n", this.name, this.engine));
+            report.append(String.format("%d ticks, %.2f simulated seconds in %.3f s: %.0f ticks/sec%n",
+                    this.ticks, this.simulatedSeconds, this.elapsedNanos * 1e-9, ticksPerSecond()));
+            report.append(String.format("%d collisions, %d triggers fired%n",
+                    this.metrics.collisions(), this.metrics.triggers()));
+            report.append(String.format("%d balls slept, %d woken, %d quiescent ticks%n",
+                    this.metrics.ballsSlept(), this.metrics.ballsWoken(), this.metrics.quiescentTicks()));
+            for (Ball ball : this.balls.values()) {
+                report.append(String.format("ball %s center (%.6f, %.6f) velocity (%.6f, %.6f) %s%n",
+                        ball.name(), ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity(),
+                        ball.isActive() ? "active" : "inactive"));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package flingball;
+
+/**
+ * Mutable counters describing how much work a Flingball game has done and how long it has idled.
+ * A game keeps one Metrics and hands out copies, so clients see a consistent reading.
+ */
+public class Metrics {
+    private long ticks = 0;
+    private long quiescentTicks = 0;
+    private long idlePeriods = 0;
+    private long idleNanos = 0;
+    private long ballsSlept = 0;
+    private long ballsWoken = 0;
+    private long collisions = 0;
+    private long triggers = 0;
+    private long cappedBalls = 0;
+    private long actions = 0;
+    private long coalescedActions = 0;
+    private long actionStorms = 0;
+    private long timedTicks = 0;
+    private long periods = 0;
+    private long periodNanos = 0;
+    private long latenessNanos = 0;
+    private long lastLatenessNanos = 0;
+    private long maxLatenessNanos = 0;
+    private long skippedTicks = 0;
+    private long commands = 0;
+    private long rejectedCommands = 0;
+
+    // Abstraction Function:
+    //   AF(ticks, quiescentTicks, idlePeriods, idleNanos, ballsSlept, ballsWoken, collisions, triggers, cappedBalls,
+    //      actions, coalescedActions, actionStorms, timedTicks, periods, periodNanos, latenessNanos, lastLatenessNanos, maxLatenessNanos, skippedTicks,
+    //      commands, rejectedCommands) 
+    //     = a game that has advanced through ticks timesteps, quiescentTicks of which found no active ball
+    //     or the game paused,
+    //     and timedTicks of which were run in real time, starting latenessNanos in total after they were due,
+    //     the last by lastLatenessNanos and the latest by maxLatenessNanos,
+    //     with periods intervals of periodNanos in total between consecutive timesteps run in real time;
+    //     skippedTicks timesteps fell so far behind real time that they were never run,
+    //     has parked its simulation thread idlePeriods times for idleNanos nanoseconds in total,
+    //     has put balls to sleep ballsSlept times and woken them ballsWoken times,
+    //     and has handled collisions collisions of a ball with a gadget or another ball,
+    //     triggers of which hit a gadget that triggers actions,
+    //     and has stopped a ball for the rest of a timestep cappedBalls times because it collided too often in it;
+    //     actions actions have been taken at the end of a timestep, after coalescedActions more triggers
+    //     of an action already due in the same timestep were merged into them,
+    //     and gadgets have started storming actionStorms times;
+    //     commands commands have been carried out from its mailbox, and rejectedCommands more rejected
+    // Rep Invariant:
+    //   all counters >= 0
+    //   quiescentTicks <= ticks
+    //   timedTicks <= ticks, periods <= timedTicks
+    //   lastLatenessNanos <= maxLatenessNanos <= latenessNanos
+    //   triggers <= collisions
+    // Safety from rep exposure:
+    //   all fields private and primitive
+
+    /**
+     * Make a Metrics with every counter at zero.
+     */
+    public Metrics() {
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert ticks >= 0 && quiescentTicks >= 0 && idlePeriods >= 0 && idleNanos >= 0
+                && ballsSlept >= 0 && ballsWoken >= 0 && collisions >= 0 && triggers >= 0 && cappedBalls >= 0
+                && actions >= 0 && coalescedActions >= 0 && actionStorms >= 0
+                && timedTicks >= 0 && periods >= 0 && periodNanos >= 0 && latenessNanos >= 0
+                && lastLatenessNanos >= 0 && skippedTicks >= 0
+                && commands >= 0 && rejectedCommands >= 0;
+        assert quiescentTicks <= ticks;
+        assert timedTicks <= ticks && periods <= timedTicks;
+        assert lastLatenessNanos <= maxLatenessNanos && maxLatenessNanos <= latenessNanos;
+        assert triggers <= collisions;
+    }
+
+    /**
+     * Count a timestep.
+     * @param quiescent true iff the timestep found no active ball or the game paused
+     */
+    void countTick(boolean quiescent) {
+        this.ticks++;
+        if (quiescent) {
+            this.quiescentTicks++;
+        }
+    }
+
+    /**
+     * Count a command taken from the mailbox of the game.
+     * @param rejected true iff the command could not be carried out
+     */
+    void countCommand(boolean rejected) {
+        if (rejected) {
+            this.rejectedCommands++;
+        } else {
+            this.commands++;
+        }
+    }
+
+    /**
+     * Count an action taken at the end of a timestep.
+     */
+    void countAction() {
+        this.actions++;
+    }
+
+    /**
+     * Count a trigger of an action that was already due in the same timestep.
+     */
+    void countCoalescedAction() {
+        this.coalescedActions++;
+    }
+
+    /**
+     * Count gadgets that started storming.
+     * @param count number of gadgets, >= 0
+     */
+    void countActionStorms(int count) {
+        this.actionStorms += count;
+    }
+
+    /**
+     * Record when a timestep run in real time started, before counting it with countTick().
+     * @param lateness how long after it was due the timestep started, in nanoseconds, >= 0
+     * @param interval time since the previous timestep run in real time started, in nanoseconds,
+     *        or -1 if the game was not running in real time just before
+     */
+    void countTimedTick(long lateness, long interval) {
+        this.timedTicks++;
+        if (interval >= 0) {
+            this.periods++;
+            this.periodNanos += interval;
+        }
+        this.latenessNanos += lateness;
+        this.lastLatenessNanos = lateness;
+        this.maxLatenessNanos = Math.max(this.maxLatenessNanos, lateness);
+    }
+
+    /**
+     * Count timesteps given up because the game fell too far behind real time.
+     * @param count number of timesteps skipped, >= 0
+     */
+    void countSkippedTicks(long count) {
+        this.skippedTicks += count;
+        checkRep();
+    }
+
+    /**
+     * Count a period during which the simulation thread was parked.
+     * @param nanos length of the period in nanoseconds, >= 0
+     */
+    void countIdlePeriod(long nanos) {
+        this.idlePeriods++;
+        this.idleNanos += nanos;
+        checkRep();
+    }
+
+    /**
+     * Count a ball put to sleep.
+     */
+    void countSleep() {
+        this.ballsSlept++;
+    }
+
+    /**
+     * Count a sleeping ball woken up.
+     */
+    void countWake() {
+        this.ballsWoken++;
+    }
+
+    /**
+     * Count a collision of a ball with a gadget or another ball.
+     * @param trigger true iff the ball hit a gadget that triggers actions
+     */
+    void countCollision(boolean trigger) {
+        this.collisions++;
+        if (trigger) {
+            this.triggers++;
+        }
+    }
+
+    /**
+     * Count a ball stopped for the rest of a timestep because it had collided too many times in it.
+     */
+    void countCappedBall() {
+        this.cappedBalls++;
+    }
+
+    /**
+     * @return number of times a ball was stopped for the rest of a timestep
+     *         because it had collided too many times in it
+     */
+    public long cappedBalls() {
+        return this.cappedBalls;
+    }
+
+    /**
+     * @return number of timesteps the game has advanced through
+     */
+    public long ticks() {
+        return this.ticks;
+    }
+
+    /**
+     * @return number of timesteps that found no active ball and so did no work
+     */
+    public long quiescentTicks() {
+        return this.quiescentTicks;
+    }
+
+    /**
+     * @return number of times the simulation thread parked because no ball was active
+     */
+    public long idlePeriods() {
+        return this.idlePeriods;
+    }
+
+    /**
+     * @return total time the simulation thread has spent parked, in nanoseconds
+     */
+    public long idleNanos() {
+        return this.idleNanos;
+    }
+
+    /**
+     * @return number of times a ball has come to rest and been put to sleep
+     */
+    public long ballsSlept() {
+        return this.ballsSlept;
+    }
+
+    /**
+     * @return number of times a sleeping ball has been woken by another ball
+     */
+    public long ballsWoken() {
+        return this.ballsWoken;
+    }
+
+    /**
+     * @return number of collisions of a ball with a gadget or another ball
+     */
+    public long collisions() {
+        return this.collisions;
+    }
+
+    /**
+     * @return number of collisions that triggered the actions of a gadget
+     */
+    public long triggers() {
+        return this.triggers;
+    }
+
+    /**
+     * @return number of actions taken at the end of timesteps, once per gadget per timestep
+     */
+    public long actions() {
+        return this.actions;
+    }
+
+    /**
+     * @return number of triggers merged into an action already due in the same timestep
+     */
+    public long coalescedActions() {
+        return this.coalescedActions;
+    }
+
+    /**
+     * @return number of times a gadget started storming: taking its action in 
+     *         ActionQueue.STORM_TICKS consecutive timesteps
+     */
+    public long actionStorms() {
+        return this.actionStorms;
+    }
+
+    /**
+     * @return number of timesteps run in real time, by Game.run() or a BoardHost
+     */
+    public long timedTicks() {
+        return this.timedTicks;
+    }
+
+    /**
+     * @return mean measured time between the starts of consecutive timesteps run in real time,
+     *         in nanoseconds, or 0 if there haven't been two in a row
+     */
+    public double tickPeriodNanos() {
+        return this.periods == 0 ? 0 : (double) this.periodNanos / this.periods;
+    }
+
+    /**
+     * @return how long after it was due the last timestep run in real time started, in nanoseconds
+     */
+    public long lastLatenessNanos() {
+        return this.lastLatenessNanos;
+    }
+
+    /**
+     * @return mean time by which timesteps run in real time started after they were due, in nanoseconds,
+     *         or 0 if there have been none
+     */
+    public double meanLatenessNanos() {
+        return this.timedTicks == 0 ? 0 : (double) this.latenessNanos / this.timedTicks;
+    }
+
+    /**
+     * @return longest time by which a timestep run in real time started after it was due, in nanoseconds
+     */
+    public long maxLatenessNanos() {
+        return this.maxLatenessNanos;
+    }
+
+    /**
+     * @return number of timesteps never run because the game fell too far behind real time
+     */
+    public long skippedTicks() {
+        return this.skippedTicks;
+    }
+
+    /**
+     * @return number of commands carried out from the mailbox of the game
+     */
+    public long commands() {
+        return this.commands;
+    }
+
+    /**
+     * @return number of commands from the mailbox of the game that could not be carried out,
+     *         e.g. removing a ball that isn't there
+     */
+    public long rejectedCommands() {
+        return this.rejectedCommands;
+    }
+
+    /**
+     * @return a copy of these counters
+     */
+    public Metrics copy() {
+        Metrics copy = new Metrics();
+        copy.ticks = this.ticks;
+        copy.quiescentTicks = this.quiescentTicks;
+        copy.idlePeriods = this.idlePeriods;
+        copy.idleNanos = this.idleNanos;
+        copy.ballsSlept = this.ballsSlept;
+        copy.ballsWoken = this.ballsWoken;
+        copy.collisions = this.collisions;
+        copy.triggers = this.triggers;
+        copy.cappedBalls = this.cappedBalls;
+        copy.actions = this.actions;
+        copy.coalescedActions = this.coalescedActions;
+        copy.actionStorms = this.actionStorms;
+        copy.timedTicks = this.timedTicks;
+        copy.periods = this.periods;
+        copy.periodNanos = this.periodNanos;
+        copy.latenessNanos = this.latenessNanos;
+        copy.lastLatenessNanos = this.lastLatenessNanos;
+        copy.maxLatenessNanos = this.maxLatenessNanos;
+        copy.skippedTicks = this.skippedTicks;
+        copy.commands = this.commands;
+        copy.rejectedCommands = this.rejectedCommands;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "[Metrics: " + this.ticks + " ticks, " + this.quiescentTicks + " quiescent"
+                + "; " + this.collisions + " collisions, " + this.triggers + " triggers, "
+                + this.cappedBalls + " balls capped"
+                + "; " + this.actions + " actions, " + this.coalescedActions + " coalesced, " 
+                + this.actionStorms + " storms"
+                + "; idle " + this.idlePeriods + " times for " + this.idleNanos / 1_000_000 + " ms"
+                + "; balls slept " + this.ballsSlept + ", woken " + this.ballsWoken
+                + String.format("; %d timed ticks, period %.1f ms, late %.1f ms on average, %.1f ms at most",
+                        this.timedTicks, tickPeriodNanos() * 1e-6, meanLatenessNanos() * 1e-6, 
+                        this.maxLatenessNanos * 1e-6)
+                + ", " + this.skippedTicks + " skipped"
+                + "; " + this.commands + " commands, " + this.rejectedCommands + " rejected]";
+    }
+}
@@ -1,51 +1,181 @@
 package flingball;
 
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 /**
  * Simulator draws the game board and animates the movement of the balls.
+ * It draws frames at its own rate, independent of the game's timestep: each frame shows the balls
+ * interpolated between the game's last two snapshots by the time elapsed since the latest,
+ * so motion stays smooth however many frames fall within a timestep.
+ * Frames are either painted by Swing on its event thread, with draw(), or rendered actively
+ * on a thread of their own into a page-flipped canvas, with drawActively(), for steadier frame pacing.
+ * Either way, a frame repaints only the regions that changed since the last, and a frame in which nothing
+ * would change, e.g. because every ball is held by an absorber, isn't drawn at all.
  */
 public class Simulator {
     // Abstraction Function:
-    //   AF(GAMEBOARD_SIZE, PIXELS_PER_L, DRAWING_AREA_SIZE_IN_PIXELS, TIMER_INTERVAL_MILLISECONDS, game) = 
+    //   AF(GAMEBOARD_SIZE, PIXELS_PER_L, DRAWING_AREA_SIZE_IN_PIXELS, game, frameRate, layout, staticLayer, 
+    //      previous, current, shownBalls, shownBallCount, shownHits, nextBalls, nextHits, prepared,
+    //      lastFrameStart, frameMetrics) = 
     //      simulator that simulates the running game flingball game of size GAMEBOARD_SIZE and displays it with resolution PIXELS_PER_L
-    //      in new window of DRAWING_AREA_SIZE_IN_PIXELS and updates object positions every TIMER_INTERVAL_MILLISECONDS milliseconds
+    //      in new window of DRAWING_AREA_SIZE_IN_PIXELS and draws frameRate frames per second,
+    //      drawing the gadgets of layout, which have the geometry of the gadgets of game,
+    //      over staticLayer, a picture of the background and the gadgets of layout with no bumper highlighted;
+    //      current is the latest snapshot of the game drawn, or null if none has been,
+    //      and previous the one drawn before it with an earlier timestep, or null if none has been;
+    //      frames show the balls moving from previous to current, 
+    //      and the bumpers hit after previous and by current highlighted;
+    //      if prepared, the frame to show has ball i at (shownBalls[2i], shownBalls[2i+1]) for i < shownBallCount
+    //      and highlights gadget g of layout iff shownHits[g], otherwise no frame has been prepared yet;
+    //      nextBalls and nextHits are scratch space for preparing the frame after it;
+    //      the last frame painted by Swing started at lastFrameStart, or none has been if lastFrameStart < 0,
+    //      and frameMetrics counts the frames drawn so far
     // Rep Invariant:
-    //      true
+    //   frameRate > 0
+    //   staticLayer is DRAWING_AREA_SIZE_IN_PIXELS square
+    //   previous == null, or current != null and previous.tick() < current.tick()
+    //   2*shownBallCount <= shownBalls.length
+    //   shownHits.length == nextHits.length == layout.size()
     // Safety from rep exposure:
-    //   all fields private and final
+    //   all fields private and final, except previous and current, which are immutable, 
+    //     the shown and next arrays, which are swapped and never returned, shownBallCount, prepared 
+    //     and lastFrameStart
+    //   frameMetrics is copied before it is returned
+    //   layout holds this simulator's own gadgets, which never hold balls or take actions
+    //   staticLayer is never returned
+    // Thread safety argument:
+    //   the game may run on another thread: frames are drawn from its snapshots, which are immutable,
+    //   keys reach it as commands posted to its mailbox;
+    //   layout, staticLayer, previous, current, the shown and next arrays, shownBallCount, prepared 
+    //   and lastFrameStart are confined to the thread drawing the frames,
+    //   the Swing event thread or the render thread, since a simulator draws in one window only;
+    //   frameMetrics is guarded by the lock on this simulator
     private final int GAMEBOARD_SIZE = 20;
     private final int PIXELS_PER_L = 20;
     private final int DRAWING_AREA_SIZE_IN_PIXELS = GAMEBOARD_SIZE * PIXELS_PER_L;
     
-    private final int TIMER_INTERVAL_MILLISECONDS = 50; // for ~20 frames per second
+    /**
+     * Frames per second drawn when the refresh rate of the display is unknown.
+     */
+    public static final double DEFAULT_FRAME_RATE = 60;
+    
     private final Game game;
+    private final double frameRate;
+    private final List<Gadget> layout;
+    private final BufferedImage staticLayer;
+    private Snapshot previous = null;
+    private Snapshot current = null;
+    private double[] shownBalls = new double[0];
+    private int shownBallCount = 0;
+    private boolean[] shownHits;
+    private double[] nextBalls = new double[0];
+    private boolean[] nextHits;
+    private boolean prepared = false;
+    private long lastFrameStart = -1;
+    private final FrameMetrics frameMetrics = new FrameMetrics();
+    
+    private static final long TITLE_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
     
     /**
-     * Create a Flingball game simulator.
+     * Create a Flingball game simulator drawing a frame per refresh of the display, 
+     * or DEFAULT_FRAME_RATE frames per second if the refresh rate is unknown.
      * @param game to simulate
      */
     public Simulator(Game game) {
+        this(game, displayRefreshRate());
+    }
+    
+    /**
+     * Create a Flingball game simulator, drawing the parts of the board that never change once, up front.
+     * @param game to simulate
+     * @param frameRate frames to draw per second, independent of the game's timesteps per second
+     * @throws IllegalArgumentException if frameRate is not positive
+     */
+    public Simulator(Game game, double frameRate) {
+        if (!(frameRate > 0)) {
+            throw new IllegalArgumentException("frame rate must be positive: " + frameRate);
+        }
         this.game = game;
+        this.frameRate = frameRate;
+        this.layout = game.board().newGadgets();
+        this.staticLayer = newImage(DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS);
+        this.shownHits = new boolean[this.layout.size()];
+        this.nextHits = new boolean[this.layout.size()];
+        
+        Graphics2D g2 = this.staticLayer.createGraphics();
+        try {
+            g2.setColor(Color.black);
+            g2.fill(new Rectangle2D.Double(0, 0, DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS));
+            for (Gadget gadget : this.layout) {
+                gadget.drawIcon(g2, PIXELS_PER_L, false);
+            }
+        } finally {
+            g2.dispose();
+        }
         checkRep();
     }
     
     private void checkRep() {
-        assert true;
+        assert staticLayer.getWidth() == DRAWING_AREA_SIZE_IN_PIXELS 
+                && staticLayer.getHeight() == DRAWING_AREA_SIZE_IN_PIXELS;
+        assert frameRate > 0;
+        assert previous == null || (current != null && previous.tick() < current.tick());
+        assert 2*shownBallCount <= shownBalls.length;
+        assert shownHits.length == layout.size() && nextHits.length == layout.size();
     }
     
     /**
-     * Draw the Flingball game at TIMER_INTERVAL_MILLISECONDS milliseconds per frame
+     * @return refresh rate of the default screen in hertz, or DEFAULT_FRAME_RATE if there is no screen
+     *         or its refresh rate is unknown
+     */
+    private static double displayRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return DEFAULT_FRAME_RATE;
+        }
+        int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDisplayMode().getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FRAME_RATE : refreshRate;
+    }
+    
+    /**
+     * @param width of the image in pixels
+     * @param height of the image in pixels
+     * @return new image in the pixel format of the screen, so that copying it to the window needs no conversion,
+     *         or a plain RGB image if there is no screen
+     */
+    private static BufferedImage newImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height);
+    }
+    
+    /**
+     * Draw the Flingball game at the frame rate of this simulator, painting it passively with Swing,
+     * posting the keys pressed and released in the window to the game as commands.
+     * Must be called at most once per simulator, and not together with drawActively().
      */
     public void draw() {
         final JFrame window = new JFrame("flingball");
@@ -58,33 +188,301 @@ public class Simulator {
         };
         drawingArea.setPreferredSize(new Dimension(DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS));
         window.add(drawingArea);
+        window.addKeyListener(keyPoster());
         window.pack();
         window.setVisible(true);
 
         // note: the time must be javax.swing.Timer, not java.util.Timer
-        new Timer(TIMER_INTERVAL_MILLISECONDS, (ActionEvent e) -> {
-            drawingArea.repaint();
+        new Timer((int) Math.max(1, Math.round(1000 / this.frameRate)), (ActionEvent e) -> {
+            final Rectangle dirty = prepareFrame(System.nanoTime());
+            if (dirty == null) {
+                countSkippedFrame();
+            } else {
+                drawingArea.repaint(dirty);
+            }
         }).start();
     }
     
+    /**
+     * Draw the Flingball game at the frame rate of this simulator, rendering it actively: 
+     * a daemon render thread draws each frame when it falls due into a canvas with two buffers
+     * and flips them, dropping frames it can't keep up with rather than rushing to catch up.
+     * The title of the window reports the frame rate and render time about once a second;
+     * frameMetrics() reports them in full.
+     * Keys pressed and released in the window are posted to the game as commands.
+     * Must be called at most once per simulator, and not together with draw().
+     */
+    public void drawActively() {
+        final JFrame window = new JFrame("flingball");
+        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.setIgnoreRepaint(true);
+        
+        final Canvas canvas = new Canvas();
+        canvas.setIgnoreRepaint(true);
+        canvas.setPreferredSize(new Dimension(DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS));
+        window.add(canvas);
+        final KeyAdapter keys = keyPoster();
+        window.addKeyListener(keys);
+        canvas.addKeyListener(keys);
+        window.pack();
+        window.setVisible(true);
+        
+        canvas.createBufferStrategy(2);
+        final BufferStrategy strategy = canvas.getBufferStrategy();
+        final Thread renderer = new Thread(() -> renderFrames(window, strategy), "flingball-render");
+        renderer.setDaemon(true);
+        renderer.start();
+    }
+    
+    /**
+     * Render frames as they fall due until the calling thread is interrupted.
+     * @param window whose title reports the frame rate
+     * @param strategy buffers of the canvas to render into
+     */
+    private void renderFrames(final JFrame window, final BufferStrategy strategy) {
+        final TickClock clock = new TickClock(Math.round(1e9 / this.frameRate));
+        clock.restart(System.nanoTime());
+        long titled = System.nanoTime();
+        try {
+            while (true) {
+                long due = clock.due(System.nanoTime());
+                if (due > 1) {
+                    // a frame drawn late shows the game as of when it is drawn, so only the last one is worth drawing
+                    clock.skip(due - 1);
+                    countDroppedFrames(due - 1);
+                }
+                if (due > 0) {
+                    final long start = System.nanoTime();
+                    final long interval = clock.started(start);
+                    final Rectangle dirty = prepareFrame(start);
+                    if (dirty == null && !strategy.contentsLost()) {
+                        // the buffer on screen already shows this frame
+                        countSkippedFrame();
+                    } else {
+                        // page flipping leaves an older frame in the back buffer, so every flip paints it all
+                        do {
+                            do {
+                                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                                try {
+                                    paintFrame(g2);
+                                } finally {
+                                    g2.dispose();
+                                }
+                            } while (strategy.contentsRestored());
+                            strategy.show();
+                        } while (strategy.contentsLost());
+                        Toolkit.getDefaultToolkit().sync();
+                        countFrame(System.nanoTime() - start, interval);
+                    }
+                    
+                    if (start - titled >= TITLE_PERIOD_NANOS) {
+                        titled = start;
+                        final FrameMetrics metrics = frameMetrics();
+                        final String title = String.format("flingball - %.0f fps, %.2f ms to render", 
+                                metrics.frameRate(), metrics.lastRenderNanos() * 1e-6);
+                        SwingUtilities.invokeLater(() -> window.setTitle(title));
+                    }
+                }
+                TimeUnit.NANOSECONDS.sleep(clock.nanosUntilDue(System.nanoTime()));
+            }
+        } catch (InterruptedException e) {
+            // stop rendering, leaving the thread marked as interrupted for its owner
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * @return key listener posting the keys pressed and released to the game as commands
+     */
+    private KeyAdapter keyPoster() {
+        return new KeyAdapter() {
+            @Override public void keyPressed(KeyEvent e) {
+                game.post(Command.keyDown(keyName(e)));
+            }
+            @Override public void keyReleased(KeyEvent e) {
+                game.post(Command.keyUp(keyName(e)));
+            }
+        };
+    }
+    
+    /**
+     * Get the frames drawn by this simulator so far and how long they took to render.
+     * @return a copy of the frame metrics of this simulator
+     */
+    public synchronized FrameMetrics frameMetrics() {
+        return this.frameMetrics.copy();
+    }
+    
+    /**
+     * Count a frame drawn.
+     * @param nanos time taken to render and show it
+     * @param interval time since the previous frame started, or -1 if there was none
+     */
+    private synchronized void countFrame(long nanos, long interval) {
+        this.frameMetrics.countFrame(nanos, interval);
+    }
+    
+    /**
+     * Count a frame not drawn because nothing changed.
+     */
+    private synchronized void countSkippedFrame() {
+        this.frameMetrics.countSkippedFrame();
+    }
+    
+    /**
+     * Count frames given up because rendering fell behind.
+     * @param count number of frames dropped
+     */
+    private synchronized void countDroppedFrames(long count) {
+        this.frameMetrics.countDroppedFrames(count);
+    }
+    
+    /**
+     * @param e key event
+     * @return name of the key of e as used in keyup and keydown lines of a board, e.g. a, space, shift, left
+     */
+    private static String keyName(KeyEvent e) {
+        return KeyEvent.getKeyText(e.getKeyCode()).toLowerCase().replace(" ", "");
+    }
+    
     /**
      * Animate the balls moving around the game board.
      * @param g graphics for the drawing buffer for the window.  Modifies this graphics by drawing the balls on it, at a 
      * position determined by the current clock time and the ball's current position and velocity.
      */
     private void drawItems(final Graphics graphics) {
-       Graphics2D g2 = (Graphics2D) graphics;  // every Graphics object is also a Graphics2D, which is a stronger spec
+        final long start = System.nanoTime();
+        paintFrame((Graphics2D) graphics);  // every Graphics object is also a Graphics2D, which is a stronger spec
+        countFrame(System.nanoTime() - start, this.lastFrameStart < 0 ? -1 : start - this.lastFrameStart);
+        this.lastFrameStart = start;
+    }
+    
+    /**
+     * Draw one frame of the game as of now.
+     * @param g2 graphics to draw on, at least DRAWING_AREA_SIZE_IN_PIXELS square; modified by drawing on it
+     */
+    void render(final Graphics2D g2) {
+        prepareFrame(System.nanoTime());
+        paintFrame(g2);
+    }
+    
+    /**
+     * Prepare the frame showing the game at the given time, to be drawn by paintFrame(): 
+     * the gadgets hit by the latest snapshot are highlighted, and the balls are where they were 
+     * between the last two snapshots at that time.
+     * Balls are drawn a timestep behind the game, so that they are always between two known states.
+     * @param now value of System.nanoTime() at which to show the game
+     * @return smallest rectangle of pixels covering everything that differs from the frame prepared before,
+     *         the whole drawing area if this is the first, or null if nothing differs
+     */
+    Rectangle prepareFrame(long now) {
+        final Snapshot latest = this.game.snapshot();
+        if (this.current == null || latest.tick() > this.current.tick()) {
+            this.previous = this.current;
+            this.current = latest;
+        }
+        final Snapshot frame = this.current;
         
-        // fill the background to erase everything
-        g2.setColor(Color.black);
-        g2.fill(new Rectangle2D.Double(0, 0, DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS));
+        // the game records its hits, so this reads state and runs no physics
+        final long hitsAfter = this.previous == null ? 0 : this.previous.tick();
+        for (int g = 0; g < this.layout.size(); g++) {
+            this.nextHits[g] = frame.lastHit(g) > hitsAfter;
+        }
         
-        for (Ball ball : this.game.balls().values()) {
-            ball.drawIcon(g2, PIXELS_PER_L);
+        // fraction of a timestep elapsed since the latest snapshot; a game that publishes none stays put
+        final double timestepNanos = this.game.timestep() * 1e9;
+        final double fraction = Math.min(1, Math.max(0, (now - frame.nanoTime()) / timestepNanos));
+        final Snapshot from = this.previous != null && this.previous.hasSameBalls(frame) ? this.previous : frame;
+        final int ballCount = frame.ballCount();
+        if (this.nextBalls.length < 2*ballCount) {
+            this.nextBalls = new double[Math.max(2*ballCount, 2*this.nextBalls.length)];
+        }
+        for (int i = 0; i < ballCount; i++) {
+            this.nextBalls[2*i] = from.x(i) + (frame.x(i) - from.x(i))*fraction;
+            this.nextBalls[2*i + 1] = from.y(i) + (frame.y(i) - from.y(i))*fraction;
         }
         
-        for (Gadget gadget : this.game.gadgets().values()) {
-            gadget.drawIcon(g2, PIXELS_PER_L, new ArrayList<Ball>(this.game.balls().values()), TIMER_INTERVAL_MILLISECONDS*0.001);
-        }   
+        Rectangle dirty = null;
+        if (!this.prepared) {
+            dirty = new Rectangle(0, 0, DRAWING_AREA_SIZE_IN_PIXELS, DRAWING_AREA_SIZE_IN_PIXELS);
+        } else {
+            for (int g = 0; g < this.layout.size(); g++) {
+                if (this.nextHits[g] != this.shownHits[g]) {
+                    dirty = union(dirty, gadgetBounds(this.layout.get(g)));
+                }
+            }
+            for (int i = 0; i < Math.max(ballCount, this.shownBallCount); i++) {
+                Rectangle before = i < this.shownBallCount 
+                        ? ballBounds(this.shownBalls[2*i], this.shownBalls[2*i + 1]) : null;
+                Rectangle after = i < ballCount ? ballBounds(this.nextBalls[2*i], this.nextBalls[2*i + 1]) : null;
+                if (before == null || after == null || !before.equals(after)) {
+                    dirty = union(union(dirty, before), after);
+                }
+            }
+        }
+        
+        final double[] balls = this.shownBalls;
+        this.shownBalls = this.nextBalls;
+        this.nextBalls = balls;
+        final boolean[] hits = this.shownHits;
+        this.shownHits = this.nextHits;
+        this.nextHits = hits;
+        this.shownBallCount = ballCount;
+        this.prepared = true;
+        checkRep();
+        return dirty;
+    }
+    
+    /**
+     * Draw the frame prepared last by prepareFrame(), or just the board if none has been:
+     * the static layer, the highlighted gadgets, and the balls.
+     * Only the pixels within the clip of g2 change, so a frame can be drawn in part.
+     * @param g2 graphics to draw on, at least DRAWING_AREA_SIZE_IN_PIXELS square; modified by drawing on it
+     */
+    void paintFrame(final Graphics2D g2) {
+        // the background and every unhighlighted gadget, erasing the last frame
+        g2.drawImage(this.staticLayer, 0, 0, null);
+        for (int g = 0; g < this.layout.size(); g++) {
+            if (this.shownHits[g]) {
+                this.layout.get(g).drawIcon(g2, PIXELS_PER_L, true);
+            }
+        }
+        for (int i = 0; i < this.shownBallCount; i++) {
+            Ball.drawIcon(g2, PIXELS_PER_L, this.shownBalls[2*i], this.shownBalls[2*i + 1]);
+        }
+    }
+    
+    /**
+     * @param x coordinate of the center of a ball
+     * @param y coordinate of the center of a ball
+     * @return pixels covered by the icon of the ball, as Ball.drawIcon() draws it, with a pixel to spare
+     */
+    private Rectangle ballBounds(double x, double y) {
+        final int diameter = 2*(int) Math.round(Ball.BALL_RADIUS*PIXELS_PER_L);
+        return new Rectangle((int) Math.round(x*PIXELS_PER_L) - 1, (int) Math.round(y*PIXELS_PER_L) - 1, 
+                diameter + 2, diameter + 2);
+    }
+    
+    /**
+     * @param gadget drawn by this simulator
+     * @return pixels covered by the icon of the gadget, with a pixel to spare
+     */
+    private Rectangle gadgetBounds(Gadget gadget) {
+        return new Rectangle((int) Math.floor(gadget.getOrigin().x()*PIXELS_PER_L) - 1,
+                (int) Math.floor(gadget.getOrigin().y()*PIXELS_PER_L) - 1,
+                (int) Math.ceil(gadget.getWidth()*PIXELS_PER_L) + 2, 
+                (int) Math.ceil(gadget.getHeight()*PIXELS_PER_L) + 2);
+    }
+    
+    /**
+     * @param region rectangle, or null for none
+     * @param other rectangle, or null for none
+     * @return smallest rectangle covering both, or null if both are null
+     */
+    private static Rectangle union(Rectangle region, Rectangle other) {
+        if (region == null) {
+            return other;
+        }
+        return other == null ? region : region.union(other);
     }
 }
@@ -0,0 +1,216 @@
+package flingball;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable picture of a Flingball game at the end of a timestep: the state of every ball,
+ * how many balls each gadget holds, and when each gadget was last hit.
+ * Balls are numbered in the order of their places in the game, leaving out removed balls,
+ * so ball i is the i-th ball given to the game if none has been added or removed since;
+ * gadget g is the g-th gadget of the board, walls last.
+ * Reading a snapshot neither copies nor locks anything, so renderers and monitors on any thread
+ * may read it while the game goes on.
+ */
+public class Snapshot {
+    private final long tick;
+    private final long nanoTime;
+    private final String[] ballNames;
+    private final double[] state;
+    private final boolean[] active;
+    private final String[] gadgetNames;
+    private final int[] held;
+    private final long[] lastHits;
+
+    // Abstraction Function:
+    //   AF(tick, nanoTime, ballNames, state, active, gadgetNames, held, lastHits) = the game as it was after tick timesteps,
+    //     when System.nanoTime() was nanoTime,
+    //     where ball i is named ballNames[i], has its center at (state[4i], state[4i+1]),
+    //     velocity (state[4i+2], state[4i+3]), and is active iff active[i],
+    //     and gadget g is named gadgetNames[g], holds held[g] balls, and was last hit by a ball
+    //     during timestep lastHits[g], or never if lastHits[g] == 0
+    // Rep Invariant:
+    //   tick >= 0
+    //   state.length == 4*ballNames.length, active.length == ballNames.length
+    //   held.length == gadgetNames.length, held[g] >= 0
+    //   lastHits.length == gadgetNames.length, 0 <= lastHits[g] <= tick
+    // Safety from rep exposure:
+    //   all fields private and final, and no array is ever returned;
+    //   state, active, held and lastHits belong to this snapshot alone; ballNames and gadgetNames are shared
+    //     with the game and its other snapshots, which never mutate them
+    // Thread safety argument:
+    //   the snapshot is immutable, and its fields are final, so it is safely published to any thread
+    //   that reads a reference to it
+
+    /**
+     * Make a snapshot, taking ownership of its arrays.
+     * @param tick number of timesteps the game had advanced
+     * @param nanoTime value of System.nanoTime() when the snapshot was taken
+     * @param ballNames names of the balls, never mutated
+     * @param state center and velocity of every ball, four values per ball
+     * @param active whether every ball is active
+     * @param gadgetNames names of the gadgets, never mutated
+     * @param held number of balls held by every gadget
+     * @param lastHits timestep during which every gadget was last hit, counting from 1, or 0 if never
+     */
+    Snapshot(long tick, long nanoTime, String[] ballNames, double[] state, boolean[] active, String[] gadgetNames, int[] held,
+            long[] lastHits) {
+        this.tick = tick;
+        this.nanoTime = nanoTime;
+        this.ballNames = ballNames;
+        this.state = state;
+        this.active = active;
+        this.gadgetNames = gadgetNames;
+        this.held = held;
+        this.lastHits = lastHits;
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert tick >= 0;
+        assert state.length == 4*ballNames.length && active.length == ballNames.length;
+        assert held.length == gadgetNames.length;
+        for (int count : held) {
+            assert count >= 0;
+        }
+        assert lastHits.length == gadgetNames.length;
+        for (long hit : lastHits) {
+            assert hit >= 0 && hit <= tick;
+        }
+    }
+
+    /**
+     * @return number of timesteps the game had advanced when this snapshot was taken
+     */
+    public long tick() {
+        return this.tick;
+    }
+
+    /**
+     * @return value of System.nanoTime() when this snapshot was taken, 
+     *         for renderers placing it on their own clock
+     */
+    public long nanoTime() {
+        return this.nanoTime;
+    }
+
+    /**
+     * @param other another snapshot of the same game
+     * @return true iff this snapshot and other have the same balls with the same numbers, 
+     *         i.e. no ball was added or removed between them
+     */
+    public boolean hasSameBalls(Snapshot other) {
+        return this.ballNames == other.ballNames;
+    }
+
+    /**
+     * @return number of balls in the game
+     */
+    public int ballCount() {
+        return this.ballNames.length;
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return name of ball i
+     */
+    public String ballName(int i) {
+        return this.ballNames[i];
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return x coordinate of the center of ball i
+     */
+    public double x(int i) {
+        return this.state[4*i];
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return y coordinate of the center of ball i
+     */
+    public double y(int i) {
+        return this.state[4*i + 1];
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return x value of the velocity of ball i
+     */
+    public double xVelocity(int i) {
+        return this.state[4*i + 2];
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return y value of the velocity of ball i
+     */
+    public double yVelocity(int i) {
+        return this.state[4*i + 3];
+    }
+
+    /**
+     * @param i number of a ball, 0 <= i < ballCount()
+     * @return true iff ball i is active, neither held by an absorber nor asleep
+     */
+    public boolean isActive(int i) {
+        return this.active[i];
+    }
+
+    /**
+     * @return number of gadgets in the game, walls included
+     */
+    public int gadgetCount() {
+        return this.gadgetNames.length;
+    }
+
+    /**
+     * @param g number of a gadget, 0 <= g < gadgetCount()
+     * @return name of gadget g
+     */
+    public String gadgetName(int g) {
+        return this.gadgetNames[g];
+    }
+
+    /**
+     * @param g number of a gadget, 0 <= g < gadgetCount()
+     * @return number of balls held by gadget g, 0 unless it is an absorber
+     */
+    public int heldBalls(int g) {
+        return this.held[g];
+    }
+
+    /**
+     * @param g number of a gadget, 0 <= g < gadgetCount()
+     * @return number of the timestep during which a ball last hit gadget g, counting from 1, 
+     *         or 0 if no ball has hit it
+     */
+    public long lastHit(int g) {
+        return this.lastHits[g];
+    }
+
+    /**
+     * Make balls with the state of the balls of this snapshot, for clients that need Ball objects.
+     * Unlike the other observers, this allocates a Ball per ball.
+     * @return new balls, in order of number
+     */
+    public List<Ball> balls() {
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 0; i < ballCount(); i++) {
+            Ball ball = new Ball(ballName(i), x(i), y(i), xVelocity(i), yVelocity(i));
+            ball.setActive(isActive(i));
+            balls.add(ball);
+        }
+        return balls;
+    }
+
+    @Override
+    public String toString() {
+        return "[Snapshot after " + this.tick + " timesteps: " + ballCount() + " balls, "
+                + gadgetCount() + " gadgets]";
+    }
+}
@@ -0,0 +1,131 @@
+package flingball;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import physics.Vect;
+
+/**
+ * A uniform grid over the Flingball playing area that indexes gadgets by the cells they overlap,
+ * so that a ball only needs to be tested against the gadgets near its path.
+ */
+class SpatialGrid {
+    private final int size;
+    private final int[][] cells;
+    private final int[] minCols;
+    private final int[] minRows;
+
+    // Abstraction Function:
+    //   AF(size, cells, minCols, minRows) = a size x size grid of 1L x 1L cells covering the playing area,
+    //     where cells[row*size + col] holds the indices of the gadgets whose bounding box overlaps
+    //     the cell at (col, row), in increasing order,
+    //     and (minCols[g], minRows[g]) is the top left cell overlapped by gadget g
+    // Rep Invariant:
+    //   cells.length == size*size
+    //   indices in each cell are distinct, non-negative, less than minCols.length and increasing
+    //   minCols and minRows have the same length, and every cell holding gadget g 
+    //     is at or below and right of (minCols[g], minRows[g])
+    // Safety from rep exposure:
+    //   all fields private, arrays are never returned
+    // Thread safety argument:
+    //   the grid is never mutated after construction, so any number of threads may query it at once
+
+    /**
+     * Create a grid indexing the given gadgets.
+     * @param gadgets to index; a gadget is identified by its position in this list
+     * @param size number of cells along each side of the playing area, must be positive
+     */
+    public SpatialGrid(List<Gadget> gadgets, int size) {
+        this.size = size;
+        this.cells = new int[size*size][];
+        this.minCols = new int[gadgets.size()];
+        this.minRows = new int[gadgets.size()];
+
+        List<List<Integer>> cellLists = new ArrayList<>();
+        for (int i = 0; i < size*size; i++) {
+            cellLists.add(new ArrayList<>());
+        }
+        for (int index = 0; index < gadgets.size(); index++) {
+            Gadget gadget = gadgets.get(index);
+            Vect origin = gadget.getOrigin();
+            int minCol = clamp((int) Math.floor(origin.x()));
+            int minRow = clamp((int) Math.floor(origin.y()));
+            int maxCol = clamp((int) Math.floor(origin.x() + gadget.getWidth()));
+            int maxRow = clamp((int) Math.floor(origin.y() + gadget.getHeight()));
+            this.minCols[index] = minCol;
+            this.minRows[index] = minRow;
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    cellLists.get(row*size + col).add(index);
+                }
+            }
+        }
+        for (int i = 0; i < size*size; i++) {
+            List<Integer> cellList = cellLists.get(i);
+            int[] cell = new int[cellList.size()];
+            for (int j = 0; j < cell.length; j++) {
+                cell[j] = cellList.get(j);
+            }
+            cells[i] = cell;
+        }
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert cells.length == size*size;
+        assert minCols.length == minRows.length;
+        for (int i = 0; i < cells.length; i++) {
+            int[] cell = cells[i];
+            for (int j = 0; j < cell.length; j++) {
+                assert cell[j] >= 0 && cell[j] < minCols.length : "gadget index out of range";
+                assert j == 0 || cell[j-1] < cell[j] : "cell indices must be increasing";
+                assert i % size >= minCols[cell[j]] && i / size >= minRows[cell[j]] : "cell before top left cell";
+            }
+        }
+    }
+
+    /**
+     * Clamp a cell coordinate to the grid.
+     * @param coord cell coordinate
+     * @return nearest coordinate in [0, size-1]
+     */
+    private int clamp(int coord) {
+        return Math.min(Math.max(coord, 0), size-1);
+    }
+
+    /**
+     * Find the gadgets overlapping the cells of an axis-aligned box.
+     * @param minX left side of the box
+     * @param minY top side of the box
+     * @param maxX right side of the box
+     * @param maxY bottom side of the box
+     * @param result array filled with the indices of the gadgets found, in increasing order,
+     *        must have room for every indexed gadget; mutated
+     * @return number of indices written to result
+     */
+    public int query(double minX, double minY, double maxX, double maxY, int[] result) {
+        int count = 0;
+        int minCol = clamp((int) Math.floor(minX));
+        int minRow = clamp((int) Math.floor(minY));
+        int maxCol = clamp((int) Math.floor(maxX));
+        int maxRow = clamp((int) Math.floor(maxY));
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int[] cell = cells[row*size + col];
+                for (int j = 0; j < cell.length; j++) {
+                    int index = cell[j];
+                    // report each gadget only from the top left cell it shares with the box
+                    if (Math.max(minCol, minCols[index]) == col && Math.max(minRow, minRows[index]) == row) {
+                        result[count++] = index;
+                    }
+                }
+            }
+        }
+        Arrays.sort(result, 0, count);
+        return count;
+    }
+}
@@ -18,8 +18,8 @@ class SquareBumper implements Gadget {
     private final int x, y;
     private final LineSegment bottom, top, left, right;
     private final Circle bottomLeft, bottomRight, topLeft, topRight;
-    private final List<LineSegment> edges = new ArrayList<>();
-    private final List<Circle> corners = new ArrayList<>();
+    private final List<LineSegment> edges;
+    private final List<Circle> corners;
     private final List<Gadget> actionObjects = new ArrayList<>();
     private static final int MAX_COORD = 19;
     private static final int LENGTH = 20;
@@ -43,6 +43,8 @@ class SquareBumper implements Gadget {
     //   actionObjects must be empty
     // Safety from rep exposure:
     //   all fields private and final
+    //   edges and corners are never mutated after construction, and only their copies are returned,
+    //     so copies of this bumper share them along with the immutable segments and circles
     
     public SquareBumper(String name, int x, int y) {
         this.name = name;
@@ -57,6 +59,8 @@ class SquareBumper implements Gadget {
         this.topLeft = new Circle(x, y, 0);
         this.topRight = new Circle(x+1, y, 0);
         
+        this.edges = new ArrayList<>();
+        this.corners = new ArrayList<>();
         edges.add(this.bottom);
         edges.add(this.top);
         edges.add(this.left);
@@ -70,6 +74,28 @@ class SquareBumper implements Gadget {
         checkRep();
     }
     
+    /**
+     * Create a bumper with the same name and geometry as another, sharing its immutable geometry,
+     * and with no action objects.
+     * @param prototype bumper to copy
+     */
+    private SquareBumper(SquareBumper prototype) {
+        this.name = prototype.name;
+        this.x = prototype.x;
+        this.y = prototype.y;
+        this.bottom = prototype.bottom;
+        this.top = prototype.top;
+        this.left = prototype.left;
+        this.right = prototype.right;
+        this.bottomLeft = prototype.bottomLeft;
+        this.bottomRight = prototype.bottomRight;
+        this.topLeft = prototype.topLeft;
+        this.topRight = prototype.topRight;
+        this.edges = prototype.edges;
+        this.corners = prototype.corners;
+        checkRep();
+    }
+    
     /**
      * Check that the rep invariant is satisfied.
      */
@@ -113,10 +139,21 @@ class SquareBumper implements Gadget {
         return new Vect(this.x, this.y);
     }
     
+    @Override
+    public int getWidth() {
+        return 1;
+    }
+    
+    @Override
+    public int getHeight() {
+        return 1;
+    }
+    
     /**
      * Get the edges of the Square Bumper
      * @return list of edges of the square bumper
      */
+    @Override
     public List<LineSegment> getEdges() {
         List<LineSegment> edgesCopy = new ArrayList<>();
         edgesCopy.add(new LineSegment(bottom.p1(), bottom.p2()));
@@ -130,6 +167,7 @@ class SquareBumper implements Gadget {
      * Get the corners of the Square Bumper
      * @return list of corners of the square bumper
      */
+    @Override
     public List<Circle> getCorners() {
         List<Circle> cornersCopy = new ArrayList<>();
         cornersCopy.add(new Circle(bottomLeft.getCenter(), bottomLeft.getRadius()));
@@ -228,19 +266,33 @@ class SquareBumper implements Gadget {
                this.edges.hashCode() + this.corners.hashCode();
     }
     
+    @Override
+    public boolean canCollide(Ball ball) {
+        return true;
+    }
+    
+    @Override
+    public void collision(Ball ball, Collision result) {
+        Collisions.closestCollision(edges, corners, ball, result);
+    }
+    
+    @Override
+    public void collide(Ball ball, Collision contact) {
+        ball.setVelocity(contact.xVelocity(), contact.yVelocity());
+    }
+    
     @Override
     public boolean trigger(Ball ball, double deltaT) {
-        if (timeUntilCollision(ball) < deltaT) {
-            Vect newVel = this.velocityAfterCollision(ball);
-            ball.setVelocity(newVel.x(), newVel.y());
-            Vect displacement = new Vect(ball.getVelocity().x()*deltaT, ball.getVelocity().y()*deltaT);
-            Vect newCenter = ball.getCenter().plus(displacement);
-            ball.setCenter(newCenter.x(), newCenter.y());
-
-            for (Gadget actionObject: actionObjects) {
-                actionObject.action();
-            }
-            
+        Collision contact = new Collision();
+        collision(ball, contact);
+        return trigger(ball, deltaT, contact);
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT, Collision contact) {
+        if (contact.time() < deltaT) {
+            collide(ball, contact);
+            ball.setCenter(ball.x() + ball.xVelocity()*deltaT, ball.y() + ball.yVelocity()*deltaT);
             return true;
         }
         return false;
@@ -265,18 +317,15 @@ class SquareBumper implements Gadget {
     
     @Override
     public SquareBumper copy() {
-        return new SquareBumper(this.name, this.x, this.y);
+        return new SquareBumper(this);
     }
     
     @Override
-    public void drawIcon(Graphics2D g, final int scaler, List<Ball> balls, double deltaT) {
+    public void drawIcon(Graphics2D g, final int scaler, boolean hit) {
         final int width = 1;
         final int height = 1;
         
-        g.setColor(Color.RED); 
-        for (Ball ball : balls) {
-        if (trigger(ball, deltaT))  g.setColor(Color.YELLOW);
-        }
+        g.setColor(hit ? Color.YELLOW : Color.RED);
         
         int displayX = (int) Math.round(x*scaler);
         int displayY = (int) Math.round(y*scaler);
@@ -0,0 +1,178 @@
+package flingball;
+
+import java.util.Arrays;
+
+/**
+ * A sweep-and-prune broad phase for collisions between balls: the boxes swept by the balls
+ * during a timestep, kept sorted by their left sides so that only balls whose boxes overlap
+ * along x are compared, and re-sorted by insertion sort, which is nearly linear
+ * because balls move little between timesteps.
+ * A ball is identified by its index in the BallStore the boxes are computed from.
+ */
+class SweepAndPrune {
+    private static final int BOX_STRIDE = 4;
+
+    private int[] order;
+    private double[] boxes;
+    private double[] sorted;
+    private int size = 0;
+    private int[] pairs = new int[2*16];
+    private int pairCount = 0;
+
+    // Abstraction Function:
+    //   AF(order, boxes, sorted, size, pairs, pairCount) = balls 0..size-1, where the box swept by ball i
+    //     runs from (boxes[4i], boxes[4i+1]) to (boxes[4i+2], boxes[4i+3]),
+    //     or is empty if boxes[4i] is POSITIVE_INFINITY because the ball is inactive and awake;
+    //     order[0..size-1] lists the balls by the left sides of their boxes,
+    //     sorted[4k..4k+3] is a copy of the box of ball order[k] so that the sweep reads memory in order,
+    //     and the pairs of balls whose boxes overlap are (pairs[2p], pairs[2p+1]) for p in 0..pairCount-1
+    // Rep Invariant:
+    //   0 <= size <= order.length and boxes.length == sorted.length == BOX_STRIDE*order.length
+    //   order[0..size-1] is a permutation of 0..size-1
+    //   boxes[4*order[k]] <= boxes[4*order[k+1]] for 0 <= k < size-1
+    //   sorted[4k+d] == boxes[4*order[k]+d] for 0 <= k < size and 0 <= d < 4
+    //   0 <= pairCount and 2*pairCount <= pairs.length
+    // Safety from rep exposure:
+    //   all fields private, arrays are never returned or taken from clients
+
+    /**
+     * Create a broad phase with no balls.
+     * @param capacity number of balls it can hold before it grows, must be positive
+     */
+    public SweepAndPrune(int capacity) {
+        this.order = new int[capacity];
+        this.boxes = new double[BOX_STRIDE*capacity];
+        this.sorted = new double[BOX_STRIDE*capacity];
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert size >= 0 && size <= order.length;
+        assert boxes.length == BOX_STRIDE*order.length && sorted.length == boxes.length;
+        for (int k = 0; k + 1 < size; k++) {
+            assert boxes[BOX_STRIDE*order[k]] <= boxes[BOX_STRIDE*order[k+1]] : "balls out of order";
+        }
+        for (int k = 0; k < size; k++) {
+            for (int d = 0; d < BOX_STRIDE; d++) {
+                assert sorted[BOX_STRIDE*k + d] == boxes[BOX_STRIDE*order[k] + d] : "stale sorted box";
+            }
+        }
+        assert pairCount >= 0 && 2*pairCount <= pairs.length;
+    }
+
+    /**
+     * Recompute the boxes swept by the balls of a store during a timestep, and sort them again.
+     * Balls added to the store since the last update join the broad phase.
+     * @param store balls to sweep; sleeping balls stay where they are, 
+     *        and other inactive balls have empty boxes
+     * @param deltaT length of the timestep in seconds
+     */
+    public void update(BallStore store, double deltaT) {
+        if (store.size() > this.order.length) {
+            int capacity = Math.max(store.size(), 2*this.order.length);
+            this.order = Arrays.copyOf(this.order, capacity);
+            this.boxes = Arrays.copyOf(this.boxes, BOX_STRIDE*capacity);
+            this.sorted = new double[BOX_STRIDE*capacity];
+        }
+        while (this.size < store.size()) {
+            this.order[this.size] = this.size;
+            this.size++;
+        }
+        final double radius = Ball.BALL_RADIUS;
+        for (int i = 0; i < this.size; i++) {
+            int box = BOX_STRIDE*i;
+            if (!store.isActive(i) && !store.isAsleep(i)) {
+                this.boxes[box] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double x = store.x(i);
+            double y = store.y(i);
+            double dx = store.xVelocity(i)*deltaT;
+            double dy = store.yVelocity(i)*deltaT;
+            this.boxes[box] = Math.min(x, x + dx) - radius;
+            this.boxes[box+1] = Math.min(y, y + dy) - radius;
+            this.boxes[box+2] = Math.max(x, x + dx) + radius;
+            this.boxes[box+3] = Math.max(y, y + dy) + radius;
+        }
+        // insertion sort: each ball only moves past the few balls it overtook since the last update
+        for (int k = 1; k < this.size; k++) {
+            int ball = this.order[k];
+            double left = this.boxes[BOX_STRIDE*ball];
+            int j = k - 1;
+            while (j >= 0 && this.boxes[BOX_STRIDE*this.order[j]] > left) {
+                this.order[j+1] = this.order[j];
+                j--;
+            }
+            this.order[j+1] = ball;
+        }
+        for (int k = 0; k < this.size; k++) {
+            System.arraycopy(this.boxes, BOX_STRIDE*this.order[k], this.sorted, BOX_STRIDE*k, BOX_STRIDE);
+        }
+        this.pairCount = 0;
+        checkRep();
+    }
+
+    /**
+     * Find the pairs of active or sleeping balls whose boxes overlap, as of the last update.
+     * Pairs are found in the order of the sweep, which depends only on the boxes,
+     * so the same balls always give the same pairs in the same order.
+     * @return number of pairs found, which can then be read with first() and second()
+     */
+    public int findPairs() {
+        this.pairCount = 0;
+        for (int k = 0; k < this.size; k++) {
+            int box = BOX_STRIDE*k;
+            if (this.sorted[box] == Double.POSITIVE_INFINITY) {
+                // balls with empty boxes are sorted after all the others
+                break;
+            }
+            double top = this.sorted[box+1];
+            double right = this.sorted[box+2];
+            double bottom = this.sorted[box+3];
+            for (int other = box + BOX_STRIDE; other < BOX_STRIDE*this.size; other += BOX_STRIDE) {
+                if (this.sorted[other] > right) {
+                    // every later ball starts even further right
+                    break;
+                }
+                if (this.sorted[other+1] <= bottom && top <= this.sorted[other+3]) {
+                    addPair(this.order[k], this.order[other / BOX_STRIDE]);
+                }
+            }
+        }
+        checkRep();
+        return this.pairCount;
+    }
+
+    /**
+     * Record a pair of balls whose boxes overlap.
+     * @param i index of a ball
+     * @param j index of another ball
+     */
+    private void addPair(int i, int j) {
+        if (2*this.pairCount == this.pairs.length) {
+            this.pairs = Arrays.copyOf(this.pairs, 2*this.pairs.length);
+        }
+        this.pairs[2*this.pairCount] = i;
+        this.pairs[2*this.pairCount + 1] = j;
+        this.pairCount++;
+    }
+
+    /**
+     * @param p number of a pair found by the last findPairs(), 0 <= p < its result
+     * @return index of the first ball of the pair
+     */
+    public int first(int p) {
+        return this.pairs[2*p];
+    }
+
+    /**
+     * @param p number of a pair found by the last findPairs(), 0 <= p < its result
+     * @return index of the second ball of the pair
+     */
+    public int second(int p) {
+        return this.pairs[2*p + 1];
+    }
+}
@@ -0,0 +1,105 @@
+package flingball;
+
+/**
+ * A fixed-rate schedule of timesteps in real time: the k-th timestep after the clock is restarted
+ * is due k periods after the restart, however long earlier timesteps took to compute,
+ * so a game that keeps up never drifts behind the wall clock.
+ * Times are System.nanoTime() readings.
+ * Not thread safe: a clock must be confined to the thread that advances its game.
+ */
+class TickClock {
+    private final long periodNanos;
+    private long nextDue = 0;
+    private long lastStart = 0;
+    private boolean hasLastStart = false;
+
+    // Abstraction Function:
+    //   AF(periodNanos, nextDue, lastStart, hasLastStart) = a schedule of a timestep every periodNanos,
+    //     whose next timestep is due at nextDue; if hasLastStart, the last timestep started at lastStart
+    //     since the clock was restarted
+    // Rep Invariant:
+    //   periodNanos > 0
+    // Safety from rep exposure:
+    //   all fields private and primitive
+
+    /**
+     * Make a clock, which must be restarted before use.
+     * @param periodNanos time between timesteps in nanoseconds, > 0
+     */
+    public TickClock(long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("period must be positive, not " + periodNanos);
+        }
+        this.periodNanos = periodNanos;
+        checkRep();
+    }
+
+    /**
+     * Check that the rep invariant is satisfied.
+     */
+    private void checkRep() {
+        assert periodNanos > 0;
+    }
+
+    /**
+     * @return time between timesteps in nanoseconds
+     */
+    public long periodNanos() {
+        return this.periodNanos;
+    }
+
+    /**
+     * Start the schedule afresh, with the next timestep due at once,
+     * forgetting timesteps that fell due while the game wasn't running.
+     * @param now current time
+     */
+    public void restart(long now) {
+        this.nextDue = now;
+        this.hasLastStart = false;
+    }
+
+    /**
+     * @param now current time
+     * @return number of timesteps due at now and not yet started
+     */
+    public long due(long now) {
+        return now < this.nextDue ? 0 : (now - this.nextDue) / this.periodNanos + 1;
+    }
+
+    /**
+     * Give up on timesteps that are due, so that a game that fell far behind doesn't rush to catch up.
+     * @param count number of due timesteps to skip, >= 0
+     */
+    public void skip(long count) {
+        this.nextDue += count * this.periodNanos;
+    }
+
+    /**
+     * @param now current time
+     * @return how long before the next timestep is due, in nanoseconds, or 0 if it is already due
+     */
+    public long nanosUntilDue(long now) {
+        return Math.max(0, this.nextDue - now);
+    }
+
+    /**
+     * @param now current time, at which the next due timestep starts
+     * @return how late the timestep is starting, in nanoseconds, >= 0
+     */
+    public long lateness(long now) {
+        return Math.max(0, now - this.nextDue);
+    }
+
+    /**
+     * Record that the next due timestep has started, and schedule the one after it.
+     * @param now current time
+     * @return time since the last timestep started in nanoseconds, or -1 if this is the first since a restart
+     */
+    public long started(long now) {
+        final long interval = this.hasLastStart ? now - this.lastStart : -1;
+        this.lastStart = now;
+        this.hasLastStart = true;
+        this.nextDue += this.periodNanos;
+        return interval;
+    }
+}
@@ -18,8 +18,8 @@ class TriangleBumper implements Gadget {
     private final int x, y, orientation;
     private final LineSegment legA, legB, hypotenuse;
     private final Circle cornerA, cornerB, rightAngleCorner;
-    private final List<LineSegment> legs = new ArrayList<>();
-    private final List<Circle> corners = new ArrayList<>();
+    private final List<LineSegment> legs;
+    private final List<Circle> corners;
     private final List<Gadget> actionObjects = new ArrayList<>();
     private static final int ROTATE_90 = 90;
     private static final int ROTATE_180 = 180;
@@ -50,6 +50,8 @@ class TriangleBumper implements Gadget {
     //   actionObjects must be empty
     // Safety from rep exposure:
     //   all fields private and final
+    //   legs and corners are never mutated after construction, and only their copies are returned,
+    //     so copies of this bumper share them along with the immutable segments and circles
     
     public TriangleBumper(String name, int x, int y) {
         this.name = name;
@@ -62,6 +64,8 @@ class TriangleBumper implements Gadget {
         Vect p2 = new Vect(x, y);
         Vect p3 = new Vect(x, y+1);
         
+        this.legs = new ArrayList<>();
+        this.corners = new ArrayList<>();
         rightAngleCorner = new Circle(p2, 0);
         cornerA = new Circle(p3, 0);
         cornerB = new Circle(p1, 0);
@@ -107,6 +111,8 @@ class TriangleBumper implements Gadget {
             throw new IllegalArgumentException("invalid orientation");
         }
         
+        this.legs = new ArrayList<>();
+        this.corners = new ArrayList<>();
         rightAngleCorner = new Circle(p2, 0);
         cornerA = new Circle(p3, 0);
         cornerB = new Circle(p1, 0);
@@ -124,6 +130,27 @@ class TriangleBumper implements Gadget {
         checkRep();
     }
     
+    /**
+     * Create a bumper with the same name and geometry as another, sharing its immutable geometry,
+     * and with no action objects.
+     * @param prototype bumper to copy
+     */
+    private TriangleBumper(TriangleBumper prototype) {
+        this.name = prototype.name;
+        this.x = prototype.x;
+        this.y = prototype.y;
+        this.orientation = prototype.orientation;
+        this.legA = prototype.legA;
+        this.legB = prototype.legB;
+        this.hypotenuse = prototype.hypotenuse;
+        this.cornerA = prototype.cornerA;
+        this.cornerB = prototype.cornerB;
+        this.rightAngleCorner = prototype.rightAngleCorner;
+        this.legs = prototype.legs;
+        this.corners = prototype.corners;
+        checkRep();
+    }
+    
     /**
      * Check that the rep invariant is satisfied.
      */
@@ -169,6 +196,16 @@ class TriangleBumper implements Gadget {
         return new Vect(this.x, this.y);
     }
     
+    @Override
+    public int getWidth() {
+        return 1;
+    }
+    
+    @Override
+    public int getHeight() {
+        return 1;
+    }
+    
     /**
      * Get the orientation of the triangle bumper
      * @return orientation of the triangle bumper. 0, 90, 180, or 270
@@ -189,10 +226,16 @@ class TriangleBumper implements Gadget {
         return legsCopy;
     }
     
+    @Override
+    public List<LineSegment> getEdges() {
+        return getLegs();
+    }
+    
     /**
      * Get the corners of the Triangle Bumper
      * @return list of the corners of the triangle bumper
      */
+    @Override
     public List<Circle> getCorners() {
         List<Circle> cornersCopy = new ArrayList<>();
         cornersCopy.add(new Circle(rightAngleCorner.getCenter(), rightAngleCorner.getRadius()));
@@ -288,19 +331,33 @@ class TriangleBumper implements Gadget {
         return this.name.hashCode() + this.x + this.y + this.orientation;
     }
     
+    @Override
+    public boolean canCollide(Ball ball) {
+        return true;
+    }
+    
+    @Override
+    public void collision(Ball ball, Collision result) {
+        Collisions.closestCollision(legs, corners, ball, result);
+    }
+    
+    @Override
+    public void collide(Ball ball, Collision contact) {
+        ball.setVelocity(contact.xVelocity(), contact.yVelocity());
+    }
+    
     @Override
     public boolean trigger(Ball ball, double deltaT) {
-        if (timeUntilCollision(ball) < deltaT) {
-            Vect newVel = this.velocityAfterCollision(ball);
-            ball.setVelocity(newVel.x(), newVel.y());
-            Vect displacement = new Vect(ball.getVelocity().x()*deltaT, ball.getVelocity().y()*deltaT);
-            Vect newCenter = ball.getCenter().plus(displacement);
-            ball.setCenter(newCenter.x(), newCenter.y());
-            
-            for (Gadget actionObject: actionObjects) {
-                actionObject.action();
-            }
-            
+        Collision contact = new Collision();
+        collision(ball, contact);
+        return trigger(ball, deltaT, contact);
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT, Collision contact) {
+        if (contact.time() < deltaT) {
+            collide(ball, contact);
+            ball.setCenter(ball.x() + ball.xVelocity()*deltaT, ball.y() + ball.yVelocity()*deltaT);
             return true;
         }
         return false;
@@ -313,16 +370,13 @@ class TriangleBumper implements Gadget {
     
     @Override
     public TriangleBumper copy() {
-        return new TriangleBumper(this.name, this.x, this.y, this.orientation);
+        return new TriangleBumper(this);
     }
 
     @Override
-    public void drawIcon(Graphics2D g, final int scaler, List<Ball> balls, double deltaT) {        
+    public void drawIcon(Graphics2D g, final int scaler, boolean hit) {        
         
-        g.setColor(Color.ORANGE); 
-        for (Ball ball : balls) {
-        if (trigger(ball, deltaT))  g.setColor(Color.YELLOW);
-        }
+        g.setColor(hit ? Color.YELLOW : Color.ORANGE);
         
         final int[] xValues = new int[] {
                 (int) Math.round(cornerA.getCenter().x()*scaler),
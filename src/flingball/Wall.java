@@ -35,6 +35,17 @@ class Wall implements Gadget {
         checkRep();
     }
     
+    /**
+     * Create a wall with the same name and geometry as another, sharing its immutable line and corner.
+     * @param prototype wall to copy
+     */
+    private Wall(Wall prototype) {
+        this.name = prototype.name;
+        this.line = prototype.line;
+        this.startCorner = prototype.startCorner;
+        checkRep();
+    }
+    
     /**
      * Check that the rep invariant is satisfied.
      */
@@ -67,6 +78,35 @@ class Wall implements Gadget {
         return new Circle(this.startCorner.getCenter(), this.startCorner.getRadius());
     }
     
+    @Override
+    public List<LineSegment> getEdges() {
+        List<LineSegment> edges = new ArrayList<>();
+        edges.add(getLine());
+        return edges;
+    }
+    
+    @Override
+    public List<Circle> getCorners() {
+        List<Circle> corners = new ArrayList<>();
+        corners.add(getCorner());
+        return corners;
+    }
+    
+    @Override
+    public Vect getOrigin() {
+        return new Vect(Math.min(line.p1().x(), line.p2().x()), Math.min(line.p1().y(), line.p2().y()));
+    }
+
+    @Override
+    public int getWidth() {
+        return (int) Math.abs(line.p2().x() - line.p1().x());
+    }
+
+    @Override
+    public int getHeight() {
+        return (int) Math.abs(line.p2().y() - line.p1().y());
+    }
+
     @Override
     public Double timeUntilCollision(Ball ball) {
         Double lineTime = Physics.timeUntilWallCollision(line, ball.getCircle(), ball.getVelocity());
@@ -125,14 +165,43 @@ class Wall implements Gadget {
         return this.name.hashCode() + this.line.hashCode() + this.startCorner.hashCode();
     }
     
+    @Override
+    public boolean canCollide(Ball ball) {
+        return true;
+    }
+    
+    @Override
+    public void collision(Ball ball, Collision result) {
+        double lineTime = Collisions.timeUntilWallCollision(line, ball);
+        double cornerTime = Collisions.timeUntilCircleCollision(startCorner, ball);
+        if (cornerTime != Double.POSITIVE_INFINITY && cornerTime <= lineTime) {
+            Collisions.hitCircle(cornerTime, 1, startCorner.getCenter().x(), startCorner.getCenter().y(), 
+                    ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity(), result);
+        } else if (lineTime != Double.POSITIVE_INFINITY) {
+            Collisions.hitWall(lineTime, 0, line.p1().x(), line.p1().y(), line.p2().x(), line.p2().y(), 
+                    ball.xVelocity(), ball.yVelocity(), result);
+        } else {
+            result.clear();
+        }
+    }
+    
+    @Override
+    public void collide(Ball ball, Collision contact) {
+        ball.setVelocity(contact.xVelocity(), contact.yVelocity());
+    }
+    
     @Override
     public boolean trigger(Ball ball, double deltaT) {
-        if (timeUntilCollision(ball) < deltaT) {
-            Vect newVel = this.velocityAfterCollision(ball);
-            ball.setVelocity(newVel.x(), newVel.y());
-            Vect displacement = new Vect(ball.getVelocity().x()*deltaT, ball.getVelocity().y()*deltaT);
-            Vect newCenter = ball.getCenter().plus(displacement);
-            ball.setCenter(newCenter.x(), newCenter.y());
+        Collision contact = new Collision();
+        collision(ball, contact);
+        return trigger(ball, deltaT, contact);
+    }
+    
+    @Override
+    public boolean trigger(Ball ball, double deltaT, Collision contact) {
+        if (contact.time() < deltaT) {
+            collide(ball, contact);
+            ball.setCenter(ball.x() + ball.xVelocity()*deltaT, ball.y() + ball.yVelocity()*deltaT);
             return true;
         }
         return false;
@@ -140,9 +209,7 @@ class Wall implements Gadget {
     
     @Override
     public Wall copy() {
-        Vect p1 = this.line.p1();
-        Vect p2 = this.line.p2();
-        return new Wall(this.name, (int) p1.x(), (int) p1.y(), (int) p2.x(), (int) p2.y());
+        return new Wall(this);
     }
     
     @Override
@@ -151,7 +218,7 @@ class Wall implements Gadget {
     }
     
     @Override
-    public void drawIcon(Graphics2D g, int scaler, List<Ball> balls, double deltaT) {
+    public void drawIcon(Graphics2D g, int scaler, boolean hit) {
         // not drawn
     }
 }
@@ -0,0 +1,59 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+public class ActionQueueTest {
+    // Testing strategy for ActionQueue
+    //   Partition the inputs as follows:
+    //     triggers in a timestep: none, one, several of different gadgets, several of the same gadget
+    //     consecutive timesteps taking a gadget's action: fewer than STORM_TICKS, exactly, more,
+    //       broken by a timestep without it
+    //   Check the actions due and their order, coalescing, and storm detection.
+
+    // covers none, one, several of different gadgets, several of the same gadget
+    @Test
+    public void testCoalescing() {
+        ActionQueue queue = new ActionQueue(4);
+        assertEquals("expected nothing due", 0, queue.size());
+        assertEquals("expected no storms", 0, queue.finishTick());
+        
+        assertTrue("expected queued", queue.trigger(2));
+        assertTrue("expected queued", queue.trigger(0));
+        assertFalse("expected coalesced", queue.trigger(2));
+        assertEquals("expected each gadget once", 2, queue.size());
+        assertEquals("expected order of first trigger", 2, queue.get(0));
+        assertEquals("expected order of first trigger", 0, queue.get(1));
+        queue.finishTick();
+        assertEquals("expected empty after timestep", 0, queue.size());
+        assertTrue("expected queued again in next timestep", queue.trigger(2));
+    }
+
+    // covers fewer than STORM_TICKS, exactly, more, broken by a timestep without it
+    @Test
+    public void testStorm() {
+        ActionQueue queue = new ActionQueue(2);
+        for (int t = 1; t < ActionQueue.STORM_TICKS; t++) {
+            queue.trigger(1);
+            assertEquals("expected no storm yet", 0, queue.finishTick());
+        }
+        assertFalse("expected not storming yet", queue.isStorming(1));
+        queue.trigger(1);
+        assertEquals("expected storm to start", 1, queue.finishTick());
+        assertTrue("expected storming", queue.isStorming(1));
+        assertFalse("expected other gadget calm", queue.isStorming(0));
+        queue.trigger(1);
+        assertEquals("expected storm counted once", 0, queue.finishTick());
+        assertTrue("expected still storming", queue.isStorming(1));
+        
+        queue.finishTick();
+        assertFalse("expected storm over", queue.isStorming(1));
+        queue.trigger(1);
+        queue.finishTick();
+        assertFalse("expected streak to start afresh", queue.isStorming(1));
+    }
+}
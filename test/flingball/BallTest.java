@@ -11,6 +11,7 @@ import physics.Vect;
 public class BallTest {
     // Testing strategy for Ball:
     // TODO document testing strategy
+    //   ball created on its own, ball handle to a BallStore shared with other handles
     
     @Test
     public void testName() {
@@ -118,4 +119,22 @@ public class BallTest {
         ball.friction(0.25, 0.05,1);
         assertEquals("expected changed velocity", expected, ball.getVelocity());
     }
+    
+    @Test
+    public void testHandleSharesStore() {
+        BallStore store = new BallStore(1);
+        store.add("first", 2, 3, 0, 0);
+        int index = store.add("second", 10, 10, 1, -1);
+        Ball ball = new Ball(store, index);
+        Ball sameBall = new Ball(store, index);
+        assertEquals("expected name from store", "second", ball.name());
+        
+        ball.setCenter(4.5, 6.5);
+        ball.setVelocity(0, 0);
+        ball.setActive(false);
+        assertEquals("expected center updated in store", 4.5, store.x(index), 0);
+        assertEquals("expected other handle to see new center", new Vect(4.5, 6.5), sameBall.getCenter());
+        assertFalse("expected other handle to see new status", sameBall.isActive());
+        assertTrue("expected other ball unchanged", store.isActive(0));
+    }
 }
@@ -0,0 +1,57 @@
+package flingball;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+/**
+ * Benchmark of how the simulations per second of a BatchSimulator scale with the number of cores.
+ * Run from the project root; not a JUnit test.
+ */
+public class BatchBenchmark {
+
+    private static final String BOARD = "boards/absorber.fb";
+    private static final long VARIANTS = 2_000;
+    private static final double SECONDS = 10;
+
+    /**
+     * Print the simulations per second of a batch of variants of BOARD 
+     * on 1, 2, 4, ... up to the number of available cores.
+     * @param args command line arguments, not used
+     * @throws IOException if the board file can't be read
+     * @throws UnableToParseException if the board file can't be parsed
+     */
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        final Game board = FlingballParser.parse(new String(Files.readAllBytes(Paths.get(BOARD)), StandardCharsets.UTF_8));
+        final BatchSimulator batch = new BatchSimulator(board, BatchSimulator.jitter(board, 2, 5));
+        final int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int parallelism = 1; ; parallelism = Math.min(2*parallelism, cores)) {
+            final ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                batch.setPool(pool);
+                // warm up, then measure
+                batch.run(VARIANTS / 10, SECONDS, 1, Collectors.counting());
+                final long start = System.nanoTime();
+                final double absorbed = batch.run(VARIANTS, SECONDS, 2, 
+                        Collectors.averagingInt(result -> result.heldBalls().values().stream().mapToInt(n -> n).sum()));
+                final double perSecond = VARIANTS / ((System.nanoTime() - start) * 1e-9);
+                if (parallelism == 1) {
+                    single = perSecond;
+                }
+                System.out.printf("%2d workers %10.0f simulations/sec  %5.2fx  (%.2f balls absorbed on average)%n",
+                        parallelism, perSecond, perSecond / single, absorbed);
+            } finally {
+                pool.shutdown();
+            }
+            if (parallelism == cores) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+
+public class BatchSimulatorTest {
+    // Testing strategy for BatchSimulator
+    //   Partition the inputs as follows:
+    //     variants: 0, 1, many
+    //     pool: one worker, several workers
+    //     board: balls falling into an absorber, balls bouncing off bumpers
+    //     engine of the template: FIXED_STEP, PARALLEL_FIXED_STEP
+    //   Check that every variant is simulated once, that results don't depend on the pool,
+    //   that absorber counts are reported, that the template is left alone,
+    //   and that variants with the parallel engine finish in the batch's pool, however few its workers.
+
+    private static final double SECONDS = 5;
+
+    /**
+     * @return a board with an absorber across the bottom and three balls above it
+     */
+    private static Game makeAbsorberBoard() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball1", 5, 5, 0, 0));
+        balls.add(new Ball("ball2", 10, 5, 0, 0));
+        balls.add(new Ball("ball3", 15, 5, 0, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 19, 20, 1));
+        gadgets.add(new CircleBumper("circle", 9, 10));
+        return new Game("absorber board", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+    }
+
+    /**
+     * @param batch to run
+     * @param variants number of variants
+     * @param workers number of threads in the pool
+     * @return results of the variants, by variant number
+     */
+    private static Map<Long, BatchSimulator.Result> runAll(BatchSimulator batch, long variants, int workers) {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            batch.setPool(pool);
+            return batch.run(variants, SECONDS, 6031, 
+                    Collectors.toMap(BatchSimulator.Result::variant, result -> result));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // covers 0 and 1 variants, one worker
+    @Test
+    public void testFewVariants() {
+        Game board = makeAbsorberBoard();
+        BatchSimulator batch = new BatchSimulator(board, BatchSimulator.jitter(board, 1, 1));
+        assertEquals("expected no results", 0, runAll(batch, 0, 1).size());
+        Map<Long, BatchSimulator.Result> results = runAll(batch, 1, 1);
+        assertEquals("expected one result", 1, results.size());
+        assertTrue("expected variant 0", results.containsKey(0L));
+    }
+
+    // covers many variants, several workers, balls falling into an absorber
+    @Test
+    public void testAbsorberCounts() {
+        Game board = makeAbsorberBoard();
+        BatchSimulator batch = new BatchSimulator(board, BatchSimulator.jitter(board, 2, 2));
+        Map<Long, BatchSimulator.Result> results = runAll(batch, 50, 4);
+        assertEquals("expected every variant", 50, results.size());
+        for (BatchSimulator.Result result : results.values()) {
+            assertEquals("expected all balls absorbed in " + result, 3, (int) result.heldBalls().get("absorber"));
+        }
+        // the template is not run
+        assertEquals("expected template's balls untouched", makeAbsorberBoard().balls(), board.balls());
+        assertEquals("expected template's absorber empty", 0, (int) board.heldBalls().get("absorber"));
+    }
+
+    // covers balls bouncing off bumpers, one worker and several workers
+    @Test
+    public void testResultsIndependentOfPool() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 10, 2, 3, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 10, 10));
+        gadgets.add(new TriangleBumper("triangle", 5, 15, 0));
+        Game board = new Game("bumpers", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+        BatchSimulator batch = new BatchSimulator(board, BatchSimulator.jitter(board, 3, 5));
+        Map<Long, BatchSimulator.Result> sequential = runAll(batch, 20, 1);
+        Map<Long, BatchSimulator.Result> parallel = runAll(batch, 20, 4);
+        for (long variant = 0; variant < 20; variant++) {
+            assertEquals("expected same balls for variant " + variant, 
+                    sequential.get(variant).balls(), parallel.get(variant).balls());
+        }
+    }
+
+    // covers many variants, one worker and several workers, PARALLEL_FIXED_STEP
+    @Test(timeout = 60_000)
+    public void testParallelEngineVariants() {
+        // enough balls to split every timestep across several parallel tasks
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            balls.add(new Ball("ball" + i, 0.5 + (i % 38) * 0.5, 0.5 + (i / 38) * 0.5, (i % 7) - 3, 0));
+        }
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 19, 20, 1));
+        Game board = new Game("crowded", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+        BatchSimulator sequential = new BatchSimulator(board, BatchSimulator.jitter(board, 0.1, 1));
+        board.setEngine(Game.Engine.PARALLEL_FIXED_STEP);
+        BatchSimulator parallel = new BatchSimulator(board, BatchSimulator.jitter(board, 0.1, 1));
+        Map<Long, BatchSimulator.Result> expected = runAll(sequential, 8, 1);
+        assertEquals("expected every variant", 8, expected.size());
+        // every worker runs a variant whose timesteps are spread over the same workers
+        for (int workers : new int[] { 1, 4 }) {
+            Map<Long, BatchSimulator.Result> results = runAll(parallel, 8, workers);
+            for (long variant = 0; variant < 8; variant++) {
+                assertEquals(workers + " workers: expected same balls for variant " + variant,
+                        expected.get(variant).balls(), results.get(variant).balls());
+            }
+        }
+    }
+}
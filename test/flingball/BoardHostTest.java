@@ -0,0 +1,119 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+
+public class BoardHostTest {
+    // Testing strategy for BoardHost
+    //   Partition the inputs as follows:
+    //     carriers: one, several
+    //     games hosted: one, more than carriers
+    //     state changes: start, pause, start again, stop, start after stop
+    //     game: balls moving, every ball held by an absorber until an action
+    //   Check that running games advance, paused and stopped games don't, 
+    //   and that a quiescent game waits for an action.
+
+    /**
+     * Wait until a condition holds, checking it every few milliseconds.
+     * @param condition to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * @return a new game of default.fb
+     */
+    private static Game parseDefault() throws IOException, UnableToParseException {
+        return FlingballParser.parse(new String(Files.readAllBytes(Paths.get("boards/default.fb")), 
+                                                StandardCharsets.UTF_8));
+    }
+
+    // covers one carrier, one game, balls moving, start, pause, start again, stop, start after stop
+    @Test(timeout = 10_000)
+    public void testStartPauseStop() throws IOException, UnableToParseException, InterruptedException {
+        BoardHost host = new BoardHost(1);
+        try {
+            BoardHost.Handle handle = host.host(parseDefault());
+            Game game = handle.game();
+            assertEquals("expected paused", BoardHost.State.PAUSED, handle.state());
+            Thread.sleep(150);
+            assertEquals("expected no ticks while paused", 0, game.metrics().ticks());
+
+            handle.start();
+            waitUntil(() -> game.metrics().ticks() >= 3);
+            handle.pause();
+            // let a sweep in progress finish
+            Thread.sleep(100);
+            long paused = game.metrics().ticks();
+            Thread.sleep(200);
+            assertEquals("expected no ticks after pause", paused, game.metrics().ticks());
+
+            handle.start();
+            waitUntil(() -> game.metrics().ticks() >= paused + 3);
+            handle.stop();
+            assertEquals("expected stopped", BoardHost.State.STOPPED, handle.state());
+            assertEquals("expected no hosted games", 0, host.size());
+            try {
+                handle.start();
+                assertTrue("expected stopped game not to start", false);
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        } finally {
+            host.shutdown();
+        }
+    }
+
+    // covers several carriers, more games than carriers, every ball held by an absorber
+    @Test(timeout = 10_000)
+    public void testQuiescentGameWaitsForAction() throws IOException, UnableToParseException, InterruptedException {
+        BoardHost host = new BoardHost(3);
+        try {
+            List<BoardHost.Handle> handles = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                handles.add(host.host(parseDefault()));
+            }
+            List<Ball> balls = new ArrayList<>();
+            balls.add(new Ball("ball", 10, 17, 0, 0));
+            List<Gadget> gadgets = new ArrayList<>();
+            gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+            Game held = new Game("held", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+            BoardHost.Handle heldHandle = host.host(held);
+            assertEquals("expected every game hosted", 8, host.size());
+            for (BoardHost.Handle handle : handles) {
+                handle.start();
+            }
+            heldHandle.start();
+
+            waitUntil(() -> held.isQuiescent());
+            long ticks = held.metrics().ticks();
+            waitUntil(() -> handles.get(6).game().metrics().ticks() >= ticks + 5);
+            assertEquals("expected no ticks while quiescent", ticks, held.metrics().ticks());
+            held.action("absorber");
+            waitUntil(() -> held.metrics().ticks() > ticks);
+            for (BoardHost.Handle handle : handles) {
+                assertTrue("expected every game to advance", handle.game().metrics().ticks() > 0);
+            }
+        } finally {
+            host.shutdown();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import physics.Circle;
+import physics.LineSegment;
+import physics.Physics;
+import physics.Vect;
+
+
+public class CollisionsTest {
+    // Testing strategy for Collisions and GeometryArena
+    //   Compare every kernel against physics.Physics, as physics.PhysicsCompareImpls does
+    //   for its own implementations: equal within TOLERANCE, or both infinite.
+    //   Partition the inputs as follows:
+    //     segment: horizontal, vertical; end points in increasing, decreasing order
+    //     ball: moving toward, away from, parallel to the segment or point;
+    //       misses it; overlaps it now
+    //     point: hit head on, hit off center, missed
+    //     two balls: approaching, moving apart, missing each other, overlapping now;
+    //       bounce off each other as physics.Physics predicts
+    //     collision query: hits an edge, hits a corner, misses;
+    //       ball hits at the same time as physics.Physics predicts, bounces off as it predicts
+    //     arena: square, circle and triangle bumpers, absorber, wall;
+    //       ball within reach of the gadget before the limit, out of reach
+    //   Random cases cover the partitions in bulk; hand-picked cases cover each one explicitly.
+
+    private static final double TOLERANCE = 1e-9;
+    private static final int RANDOM_CASES = 20_000;
+    private static final double RADIUS = Ball.BALL_RADIUS;
+
+    /**
+     * Assert that a kernel agrees with physics.Physics.
+     * @param message describing the case
+     * @param expected time computed by physics.Physics
+     * @param actual time computed by the kernel
+     */
+    private static void assertSameTime(String message, double expected, double actual) {
+        if (Double.isInfinite(expected) || Double.isInfinite(actual)) {
+            assertEquals(message, expected, actual, 0);
+        } else {
+            assertEquals(message, expected, actual, TOLERANCE);
+        }
+    }
+
+    private static double physicsWallTime(double x1, double y1, double x2, double y2,
+                                          double a, double b, double va, double vb) {
+        return Physics.timeUntilWallCollision(new LineSegment(x1, y1, x2, y2),
+                new Circle(a, b, RADIUS), new Vect(va, vb));
+    }
+
+    private static double physicsPointTime(double x, double y, double a, double b, double va, double vb) {
+        return Physics.timeUntilCircleCollision(new Circle(x, y, 0), new Circle(a, b, RADIUS), new Vect(va, vb));
+    }
+
+    // covers horizontal segment, increasing and decreasing order, every ball motion
+    @Test
+    public void testHorizontalRandom() {
+        Random random = new Random(1);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            double x1 = random.nextInt(20);
+            double x2 = random.nextBoolean() ? x1 + 1 + random.nextInt(3) : x1 - 1 - random.nextInt(3);
+            double y = random.nextInt(21);
+            // keep the ball close to the segment so that hits and overlaps are common
+            double a = x1 + random.nextDouble()*6 - 3;
+            double b = y + random.nextDouble()*4 - 2;
+            double va = random.nextDouble()*100 - 50;
+            double vb = random.nextDouble()*100 - 50;
+            assertSameTime("horizontal case " + i, physicsWallTime(x1, y, x2, y, a, b, va, vb),
+                    Collisions.timeUntilHorizontalWallCollision(x1, x2, y, a, b, RADIUS, va, vb));
+        }
+    }
+
+    // covers vertical segment, increasing and decreasing order, every ball motion
+    @Test
+    public void testVerticalRandom() {
+        Random random = new Random(2);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            double y1 = random.nextInt(20);
+            double y2 = random.nextBoolean() ? y1 + 1 + random.nextInt(3) : y1 - 1 - random.nextInt(3);
+            double x = random.nextInt(21);
+            double a = x + random.nextDouble()*4 - 2;
+            double b = y1 + random.nextDouble()*6 - 3;
+            double va = random.nextDouble()*100 - 50;
+            double vb = random.nextDouble()*100 - 50;
+            assertSameTime("vertical case " + i, physicsWallTime(x, y1, x, y2, a, b, va, vb),
+                    Collisions.timeUntilVerticalWallCollision(x, y1, y2, a, b, RADIUS, va, vb));
+        }
+    }
+
+    // covers point hit head on, off center, missed, overlapping
+    @Test
+    public void testPointRandom() {
+        Random random = new Random(3);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            double x = random.nextInt(21);
+            double y = random.nextInt(21);
+            double a = x + random.nextDouble()*4 - 2;
+            double b = y + random.nextDouble()*4 - 2;
+            double va = random.nextDouble()*100 - 50;
+            double vb = random.nextDouble()*100 - 50;
+            assertSameTime("point case " + i, physicsPointTime(x, y, a, b, va, vb),
+                    Collisions.timeUntilPointCollision(x, y, a, b, RADIUS, va, vb));
+        }
+    }
+
+    // covers two balls approaching, moving apart, missing, overlapping
+    @Test
+    public void testBallBallRandom() {
+        Random random = new Random(5);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            double x1 = random.nextDouble()*4;
+            double y1 = random.nextDouble()*4;
+            double x2 = random.nextDouble()*4;
+            double y2 = random.nextDouble()*4;
+            Vect v1 = new Vect(random.nextDouble()*100 - 50, random.nextDouble()*100 - 50);
+            Vect v2 = new Vect(random.nextDouble()*100 - 50, random.nextDouble()*100 - 50);
+            double expected = Physics.timeUntilBallBallCollision(new Circle(x1, y1, RADIUS), v1, 
+                    new Circle(x2, y2, RADIUS), v2);
+            assertSameTime("ball case " + i, expected, Collisions.timeUntilBallBallCollision(
+                    x1, y1, v1.x(), v1.y(), x2, y2, v2.x(), v2.y(), RADIUS));
+        }
+    }
+
+    // covers two balls bounce off each other as physics.Physics predicts
+    @Test
+    public void testReflectBallsRandom() {
+        Random random = new Random(6);
+        double[] result = new double[4];
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            // place the balls touching, as at the moment of impact
+            double angle = random.nextDouble()*2*Math.PI;
+            Vect center1 = new Vect(random.nextDouble()*20, random.nextDouble()*20);
+            Vect center2 = center1.plus(new Vect(Math.cos(angle), Math.sin(angle)).times(2*RADIUS));
+            Vect v1 = new Vect(random.nextDouble()*100 - 50, random.nextDouble()*100 - 50);
+            Vect v2 = new Vect(random.nextDouble()*100 - 50, random.nextDouble()*100 - 50);
+            Physics.VectPair expected = Physics.reflectBalls(center1, 1, v1, center2, 1, v2);
+            Collisions.reflectBalls(center1.x(), center1.y(), v1.x(), v1.y(), 
+                    center2.x(), center2.y(), v2.x(), v2.y(), result);
+            assertEquals("reflect case " + i, expected.v1.x(), result[0], TOLERANCE);
+            assertEquals("reflect case " + i, expected.v1.y(), result[1], TOLERANCE);
+            assertEquals("reflect case " + i, expected.v2.x(), result[2], TOLERANCE);
+            assertEquals("reflect case " + i, expected.v2.y(), result[3], TOLERANCE);
+        }
+    }
+
+    // covers two balls approaching head on, moving apart, overlapping now
+    @Test
+    public void testBallBall() {
+        assertEquals("expected hit after 1.5 / 20", 0.075, 
+                Collisions.timeUntilBallBallCollision(1, 1, 10, 0, 3, 1, -10, 0, RADIUS), TOLERANCE);
+        assertEquals("expected no hit moving apart", Double.POSITIVE_INFINITY, 
+                Collisions.timeUntilBallBallCollision(1, 1, -10, 0, 3, 1, 10, 0, RADIUS), 0);
+        assertEquals("expected immediate hit while overlapping", 0, 
+                Collisions.timeUntilBallBallCollision(1, 1, 10, 0, 1.25, 1, 0, 0, RADIUS), 0);
+    }
+
+    // covers horizontal segment, ball moving toward it, increasing and decreasing order
+    @Test
+    public void testHorizontalHit() {
+        assertEquals("expected hit after 0.75 / 10", 0.075,
+                Collisions.timeUntilHorizontalWallCollision(0, 2, 5, 1, 4, RADIUS, 0, 10), TOLERANCE);
+        assertEquals("expected hit after 0.75 / 10", 0.075,
+                Collisions.timeUntilHorizontalWallCollision(2, 0, 5, 1, 6, RADIUS, 0, -10), TOLERANCE);
+    }
+
+    // covers horizontal segment, ball moving parallel, away, missing
+    @Test
+    public void testHorizontalNoHit() {
+        assertEquals("expected no hit moving parallel", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilHorizontalWallCollision(0, 2, 5, 1, 4, RADIUS, 10, 0), 0);
+        assertEquals("expected no hit moving away", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilHorizontalWallCollision(0, 2, 5, 1, 4, RADIUS, 0, -10), 0);
+        assertEquals("expected no hit passing the end", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilHorizontalWallCollision(0, 2, 5, 3, 4, RADIUS, 0, 10), 0);
+    }
+
+    // covers vertical segment, ball overlapping it now
+    @Test
+    public void testVerticalOverlap() {
+        double a = 5.1;
+        double b = 1;
+        assertEquals("expected immediate hit moving toward",
+                physicsWallTime(5, 0, 5, 2, a, b, -10, 0),
+                Collisions.timeUntilVerticalWallCollision(5, 0, 2, a, b, RADIUS, -10, 0), 0);
+        assertEquals("expected no hit moving away", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilVerticalWallCollision(5, 0, 2, a, b, RADIUS, 10, 0), 0);
+    }
+
+    // covers point hit head on, missed, ball moving away
+    @Test
+    public void testPoint() {
+        assertEquals("expected hit after 0.75 / 10", 0.075,
+                Collisions.timeUntilPointCollision(5, 5, 4, 5, RADIUS, 10, 0), TOLERANCE);
+        assertEquals("expected miss", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilPointCollision(5, 5, 4, 6, RADIUS, 10, 0), 0);
+        assertEquals("expected no hit moving away", Double.POSITIVE_INFINITY,
+                Collisions.timeUntilPointCollision(5, 5, 4, 5, RADIUS, -10, 0), 0);
+    }
+
+    // covers collision query hits an edge, bounces off as physics.Physics predicts
+    @Test
+    public void testCollisionEdge() {
+        SquareBumper square = new SquareBumper("square", 3, 3);
+        Ball ball = new Ball("ball", 3.5, 1, 1, 10);
+        Collision contact = new Collision();
+        square.collision(ball, contact);
+        assertEquals("expected same time as physics", square.timeUntilCollision(ball), contact.time(), TOLERANCE);
+        assertEquals("expected top edge", 1, contact.feature());
+        Vect expected = square.velocityAfterCollision(ball);
+        assertEquals("expected same velocity as physics", expected.x(), contact.xVelocity(), TOLERANCE);
+        assertEquals("expected same velocity as physics", expected.y(), contact.yVelocity(), TOLERANCE);
+    }
+
+    // covers collision query hits a corner
+    @Test
+    public void testCollisionCorner() {
+        SquareBumper square = new SquareBumper("square", 3, 3);
+        // heading straight for the top left corner along the diagonal
+        Ball ball = new Ball("ball", 2, 2, 1, 1);
+        Collision contact = new Collision();
+        square.collision(ball, contact);
+        assertEquals("expected same time as physics", square.timeUntilCollision(ball), contact.time(), TOLERANCE);
+        assertEquals("expected top left corner", 4 + 2, contact.feature());
+        assertEquals("expected to bounce straight back", -1, contact.xVelocity(), TOLERANCE);
+        assertEquals("expected to bounce straight back", -1, contact.yVelocity(), TOLERANCE);
+    }
+
+    // covers collision query misses
+    @Test
+    public void testCollisionMiss() {
+        CircleBumper circle = new CircleBumper("circle", 10, 10);
+        Ball ball = new Ball("ball", 2, 2, -1, 0);
+        Collision contact = new Collision();
+        contact.set(1, 0, 1, 1);
+        circle.collision(ball, contact);
+        assertEquals("expected no collision", Double.POSITIVE_INFINITY, contact.time(), 0);
+        assertEquals("expected no feature", -1, contact.feature());
+    }
+
+    // covers every gadget type, ball within reach and out of reach of the gadget
+    @Test
+    public void testArenaMatchesGadgets() {
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 3, 3));
+        gadgets.add(new CircleBumper("circle", 10, 10));
+        gadgets.add(new TriangleBumper("triangle", 6, 12, 90));
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        gadgets.add(new Wall("top", 0, 0, 20, 0));
+        GeometryArena arena = new GeometryArena(gadgets);
+        assertEquals("expected all gadgets in arena", gadgets.size(), arena.gadgetCount());
+
+        final double limit = 1;
+        Random random = new Random(4);
+        for (int i = 0; i < RANDOM_CASES; i++) {
+            int g = random.nextInt(gadgets.size());
+            Ball ball = new Ball("ball", 0.25 + random.nextDouble()*19.5, 0.25 + random.nextDouble()*19.5,
+                                 random.nextDouble()*40 - 20, random.nextDouble()*40 - 20);
+            double expectedTime = gadgets.get(g).timeUntilCollision(ball);
+            Collision expected = new Collision();
+            gadgets.get(g).collision(ball, expected);
+            Collision actual = new Collision();
+            arena.collision(g, ball.x(), ball.y(), ball.xVelocity(), ball.yVelocity(), limit, actual);
+            if (expectedTime < limit) {
+                assertEquals("arena case " + i, expectedTime, actual.time(), TOLERANCE);
+                assertEquals("arena case " + i, expected.time(), actual.time(), TOLERANCE);
+                assertEquals("arena case " + i, expected.feature(), actual.feature());
+                assertEquals("arena case " + i, expected.xVelocity(), actual.xVelocity(), TOLERANCE);
+                assertEquals("arena case " + i, expected.yVelocity(), actual.yVelocity(), TOLERANCE);
+            } else {
+                assertTrue("arena case " + i + " expected no hit before limit, got " + actual, actual.time() >= limit);
+            }
+        }
+    }
+}
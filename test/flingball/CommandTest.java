@@ -0,0 +1,168 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+public class CommandTest {
+    // Testing strategy for Command and Game.post()
+    //   Partition the inputs as follows:
+    //     command: add ball, remove ball, action, key down, key up, set gravity, set friction, pause, resume
+    //     outcome: carried out, rejected (duplicate ball, unknown ball, unknown gadget)
+    //     ball removed: moving, held by an absorber; its place reused by a later ball
+    //     constants changed: with a ball asleep, with every ball awake
+    //     game: ticked on the posting thread, running and parked on another thread
+    //   Check that commands take effect at the next timestep and not before, in the order posted,
+    //   and that a parked game wakes up to carry them out
+
+    /**
+     * @return a game with no gravity and friction, one ball moving right and an absorber along the bottom
+     */
+    private static Game game() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("mover", 2, 2, 1, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Map<String, String> interactions = new HashMap<>();
+        return new Game("commands", 0f, 0f, 0f, balls, gadgets, interactions);
+    }
+
+    // covers add ball, remove moving ball, place reused, carried out, rejected duplicate and unknown ball
+    @Test
+    public void testAddAndRemoveBalls() {
+        Game game = game();
+        game.post(Command.addBall(new Ball("added", 10, 10, 0, 1)));
+        assertEquals("expected no change before the next timestep", 1, game.balls().size());
+        game.tick();
+        assertEquals("expected ball added", 2, game.balls().size());
+        assertTrue("expected added ball to move", game.balls().get("added").y() > 10);
+
+        game.post(Command.addBall(new Ball("added", 5, 5, 0, 0)));
+        game.post(Command.removeBall("mover"));
+        game.post(Command.removeBall("mover"));
+        game.tick();
+        assertEquals("expected one ball left", 1, game.balls().size());
+        assertFalse("expected ball removed", game.balls().containsKey("mover"));
+        assertEquals("expected two commands rejected", 2, game.metrics().rejectedCommands());
+
+        game.post(Command.addBall(new Ball("another", 3, 3, 0, 0)));
+        game.post(Command.addBall(new Ball("third", 4, 4, 0, 0)));
+        game.tick();
+        assertEquals("expected balls added", 3, game.balls().size());
+        assertEquals("expected balls in snapshot", 3, game.snapshot().ballCount());
+        assertEquals("expected commands carried out", 4, game.metrics().commands());
+    }
+
+    // covers remove held ball, action, rejected unknown gadget
+    @Test
+    public void testRemoveHeldBall() {
+        Game game = game();
+        game.post(Command.addBall(new Ball("falling", 10, 17, 0, 10)));
+        for (int i = 0; i < 10; i++) {
+            game.tick();
+        }
+        assertEquals("expected ball held", 1, (int) game.heldBalls().get("absorber"));
+        game.post(Command.removeBall("falling"));
+        game.post(Command.action("absorber"));
+        game.post(Command.action("nowhere"));
+        game.tick();
+        assertEquals("expected ball released and removed", 0, (int) game.heldBalls().get("absorber"));
+        assertFalse("expected ball removed", game.balls().containsKey("falling"));
+        assertEquals("expected unknown gadget rejected", 1, game.metrics().rejectedCommands());
+    }
+
+    // covers set gravity, set friction, pause, resume, constants changed with a ball asleep and with none
+    @Test
+    public void testConstantsAndPause() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("resting", 5, 19.75, 0, 0));
+        Game floor = new Game("floor", 25f, 0.025f, 0.025f, balls, new ArrayList<>(), new HashMap<>());
+        for (int i = 0; i < 40; i++) {
+            floor.tick();
+        }
+        assertTrue("expected resting ball asleep", floor.isQuiescent());
+        final double restingY = floor.balls().get("resting").y();
+        floor.post(Command.setGravity(-25f));
+        floor.tick();
+        assertFalse("expected new gravity to wake the ball", floor.isQuiescent());
+        for (int i = 0; i < 10; i++) {
+            floor.tick();
+        }
+        assertTrue("expected ball to rise", floor.balls().get("resting").y() < restingY - 1);
+        floor.post(Command.setGravity(25f));
+        floor.post(Command.setFriction(1f, 1f));
+        floor.tick();
+        assertEquals("expected changed constants to wake no sleeping ball", 1, floor.metrics().ballsWoken());
+
+        Game game = game();
+        game.post(Command.setGravity(10f));
+        game.post(Command.setFriction(0.5f, 0.5f));
+        game.tick();
+        assertEquals("expected gravity set", 10f, game.gravity(), 0);
+        assertEquals("expected friction set", 0.5f, game.friction2(), 0);
+
+        game.post(Command.pause());
+        game.tick();
+        Ball paused = game.balls().get("mover");
+        assertTrue("expected paused game quiescent", game.isQuiescent());
+        game.tick();
+        assertEquals("expected no movement while paused", paused, game.balls().get("mover"));
+
+        game.post(Command.resume());
+        assertFalse("expected waiting command to wake the game", game.isQuiescent());
+        game.tick();
+        assertTrue("expected movement once resumed", game.balls().get("mover").x() > paused.x());
+    }
+
+    // covers key down, key up
+    @Test
+    public void testKeys() throws UnableToParseException {
+        Game game = FlingballParser.parse("board name=Keys gravity=25.0\n"
+                + "ball name=Ball x=10 y=17 xVelocity=0 yVelocity=10\n"
+                + "absorber name=Abs x=0 y=18 width=20 height=2\n"
+                + "keydown key=space action=Abs\n"
+                + "keyup key=a action=Abs\n");
+        for (int i = 0; i < 10; i++) {
+            game.tick();
+        }
+        assertEquals("expected ball held", 1, (int) game.heldBalls().get("Abs"));
+        game.post(Command.keyUp("space"));
+        game.tick();
+        assertEquals("expected nothing bound to releasing space", 1, (int) game.heldBalls().get("Abs"));
+        game.post(Command.keyDown("space"));
+        game.tick();
+        assertEquals("expected ball fired", 0, (int) game.heldBalls().get("Abs"));
+    }
+
+    // covers running and parked on another thread
+    @Test(timeout = 10_000)
+    public void testPostWakesParkedGame() throws InterruptedException {
+        Game game = game();
+        game.post(Command.pause());
+        Thread runner = new Thread(game::run);
+        runner.start();
+        try {
+            // once paused, the game parks; give it time to do so
+            while (game.metrics().commands() == 0) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            game.post(Command.resume());
+            while (game.snapshot().x(0) <= 2) {
+                Thread.sleep(5);
+            }
+        } finally {
+            runner.interrupt();
+            runner.join();
+        }
+    }
+}
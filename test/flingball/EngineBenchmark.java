@@ -0,0 +1,80 @@
+package flingball;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+/**
+ * Benchmark comparing the timesteps per second of the Game engines.
+ * Run from the project root; not a JUnit test.
+ */
+public class EngineBenchmark {
+
+    private static final String[] BOARDS = { "boards/default.fb", "boards/absorber.fb" };
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 200_000;
+
+    /**
+     * Make a collision-heavy board: a checkerboard of bumpers over most of the playing area,
+     * with a moving ball in every other free cell.
+     * @return board in the Flingball grammar
+     */
+    static String denseBoard() {
+        final String[] bumpers = { "squareBumper", "circleBumper", "triangleBumper" };
+        final int firstRow = 2;
+        final int lastRow = 19;
+        final double maxSpeed = 20;
+        final Random random = new Random(6031);
+        StringBuilder board = new StringBuilder("board name=Dense gravity = 25.0\n");
+        int ballCount = 0;
+        for (int y = firstRow; y <= lastRow; y++) {
+            for (int x = 0; x < 20; x++) {
+                if ((x + y) % 2 == 0) {
+                    board.append(bumpers[(x/2 + y) % bumpers.length] + " name=G" + x + "_" + y 
+                            + " x=" + x + " y=" + y + "\n");
+                } else if (x % 2 == 1) {
+                    board.append("ball name=B" + ballCount++ + " x=" + (x + 0.5) + " y=" + (y + 0.5)
+                            + " xVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed 
+                            + " yVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed + "\n");
+                }
+            }
+        }
+        return board.toString();
+    }
+
+    /**
+     * Print the timesteps per second of every engine on every benchmark board.
+     * @param args command line arguments, not used
+     * @throws IOException if a board file can't be read
+     * @throws UnableToParseException if a board file can't be parsed
+     */
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        final Map<String, String> boards = new LinkedHashMap<>();
+        for (String board : BOARDS) {
+            boards.put(board, new String(Files.readAllBytes(Paths.get(board)), StandardCharsets.UTF_8));
+        }
+        boards.put("dense (generated)", denseBoard());
+        for (String board : boards.keySet()) {
+            final String content = boards.get(board);
+            for (Game.Engine engine : Game.Engine.values()) {
+                final Game game = FlingballParser.parse(content);
+                game.setEngine(engine);
+                for (int i = 0; i < WARMUP_TICKS; i++) {
+                    game.tick();
+                }
+                final long start = System.nanoTime();
+                for (int i = 0; i < MEASURED_TICKS; i++) {
+                    game.tick();
+                }
+                final double seconds = (System.nanoTime() - start) * 1e-9;
+                System.out.printf("%-20s %-12s %12.0f ticks/sec%n", board, engine, MEASURED_TICKS / seconds);
+            }
+        }
+    }
+}
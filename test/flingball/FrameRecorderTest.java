@@ -0,0 +1,111 @@
+package flingball;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FrameRecorderTest {
+    // Testing strategy for FrameRecorder
+    //   Partition the inputs as follows:
+    //     pixels per L: 1, > 1
+    //     encoder threads: 1, > 1
+    //     frames: 0, 1, more than the encoder threads hold at once
+    //     output: PNG files, raw RGB stream
+    //     frame: background, ball, bumper not hit, bumper hit since the last frame
+    //   Check the size, number and order of the frames, and the colors of chosen pixels
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * @return a game with one ball falling onto a square bumper, with no gravity
+     */
+    private static Game game() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 5.5, 2.5, 0, 10));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 5, 5));
+        Map<String, String> interactions = new HashMap<>();
+        return new Game("recorded", 0f, 0f, 0f, balls, gadgets, interactions);
+    }
+
+    // covers pixels per L > 1, background, ball, bumper not hit, bumper hit
+    @Test
+    public void testRender() {
+        Game game = game();
+        FrameRecorder recorder = new FrameRecorder(game, 10, 1);
+        assertEquals("expected board size", 200, recorder.size());
+        BufferedImage first = recorder.render(game.snapshot(), 0);
+        assertEquals("expected frame size", 200, first.getWidth());
+        assertEquals("expected black background", Color.BLACK.getRGB(), first.getRGB(150, 150));
+        assertEquals("expected red bumper", Color.RED.getRGB(), first.getRGB(55, 55));
+        assertEquals("expected blue ball", Color.BLUE.getRGB(), first.getRGB(57, 27));
+
+        long before = game.snapshot().tick();
+        while (game.snapshot().lastHit(0) == 0) {
+            before = game.snapshot().tick();
+            game.tick();
+        }
+        BufferedImage hit = recorder.render(game.snapshot(), before);
+        assertEquals("expected highlighted bumper", Color.YELLOW.getRGB(), hit.getRGB(55, 55));
+        BufferedImage later = recorder.render(game.snapshot(), game.snapshot().tick());
+        assertEquals("expected bumper no longer highlighted", Color.RED.getRGB(), later.getRGB(55, 55));
+    }
+
+    // covers pixels per L 1, encoder threads > 1, more frames than held at once, raw RGB stream
+    @Test
+    public void testRecordRgb() throws IOException {
+        final int frames = 50;
+        Game game = game();
+        FrameRecorder recorder = new FrameRecorder(game, 1, 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        recorder.recordRgb(frames, out);
+        byte[] video = out.toByteArray();
+        assertEquals("expected every frame", frames * 20 * 20 * 3, video.length);
+        assertEquals("expected game advanced a timestep between frames", frames - 1, game.snapshot().tick());
+
+        // frames are in order: they match frames recorded one at a time from the same board
+        Game again = game();
+        FrameRecorder single = new FrameRecorder(again, 1, 1);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        single.recordRgb(frames, expected);
+        assertArrayEquals("expected same frames in the same order", expected.toByteArray(), video);
+    }
+
+    // covers encoder threads 1, frames 0 and 1, PNG files
+    @Test
+    public void testRecordPngs() throws IOException {
+        Game game = game();
+        FrameRecorder recorder = new FrameRecorder(game, FrameRecorder.DEFAULT_PIXELS_PER_L, 1);
+        File empty = folder.newFolder("empty");
+        recorder.recordPngs(0, empty.toPath());
+        assertEquals("expected no files", 0, empty.list().length);
+        assertEquals("expected game not advanced", 0, game.snapshot().tick());
+
+        File one = folder.newFolder("one");
+        recorder.recordPngs(1, one.toPath());
+        File png = new File(one, "frame00000.png");
+        assertTrue("expected first frame", png.exists());
+        assertFalse("expected one frame", new File(one, "frame00001.png").exists());
+        BufferedImage image = ImageIO.read(png);
+        assertEquals("expected frame size", 400, image.getWidth());
+        assertEquals("expected blue ball", Color.BLUE.getRGB(), image.getRGB(115, 55));
+    }
+}
@@ -34,6 +34,10 @@ public class GUITest {
     //           gadgets change color with hit/triggered (excluding Absorber and Wall)
     //           balls ejected with correct trigger
     //           balls reflect off gadgets (except Absorber)
+    //       rendering:
+    //           painted by Swing, rendered actively on its own thread (--active)
+    //           frame rate of the display, lower and higher than the tick rate (--fps)
+    //           balls move smoothly, title reports frame rate and render time when rendered actively
 
 
     @Test 
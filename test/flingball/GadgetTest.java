@@ -184,6 +184,77 @@ public class GadgetTest {
         assertEquals("expected same circle", expected, circle.getCircle());
     }
     
+    // covers Absorber
+    //     capacity reached, several balls fired per action
+    @Test
+    public void testAbsorberCapacityAndEjectRate() {
+        Absorber abs = new Absorber("absorber", 0, 10, 5, 5, 2, 2);
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            balls.add(new Ball("ball" + i, i, 9, 0, 5));
+        }
+        for (Ball ball : balls) {
+            assertTrue("expected collision", abs.trigger(ball, 1.0));
+        }
+        assertEquals("expected absorber full", 2, abs.heldCount());
+        assertTrue("expected ball beyond capacity to bounce off", balls.get(2).yVelocity() < 0);
+        assertTrue("expected ball beyond capacity active", balls.get(2).isActive());
+        
+        abs.action();
+        assertEquals("expected both balls fired at once", 0, abs.heldCount());
+        for (Ball ball : balls.subList(0, 2)) {
+            assertEquals("expected ball fired", -50, ball.yVelocity(), 0);
+            assertFalse("expected fired ball to pass through", abs.canCollide(ball));
+        }
+    }
+    
+    // covers Absorber
+    //     balls let go of while held: first, in the middle, last, not held; more balls held than at first
+    @Test
+    public void testAbsorberRelease() {
+        Absorber abs = new Absorber("absorber", 0, 10, 5, 5);
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            balls.add(new Ball("ball" + i, 1, 9, 0, 5));
+            assertTrue("expected collision", abs.trigger(balls.get(i), 1.0));
+        }
+        Ball stranger = new Ball("ball0", 1, 9, 0, 5);
+        abs.release(stranger);
+        abs.release(balls.get(0));
+        abs.release(balls.get(5));
+        abs.release(balls.get(9));
+        abs.release(balls.get(5));
+        assertEquals("expected balls let go of", 7, abs.heldCount());
+        for (int i = 10; i < 20; i++) {
+            balls.add(new Ball("ball" + i, 1, 9, 0, 5));
+            assertTrue("expected collision", abs.trigger(balls.get(i), 1.0));
+        }
+        assertEquals("expected more balls held", 17, abs.heldCount());
+        
+        List<Ball> fired = new ArrayList<>();
+        while (abs.heldCount() > 0) {
+            abs.action();
+            for (Ball ball : balls) {
+                if (ball.isActive() && !fired.contains(ball)) {
+                    fired.add(ball);
+                    // out of the absorber, so that it fires the next ball
+                    ball.setCenter(1, 1);
+                }
+            }
+        }
+        List<String> names = new ArrayList<>();
+        for (Ball ball : fired) {
+            names.add(ball.name());
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 1; i < 20; i++) {
+            if (i != 5 && i != 9) {
+                expected.add("ball" + i);
+            }
+        }
+        assertEquals("expected balls fired in the order captured", expected, names);
+    }
+    
     @Test
     public void testNameCircleBumper() {
         String expected = "circle";
@@ -0,0 +1,438 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+
+public class GameTest {
+    // Testing strategy for Game
+    //   Partition the inputs as follows:
+    //     board: default.fb; many balls, bumpers and absorbers with actions; two balls heading for each other;
+    //       a ball at rest, woken by another ball; a slow ball with nothing to stop it; 
+    //       a fast ball caught between a wall and a bumper;
+    //       every ball held by an absorber;
+    //       one board shared by several games
+    //     timesteps due in real time: a few, more than can be caught up
+    //     triggers: two balls triggering the same action in one timestep; interaction with an unknown gadget;
+    //       an absorber triggering itself, recapturing the ball it fired
+    //     timesteps: steady state after warm-up
+    //     engine: FIXED_STEP, PARALLEL_FIXED_STEP, EVENT_DRIVEN
+    //     thread ticking a PARALLEL_FIXED_STEP game: outside its pool, a worker of its pool
+    //   Check that a timestep in steady state allocates no memory with either fixed-step engine,
+    //   that balls bounce off each other with every engine, that balls at rest fall asleep
+    //   and wake up when hit, that slow balls that aren't at rest don't, 
+    //   that a ball colliding too often in a timestep stops rather than passing through a gadget,
+    //   that a running quiescent game parks until an action,
+    //   that the parallel engine gives exactly the same game as the sequential one,
+    //   whether ticked from outside its pool or by the pool's own workers,
+    //   that games sharing a board play the same but keep their gadget state apart,
+    //   that a game catches up with real time by a bounded number of timesteps,
+    //   that actions triggered in one timestep are taken once, at its end,
+    //   and that an absorber tells the ball it fired from the balls it holds
+
+    private static final int WARMUP_TICKS = 1000;
+    private static final int MEASURED_TICKS = 10_000;
+    // allowance for the JVM itself, e.g. deoptimization, far below one object per timestep
+    private static final long MAX_ALLOCATED_BYTES = 16 * 1024;
+
+    // covers default.fb, many balls, steady state, FIXED_STEP, PARALLEL_FIXED_STEP
+    @Test
+    public void testTickAllocationFree() throws FileNotFoundException, UnableToParseException {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("per-thread allocation counting not available",
+                threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        for (int k = 0; k < 4; k++) {
+            Game.Engine engine = k % 2 == 0 ? Game.Engine.FIXED_STEP : Game.Engine.PARALLEL_FIXED_STEP;
+            // the crowded game splits its balls across several parallel tasks
+            Game game = k < 2 ? FlingballParser.parse(pathToString("boards/default.fb")) : makeCrowdedGame();
+            game.setEngine(engine);
+            ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                game.setPool(pool);
+                for (int i = 0; i < WARMUP_TICKS; i++) {
+                    game.tick();
+                }
+                // the parallel engine allocates on the pool's threads as well as this one
+                long before = allocatedBytes(allocations);
+                for (int i = 0; i < MEASURED_TICKS; i++) {
+                    game.tick();
+                }
+                long allocated = allocatedBytes(allocations) - before;
+                assertTrue(game.name() + ", " + engine + ": expected no allocation per timestep, allocated " + allocated + " bytes",
+                        allocated <= MAX_ALLOCATED_BYTES);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @param allocations counting the memory allocated by each thread
+     * @return bytes allocated so far by the threads now alive
+     */
+    private static long allocatedBytes(com.sun.management.ThreadMXBean allocations) {
+        long total = 0;
+        for (long bytes : allocations.getThreadAllocatedBytes(allocations.getAllThreadIds())) {
+            // -1 for a thread that has died since it was listed
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    /**
+     * @return a game with enough balls to split across several parallel tasks,
+     *         with absorbers that capture and eject balls
+     */
+    private static Game makeCrowdedGame() {
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            balls.add(new Ball("ball" + i, 0.5 + (i % 38) * 0.5, 0.5 + (i / 38) * 0.25,
+                               (i % 7) - 3, (i % 11) - 5));
+        }
+        List<Gadget> gadgets = new ArrayList<>();
+        for (int x = 1; x < 19; x += 3) {
+            gadgets.add(new SquareBumper("square" + x, x, 10));
+            gadgets.add(new CircleBumper("circle" + x, x + 1, 13));
+            gadgets.add(new TriangleBumper("triangle" + x, x, 15, 90));
+        }
+        gadgets.add(new Absorber("leftAbsorber", 0, 18, 10, 2));
+        gadgets.add(new Absorber("rightAbsorber", 10, 18, 10, 2));
+        Map<String, String> interactions = new HashMap<>();
+        interactions.put("leftAbsorber", "leftAbsorber");
+        interactions.put("rightAbsorber", "leftAbsorber");
+        interactions.put("circle7", "rightAbsorber");
+        return new Game("crowded", 25f, 0.025f, 0.025f, balls, gadgets, interactions);
+    }
+
+    // covers many balls, bumpers and absorbers with actions, PARALLEL_FIXED_STEP
+    @Test
+    public void testParallelMatchesSequential() {
+        final int ticks = 400;
+        Game sequential = makeCrowdedGame();
+        Game parallel = makeCrowdedGame();
+        parallel.setEngine(Game.Engine.PARALLEL_FIXED_STEP);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            parallel.setPool(pool);
+            for (int i = 0; i < ticks; i++) {
+                sequential.tick();
+                parallel.tick();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("expected same balls", sequential.balls(), parallel.balls());
+    }
+
+    // covers many balls, bumpers and absorbers with actions, PARALLEL_FIXED_STEP run by tasks in its own pool
+    @Test(timeout = 60_000)
+    public void testParallelOnPoolWorker() throws InterruptedException, ExecutionException {
+        final int ticks = 100;
+        Game sequential = makeCrowdedGame();
+        for (int i = 0; i < ticks; i++) {
+            sequential.tick();
+        }
+        for (int workers : new int[] { 1, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                // more games than workers, so that every worker ticks a game while its batches wait
+                List<Game> games = new ArrayList<>();
+                List<ForkJoinTask<?>> tasks = new ArrayList<>();
+                for (int k = 0; k <= workers; k++) {
+                    Game game = makeCrowdedGame();
+                    game.setEngine(Game.Engine.PARALLEL_FIXED_STEP);
+                    game.setPool(pool);
+                    games.add(game);
+                    tasks.add(pool.submit(() -> {
+                        for (int i = 0; i < ticks; i++) {
+                            game.tick();
+                        }
+                    }));
+                }
+                for (ForkJoinTask<?> task : tasks) {
+                    task.get();
+                }
+                for (Game game : games) {
+                    assertEquals(workers + " workers: expected same balls", sequential.balls(), game.balls());
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // covers two balls heading for each other, every engine
+    @Test
+    public void testBallsBounceOffEachOther() {
+        for (Game.Engine engine : Game.Engine.values()) {
+            List<Ball> balls = new ArrayList<>();
+            balls.add(new Ball("ball1", 5, 10, 10, 0));
+            balls.add(new Ball("ball2", 7, 10, -10, 0));
+            Game game = new Game("pair", 0f, 0f, 0f, balls, new ArrayList<>(), new HashMap<>());
+            game.setEngine(engine);
+            for (int i = 0; i < 4; i++) {
+                game.tick();
+            }
+            Map<String, Ball> after = game.balls();
+            assertTrue(engine + ": expected ball1 to bounce back, got " + after.get("ball1"), 
+                    after.get("ball1").xVelocity() < 0);
+            assertTrue(engine + ": expected ball2 to bounce back, got " + after.get("ball2"),
+                    after.get("ball2").xVelocity() > 0);
+            assertTrue(engine + ": expected balls not to pass through each other",
+                    after.get("ball1").x() < after.get("ball2").x());
+        }
+    }
+
+    // covers a ball at rest
+    @Test
+    public void testRestingBallSleeps() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("resting", 5, 19.75, 0, 0));
+        Game game = new Game("rest", 25f, 0.025f, 0.025f, balls, new ArrayList<>(), new HashMap<>());
+        for (int i = 0; i < 40; i++) {
+            game.tick();
+        }
+        assertTrue("expected quiescent game", game.isQuiescent());
+        assertEquals("expected one ball asleep", 1, game.metrics().ballsSlept());
+        assertTrue("expected idle timesteps", game.metrics().quiescentTicks() > 0);
+        assertEquals("expected ball to stay put", 5, game.balls().get("resting").x(), 0);
+    }
+
+    // covers a slow ball with nothing to stop it
+    @Test
+    public void testSlowBallKeepsMoving() {
+        for (Game.Engine engine : Game.Engine.values()) {
+            List<Ball> balls = new ArrayList<>();
+            balls.add(new Ball("slow", 5, 10, 0.08, 0));
+            Game game = new Game("slow", 0f, 0f, 0f, balls, new ArrayList<>(), new HashMap<>());
+            game.setEngine(engine);
+            // 5 seconds, long enough to drift several times REST_DISTANCE
+            for (int i = 0; i < 100; i++) {
+                game.tick();
+            }
+            assertEquals(engine + ": expected no ball asleep", 0, game.metrics().ballsSlept());
+            assertFalse(engine + ": expected game not quiescent", game.isQuiescent());
+            assertEquals(engine + ": expected ball to keep its speed", 0.08, 
+                    game.balls().get("slow").xVelocity(), 1e-9);
+            assertEquals(engine + ": expected ball to keep moving", 5.4, game.balls().get("slow").x(), 1e-6);
+        }
+    }
+
+    // covers a ball caught between a wall and a bumper, EVENT_DRIVEN
+    @Test
+    public void testCappedBallStaysInside() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("fast", 0.5, 10.5, 1000, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 1, 10));
+        Game game = new Game("capped", 0f, 0f, 0f, balls, gadgets, new HashMap<>());
+        game.setEngine(Game.Engine.EVENT_DRIVEN);
+        // the ball crosses its 0.5 L gap 100 times a timestep, far more collisions than a ball may have
+        for (int i = 0; i < 10; i++) {
+            game.tick();
+            final double x = game.balls().get("fast").x();
+            assertTrue("expected ball between the wall and the bumper, not at " + x, 
+                    x >= Ball.BALL_RADIUS - 1e-9 && x <= 1 - Ball.BALL_RADIUS + 1e-9);
+        }
+        assertTrue("expected capped balls counted", game.metrics().cappedBalls() >= 10);
+    }
+
+    // covers a ball at rest woken by another ball
+    @Test
+    public void testSleepingBallWoken() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("sleeper", 5, 10, 0, 0));
+        balls.add(new Ball("mover", 15, 10, -2, 0));
+        Game game = new Game("wake", 0f, 0f, 0f, balls, new ArrayList<>(), new HashMap<>());
+        // the mover reaches the sleeper after about 95 timesteps, and the sleeper reaches the wall after 140
+        for (int i = 0; i < 120; i++) {
+            game.tick();
+        }
+        Metrics metrics = game.metrics();
+        assertEquals("expected sleeper to be woken", 1, metrics.ballsWoken());
+        assertTrue("expected sleeper to be knocked away", game.balls().get("sleeper").xVelocity() < 0);
+        // equal balls meeting head on exchange velocities, leaving the mover at rest in turn
+        assertEquals("expected sleeper, then mover, to fall asleep", 2, metrics.ballsSlept());
+    }
+
+    // covers every ball held by an absorber
+    @Test(timeout = 10_000)
+    public void testRunParksUntilAction() throws InterruptedException {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 10, 17, 0, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Game game = new Game("parked", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+        Thread runner = new Thread(game::run);
+        runner.setDaemon(true);
+        runner.start();
+        try {
+            waitUntil(() -> runner.getState() == Thread.State.WAITING);
+            assertTrue("expected ball held by absorber", game.isQuiescent());
+            long ticks = game.metrics().ticks();
+            Thread.sleep(200);
+            assertEquals("expected no timesteps while parked", ticks, game.metrics().ticks());
+            
+            game.action("absorber");
+            waitUntil(() -> game.metrics().idlePeriods() >= 1 && game.metrics().ticks() > ticks);
+        } finally {
+            runner.interrupt();
+        }
+    }
+
+    // covers one board shared by several games
+    @Test
+    public void testGamesShareBoard() {
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new CircleBumper("circle", 9, 5));
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Map<String, String> interactions = new HashMap<>();
+        interactions.put("circle", "absorber");
+        Board board = new Board("shared", 25f, 0.025f, 0.025f, gadgets, interactions);
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 10, 1, 0, 0));
+        balls.add(new Ball("other", 3, 3, 4, 0));
+        
+        Game first = new Game(board, balls);
+        Game second = new Game(board, balls);
+        Game empty = first.withBalls(new ArrayList<>());
+        assertTrue("expected one board", first.board() == board && empty.board() == board);
+        for (int i = 0; i < 200; i++) {
+            first.tick();
+            second.tick();
+            empty.tick();
+        }
+        assertEquals("expected same balls", first.balls(), second.balls());
+        assertEquals("expected same gadgets", first.gadgets().keySet(), second.gadgets().keySet());
+        assertEquals("expected balls held", 2, (int) first.heldBalls().get("absorber"));
+        assertEquals("expected gadget state kept apart", 0, (int) empty.heldBalls().get("absorber"));
+        
+        first.action("absorber");
+        assertEquals("expected a ball fired", 1, (int) first.heldBalls().get("absorber"));
+        assertEquals("expected only first game's absorber to fire", 
+                2, (int) second.heldBalls().get("absorber"));
+    }
+
+    // covers timesteps due in real time: a few, more than can be caught up
+    @Test
+    public void testTickDue() throws FileNotFoundException, UnableToParseException {
+        Game game = FlingballParser.parse(pathToString("boards/default.fb"));
+        TickClock clock = new TickClock(Math.round(game.timestep() * 1e9));
+        long period = clock.periodNanos();
+        // restart half a period after a timestep fell due, so that the count can't change while ticking
+        clock.restart(System.nanoTime() - 2*period - period/2);
+        game.tickDue(clock);
+        Metrics metrics = game.metrics();
+        assertEquals("expected every due timestep", 3, metrics.ticks());
+        assertEquals("expected timed ticks", 3, metrics.timedTicks());
+        assertTrue("expected first timestep late", metrics.maxLatenessNanos() >= 2*period);
+        assertEquals("expected none skipped", 0, metrics.skippedTicks());
+        
+        clock.restart(System.nanoTime() - 100*period - period/2);
+        game.tickDue(clock);
+        metrics = game.metrics();
+        assertEquals("expected bounded catch-up", 3 + 5, metrics.ticks());
+        assertEquals("expected the rest skipped", 101 - 5, metrics.skippedTicks());
+        assertEquals("expected nothing more due", 0, clock.due(System.nanoTime()));
+    }
+
+    // covers two balls triggering the same action in one timestep
+    @Test
+    public void testActionsCoalesced() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("heldA", 5, 17.5, 0, 10));
+        balls.add(new Ball("heldB", 15, 17.5, 0, 10));
+        balls.add(new Ball("fromLeft", 7.5, 5.5, 10, 0));
+        balls.add(new Ball("fromRight", 11.5, 5.5, -10, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new CircleBumper("circle", 9, 5));
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Map<String, String> interactions = new HashMap<>();
+        interactions.put("circle", "absorber");
+        Game game = new Game("coalesced", 0f, 0f, 0f, balls, gadgets, interactions);
+        for (int i = 0; i < 4; i++) {
+            game.tick();
+        }
+        Metrics metrics = game.metrics();
+        assertEquals("expected both balls to hit the trigger", 2, metrics.triggers());
+        assertEquals("expected one action", 1, metrics.actions());
+        assertEquals("expected one trigger coalesced", 1, metrics.coalescedActions());
+        assertEquals("expected one ball fired", 1, (int) game.heldBalls().get("absorber"));
+        assertTrue("expected no storm", game.stormingActions().isEmpty());
+    }
+
+    // covers an absorber triggering itself, recapturing the ball it fired
+    @Test
+    public void testAbsorberRefiresBall() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 10, 10, 0, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Map<String, String> interactions = new HashMap<>();
+        interactions.put("absorber", "absorber");
+        Game game = new Game("refire", 25f, 0f, 0f, balls, gadgets, interactions);
+        assertEquals("expected one interaction", 1, game.interactions().size());
+        Gadget absorber = game.gadgets().get("absorber");
+        assertEquals("expected absorber to trigger itself", absorber, game.interactions().get(absorber));
+        // long enough to fall in, be fired to the top wall and fall in again
+        for (int i = 0; i < 200; i++) {
+            game.tick();
+        }
+        assertTrue("expected the ball to be fired more than once, not " + game.metrics().actions(),
+                game.metrics().actions() >= 2);
+        assertEquals("expected the ball to be fired whenever it is held", 0, (int) game.heldBalls().get("absorber"));
+    }
+
+    // covers interaction with an unknown gadget
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownInteraction() {
+        Map<String, String> interactions = new HashMap<>();
+        interactions.put("top", "nowhere");
+        new Game("unknown", 25f, 0.025f, 0.025f, new ArrayList<>(), new ArrayList<>(), interactions);
+    }
+
+    /**
+     * Wait until a condition holds, checking it every few milliseconds.
+     * @param condition to wait for
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static String pathToString(String filepath) throws FileNotFoundException {
+        File file = new File(filepath);
+        String wordString = new String();
+        Scanner fileWords = new Scanner(file);
+        while (fileWords.hasNextLine()) {
+            wordString = wordString + "\n" + fileWords.nextLine();
+        }
+        fileWords.close();
+        return wordString;
+    }
+}
@@ -0,0 +1,70 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+
+public class HeadlessRunnerTest {
+    // Testing strategy for HeadlessRunner
+    //   Partition the inputs as follows:
+    //     length of run: zero, some ticks, simulated seconds that are a whole number of timesteps, 
+    //       seconds that are not
+    //     board: balls hitting bumpers only, balls hitting an absorber that triggers actions
+    //   Check the report's counts and that the same board gives the same final balls every run.
+
+    /**
+     * @param path of a board file
+     * @return a new game of the board
+     */
+    private static Game parse(String path) throws IOException, UnableToParseException {
+        return FlingballParser.parse(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8));
+    }
+
+    // covers zero ticks, some ticks, balls hitting bumpers only
+    @Test
+    public void testRunTicks() throws IOException, UnableToParseException {
+        Game game = parse("boards/default.fb");
+        HeadlessRunner.Report empty = HeadlessRunner.run(game, 0);
+        assertEquals("expected no ticks", 0, empty.ticks());
+        assertEquals("expected no collisions", 0, empty.metrics().collisions());
+
+        HeadlessRunner.Report report = HeadlessRunner.run(game, 1000);
+        assertEquals("expected ticks run", 1000, report.ticks());
+        assertEquals("expected ticks counted", 1000, report.metrics().ticks());
+        assertEquals("expected simulated time", 1000*game.timestep(), report.simulatedSeconds(), 1e-9);
+        assertTrue("expected collisions with bumpers and walls", report.metrics().collisions() > 0);
+        assertEquals("expected no triggers", 0, report.metrics().triggers());
+        assertEquals("expected every ball", game.balls().keySet(), report.balls().keySet());
+    }
+
+    // covers seconds that are and are not a whole number of timesteps
+    @Test
+    public void testRunFor() throws IOException, UnableToParseException {
+        Game game = parse("boards/default.fb");
+        assertEquals("expected 1 s at 20 ticks per second", 20, HeadlessRunner.runFor(game, 1.0).ticks());
+        assertEquals("expected part of a timestep rounded up", 1, HeadlessRunner.runFor(game, 0.01).ticks());
+    }
+
+    // covers balls hitting an absorber that triggers actions
+    @Test
+    public void testReportRepeatable() throws IOException, UnableToParseException {
+        HeadlessRunner.Report first = HeadlessRunner.run(parse("boards/absorber.fb"), 2000);
+        HeadlessRunner.Report second = HeadlessRunner.run(parse("boards/absorber.fb"), 2000);
+        assertTrue("expected triggers fired", first.metrics().triggers() > 0);
+        assertEquals("expected same collisions", first.metrics().collisions(), second.metrics().collisions());
+        assertEquals("expected same final balls", first.balls(), second.balls());
+        String report = first.toString();
+        for (String ballName : first.balls().keySet()) {
+            assertTrue("expected " + ballName + " in report", report.contains("ball " + ballName + " center"));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package flingball;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+/**
+ * Soak benchmark of a BoardHost running many default.fb boards at once in real time:
+ * checks that every board keeps one timestep per 50 ms without drifting behind the wall clock.
+ * Run from the project root; not a JUnit test.
+ * Optional arguments: number of boards (default 10,000) and seconds to soak for (default 60).
+ */
+public class HostBenchmark {
+
+    private static final String BOARD = "boards/default.fb";
+    private static final double WARMUP_SECONDS = 5;
+
+    /**
+     * Host the boards, warm up, then print how many timesteps each board advanced
+     * compared with the number of 50 ms periods that passed on the wall clock.
+     * @param args number of boards and seconds to soak for, both optional
+     * @throws IOException if the board file can't be read
+     * @throws UnableToParseException if the board file can't be parsed
+     * @throws InterruptedException if interrupted while soaking
+     */
+    public static void main(String[] args) throws IOException, UnableToParseException, InterruptedException {
+        final int boards = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        final Game template = FlingballParser.parse(new String(Files.readAllBytes(Paths.get(BOARD)), StandardCharsets.UTF_8));
+        final List<Ball> balls = new ArrayList<>(template.balls().values());
+        
+        final BoardHost host = new BoardHost();
+        final List<BoardHost.Handle> handles = new ArrayList<>();
+        for (int i = 0; i < boards; i++) {
+            handles.add(host.host(template.withBalls(balls)));
+        }
+        for (BoardHost.Handle handle : handles) {
+            handle.start();
+        }
+        Thread.sleep((long) (WARMUP_SECONDS * 1000));
+        
+        final long[] before = new long[boards];
+        final long start = System.nanoTime();
+        for (int i = 0; i < boards; i++) {
+            before[i] = handles.get(i).game().metrics().ticks();
+        }
+        final long lateBefore = host.lateSweeps();
+        Thread.sleep((long) (seconds * 1000));
+        final long elapsed = System.nanoTime() - start;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long total = 0;
+        double period = 0;
+        long worstLateness = 0;
+        long skipped = 0;
+        for (int i = 0; i < boards; i++) {
+            final Metrics metrics = handles.get(i).game().metrics();
+            period += metrics.tickPeriodNanos() / boards;
+            worstLateness = Math.max(worstLateness, metrics.maxLatenessNanos());
+            skipped += metrics.skippedTicks();
+            final long ticks = metrics.ticks() - before[i];
+            min = Math.min(min, ticks);
+            max = Math.max(max, ticks);
+            total += ticks;
+        }
+        final double expected = elapsed / (template.timestep() * 1e9);
+        host.shutdown();
+        
+        System.out.printf("%d boards on %d carrier threads for %.1f s: %.1f timesteps due per board%n",
+                boards, Runtime.getRuntime().availableProcessors(), elapsed * 1e-9, expected);
+        System.out.printf("timesteps per board: min %d, mean %.1f, max %d; drift %.1f timesteps%n",
+                min, (double) total / boards, max, expected - min);
+        System.out.printf("%d sweeps a whole period late; latest sweep started %.1f ms late%n",
+                host.lateSweeps() - lateBefore, host.maxLatenessNanos() * 1e-6);
+        System.out.printf("measured tick period %.3f ms on average; latest timestep %.1f ms late; %d skipped%n",
+                period * 1e-6, worstLateness * 1e-6, skipped);
+    }
+}
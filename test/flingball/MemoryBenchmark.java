@@ -0,0 +1,72 @@
+package flingball;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+/**
+ * Benchmark of the heap used by each of many Game instances of the same board,
+ * when every instance is parsed from the board file and when every instance shares the board of one parsed game.
+ * Run from the project root; not a JUnit test.
+ */
+public class MemoryBenchmark {
+
+    private static final String[] BOARDS = { "boards/default.fb", "boards/absorber.fb" };
+    private static final int INSTANCES = 2_000;
+
+    /**
+     * @return bytes of heap in use after collecting garbage
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Print the heap used per instance of every benchmark board, and of the dense board of EngineBenchmark.
+     * @param args command line arguments, not used
+     * @throws IOException if a board file can't be read
+     * @throws UnableToParseException if a board file can't be parsed
+     */
+    public static void main(String[] args) throws IOException, UnableToParseException {
+        final List<String> names = new ArrayList<>();
+        final List<String> contents = new ArrayList<>();
+        for (String board : BOARDS) {
+            names.add(board);
+            contents.add(new String(Files.readAllBytes(Paths.get(board)), StandardCharsets.UTF_8));
+        }
+        names.add("dense (generated)");
+        contents.add(EngineBenchmark.denseBoard());
+        
+        for (int b = 0; b < names.size(); b++) {
+            final Game template = FlingballParser.parse(contents.get(b));
+            final List<Ball> balls = new ArrayList<>(template.balls().values());
+            final List<Game> games = new ArrayList<>();
+            
+            long before = usedHeap();
+            for (int i = 0; i < INSTANCES; i++) {
+                games.add(FlingballParser.parse(contents.get(b)));
+            }
+            final long parsed = (usedHeap() - before) / INSTANCES;
+            games.clear();
+            
+            before = usedHeap();
+            for (int i = 0; i < INSTANCES; i++) {
+                games.add(template.withBalls(balls));
+            }
+            final long shared = (usedHeap() - before) / INSTANCES;
+            games.clear();
+            
+            System.out.printf("%-20s %8d bytes/instance parsed  %8d bytes/instance sharing one board%n", 
+                    names.get(b), parsed, shared);
+        }
+    }
+}
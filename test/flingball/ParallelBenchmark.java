@@ -0,0 +1,85 @@
+package flingball;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of how the parallel fixed-step engine scales with the number of cores,
+ * on boards with thousands of balls.
+ * Run from the project root; not a JUnit test.
+ */
+public class ParallelBenchmark {
+
+    private static final int[] BALL_COUNTS = { 1_000, 4_000, 16_000 };
+    private static final int WARMUP_TICKS = 200;
+    private static final int MEASURED_TICKS = 1_000;
+
+    /**
+     * Make a board with a row of bumpers and many balls moving in random directions.
+     * @param ballCount number of balls
+     * @return the game
+     */
+    static Game crowdedGame(int ballCount) {
+        final Random random = new Random(6031);
+        final double maxSpeed = 20;
+        List<Ball> balls = new ArrayList<>();
+        for (int i = 0; i < ballCount; i++) {
+            balls.add(new Ball("B" + i, 0.5 + random.nextDouble()*19, 0.5 + random.nextDouble()*19,
+                               (random.nextDouble()*2 - 1)*maxSpeed, (random.nextDouble()*2 - 1)*maxSpeed));
+        }
+        List<Gadget> gadgets = new ArrayList<>();
+        for (int x = 1; x < 19; x += 3) {
+            gadgets.add(new SquareBumper("square" + x, x, 6));
+            gadgets.add(new CircleBumper("circle" + x, x + 1, 10));
+            gadgets.add(new TriangleBumper("triangle" + x, x, 14, 90));
+        }
+        return new Game("crowded", 25f, 0.025f, 0.025f, balls, gadgets, new HashMap<>());
+    }
+
+    /**
+     * @param game to run
+     * @return timesteps per second of game after warm-up
+     */
+    private static double ticksPerSecond(Game game) {
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            game.tick();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            game.tick();
+        }
+        return MEASURED_TICKS / ((System.nanoTime() - start) * 1e-9);
+    }
+
+    /**
+     * Print the timesteps per second of the sequential engine, and of the parallel engine
+     * on 1, 2, 4, ... up to the number of available cores.
+     * @param args command line arguments, not used
+     */
+    public static void main(String[] args) {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        for (int ballCount : BALL_COUNTS) {
+            final double sequential = ticksPerSecond(crowdedGame(ballCount));
+            System.out.printf("%6d balls %-20s %10.0f ticks/sec%n", ballCount, "FIXED_STEP", sequential);
+            for (int parallelism = 1; ; parallelism = Math.min(2*parallelism, cores)) {
+                final ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    final Game game = crowdedGame(ballCount);
+                    game.setEngine(Game.Engine.PARALLEL_FIXED_STEP);
+                    game.setPool(pool);
+                    final double parallel = ticksPerSecond(game);
+                    System.out.printf("%6d balls %-20s %10.0f ticks/sec  %5.2fx%n", ballCount,
+                            "PARALLEL x" + parallelism, parallel, parallel / sequential);
+                } finally {
+                    pool.shutdown();
+                }
+                if (parallelism == cores) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -27,8 +27,10 @@ public class ParserTest {
     //       Triangle Bumper
     //         given / not given orientation
     //       Absorber
+    //         given / not given capacity and eject rate
     //     Board:
     //       given / not given gravity, friction1, and friction2 values
+    //       given / not given tick rate
     //       0, 1, >1 trigger / action events defined 
     //         self-triggering or not self-triggering
     //     with / without comments
@@ -230,6 +232,41 @@ public class ParserTest {
 
     }
     
+    // covers 1 Ball
+    //        No Gadgets (except Outer Walls)
+    //        Board:
+    //          given / not given tick rate
+    //        without comments
+    @Test
+    public void testTickRate() throws UnableToParseException {
+        Game fast = FlingballParser.parse("board name=Fast gravity=25.0 tickRate=60\n"
+                + "ball name=BallA x=1.25 y=1.25 xVelocity=0 yVelocity=0\n");
+        assertEquals("expected given tick rate", 60f, fast.board().tickRate(), 0);
+        assertEquals("expected timestep of given tick rate", 1.0/60, fast.timestep(), 1e-12);
+        
+        Game usual = FlingballParser.parse("board name=Usual\n");
+        assertEquals("expected default tick rate", Board.DEFAULT_TICK_RATE, usual.board().tickRate(), 0);
+        assertEquals("expected default timestep", 0.05, usual.timestep(), 1e-12);
+    }
+    
+    // covers No Balls
+    //        Gadgets:
+    //          2 Absorbers
+    //            given / not given capacity and eject rate
+    //        without comments
+    @Test
+    public void testAbsorberOptions() throws UnableToParseException {
+        Game game = FlingballParser.parse("board name=Pit\n"
+                + "absorber name=Pit x=0 y=18 width=20 height=2 capacity=1000 ejectRate=3\n"
+                + "absorber name=Plain x=0 y=0 width=20 height=1\n");
+        Absorber pit = (Absorber) game.gadgets().get("Pit");
+        assertEquals("expected given capacity", 1000, pit.getCapacity());
+        assertEquals("expected given eject rate", 3, pit.getEjectRate());
+        Absorber plain = (Absorber) game.gadgets().get("Plain");
+        assertEquals("expected default capacity", Absorber.UNLIMITED_CAPACITY, plain.getCapacity());
+        assertEquals("expected default eject rate", Absorber.DEFAULT_EJECT_RATE, plain.getEjectRate());
+    }
+    
     private static String pathToString(String filepath) throws FileNotFoundException{
         File file = new File(filepath);
         String wordString = new String();
@@ -0,0 +1,157 @@
+package flingball;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.mit.eecs.parserlib.UnableToParseException;
+
+/**
+ * Benchmark of the time to draw a frame of boards with hundreds of gadgets, 
+ * of a board with a thousand balls, and of a board whose balls all come to rest in an absorber,
+ * redrawing every gadget, drawing all of a frame over the Simulator's cached static layer,
+ * and drawing only the regions of the frame that changed, skipping frames in which nothing did.
+ * Frames are drawn to an image, so the benchmark runs without a screen;
+ * at 60 frames per second, a frame must take well under 16.7 ms.
+ * Run from the project root; not a JUnit test.
+ */
+public class RenderBenchmark {
+
+    private static final int PIXELS = 400;
+    private static final int SCALER = 20;
+    private static final int WARMUP_FRAMES = 2_000;
+    private static final int MEASURED_FRAMES = 10_000;
+
+    /**
+     * Make a board covered in bumpers but for a sparse lattice of cells, each with a moving ball.
+     * @return board in the Flingball grammar
+     */
+    static String crowdedBoard() {
+        final String[] bumpers = { "squareBumper", "circleBumper", "triangleBumper" };
+        final double maxSpeed = 20;
+        final Random random = new Random(6031);
+        StringBuilder board = new StringBuilder("board name=Crowded gravity = 25.0\n");
+        int ballCount = 0;
+        for (int y = 1; y < 20; y++) {
+            for (int x = 0; x < 20; x++) {
+                if (x % 4 == 1 && y % 4 == 1) {
+                    board.append("ball name=B" + ballCount++ + " x=" + (x + 0.5) + " y=" + (y + 0.5)
+                            + " xVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed 
+                            + " yVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed + "\n");
+                } else {
+                    board.append(bumpers[(x + y) % bumpers.length] + " name=G" + x + "_" + y 
+                            + " x=" + x + " y=" + y + "\n");
+                }
+            }
+        }
+        return board.toString();
+    }
+
+    /**
+     * Make a board with a few bumpers and a thousand moving balls, for the frame rate of a busy display.
+     * @return board in the Flingball grammar
+     */
+    static String swarmBoard() {
+        final double maxSpeed = 20;
+        final Random random = new Random(6031);
+        StringBuilder board = new StringBuilder("board name=Swarm gravity = 25.0\n");
+        for (int x = 2; x < 20; x += 4) {
+            board.append("circleBumper name=C" + x + " x=" + x + " y=10\n");
+        }
+        for (int i = 0; i < 1000; i++) {
+            board.append("ball name=B" + i + " x=" + (1 + random.nextDouble()*18) + " y=" + (1 + random.nextDouble()*8)
+                    + " xVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed 
+                    + " yVelocity=" + (random.nextDouble()*2 - 1)*maxSpeed + "\n");
+        }
+        return board.toString();
+    }
+
+    /**
+     * Make a board whose balls all fall into an absorber and stay there, for an idle display.
+     * @return board in the Flingball grammar
+     */
+    static String restingBoard() {
+        StringBuilder board = new StringBuilder("board name=Resting gravity = 25.0\n");
+        board.append("absorber name=Abs x=0 y=18 width=20 height=2\n");
+        for (int x = 0; x < 20; x++) {
+            board.append("squareBumper name=S" + x + " x=" + x + " y=4\n");
+            board.append("ball name=B" + x + " x=" + (x + 0.5) + " y=10 xVelocity=0 yVelocity=0\n");
+        }
+        return board.toString();
+    }
+
+    /**
+     * Draw a frame by erasing everything and drawing every ball and gadget.
+     * @param g2 graphics to draw on
+     * @param game to draw
+     * @param layout gadgets of the board of game
+     */
+    private static void redrawAll(Graphics2D g2, Game game, List<Gadget> layout) {
+        g2.setColor(Color.black);
+        g2.fill(new Rectangle2D.Double(0, 0, PIXELS, PIXELS));
+        Snapshot frame = game.snapshot();
+        for (int i = 0; i < frame.ballCount(); i++) {
+            Ball.drawIcon(g2, SCALER, frame.x(i), frame.y(i));
+        }
+        for (int g = 0; g < layout.size(); g++) {
+            layout.get(g).drawIcon(g2, SCALER, frame.lastHit(g) == frame.tick());
+        }
+    }
+
+    /**
+     * Print the microseconds per frame of both ways of drawing every benchmark board.
+     * @param args command line arguments, not used
+     * @throws UnableToParseException if a board can't be parsed
+     */
+    public static void main(String[] args) throws UnableToParseException {
+        final Map<String, String> boards = new LinkedHashMap<>();
+        boards.put("dense (generated)", EngineBenchmark.denseBoard());
+        boards.put("crowded (generated)", crowdedBoard());
+        boards.put("swarm (generated)", swarmBoard());
+        boards.put("resting (generated)", restingBoard());
+        final BufferedImage image = new BufferedImage(PIXELS, PIXELS, BufferedImage.TYPE_INT_RGB);
+        
+        for (String board : boards.keySet()) {
+            for (String mode : new String[] { "redraw", "cached", "dirty" }) {
+                final Game game = FlingballParser.parse(boards.get(board));
+                final Simulator simulator = new Simulator(game);
+                final List<Gadget> layout = game.board().newGadgets();
+                final Graphics2D g2 = image.createGraphics();
+                long drawing = 0;
+                long skipped = 0;
+                for (int i = 0; i < WARMUP_FRAMES + MEASURED_FRAMES; i++) {
+                    // a timestep between frames moves the balls, but only drawing is timed
+                    game.tick();
+                    long start = System.nanoTime();
+                    boolean drawn = true;
+                    if (mode.equals("redraw")) {
+                        redrawAll(g2, game, layout);
+                    } else if (mode.equals("cached")) {
+                        simulator.render(g2);
+                    } else {
+                        Rectangle dirty = simulator.prepareFrame(start);
+                        drawn = dirty != null;
+                        if (drawn) {
+                            g2.setClip(dirty);
+                            simulator.paintFrame(g2);
+                        }
+                    }
+                    if (i >= WARMUP_FRAMES) {
+                        drawing += System.nanoTime() - start;
+                        skipped += drawn ? 0 : 1;
+                    }
+                }
+                final double micros = drawing / 1e3 / MEASURED_FRAMES;
+                g2.dispose();
+                System.out.printf("%-22s %-8s %4d gadgets %8.1f us/frame, %5.1f%% of frames skipped%n", 
+                        board, mode, layout.size(), micros, 100.0 * skipped / MEASURED_FRAMES);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SnapshotTest {
+    // Testing strategy for Snapshot and Game.snapshot()
+    //   Partition the inputs as follows:
+    //     snapshot asked for: before any timestep, after timesteps
+    //     game since: ticked, quiescent, acted on by action()
+    //     balls: moving, held by an absorber
+    //     balls since an earlier snapshot: same, one added
+    //     gadget: never hit, hit during the latest timestep, hit during an earlier timestep
+    //   Check that a snapshot shows the game as it was when published and never changes afterwards,
+    //   and that a game publishes a new snapshot only when something has changed,
+    //   and that the timestep of the latest hit of every gadget is recorded for renderers
+
+    /**
+     * @return a game with one ball falling into an absorber
+     */
+    private static Game fallingBall() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 10, 10, 0, 0));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        Map<String, String> interactions = new HashMap<>();
+        return new Game("falling", 25f, 0f, 0f, balls, gadgets, interactions);
+    }
+
+    // covers asked for before any timestep, ticked, moving ball
+    @Test
+    public void testSnapshotUnchangedByTicks() {
+        Game game = fallingBall();
+        Snapshot first = game.snapshot();
+        assertEquals("expected no timesteps yet", 0, first.tick());
+        assertEquals("expected one ball", 1, first.ballCount());
+        assertEquals("expected ball name", "ball", first.ballName(0));
+        assertEquals("expected initial position", 10, first.y(0), 0);
+        assertTrue("expected ball active", first.isActive(0));
+        assertSame("expected same snapshot until a timestep", first, game.snapshot());
+
+        game.tick();
+        Snapshot second = game.snapshot();
+        assertNotSame("expected new snapshot", first, second);
+        assertEquals("expected one timestep", 1, second.tick());
+        assertTrue("expected ball to fall", second.yVelocity(0) > 0);
+        assertEquals("expected old snapshot unchanged", 10, first.y(0), 0);
+        assertEquals("expected old snapshot unchanged", 0, first.yVelocity(0), 0);
+    }
+
+    // covers asked for after timesteps, quiescent, acted on, held ball
+    @Test
+    public void testSnapshotOfHeldBall() {
+        Game game = fallingBall();
+        while (!game.isQuiescent()) {
+            game.tick();
+        }
+        Snapshot held = game.snapshot();
+        int absorber = -1;
+        for (int g = 0; g < held.gadgetCount(); g++) {
+            if (held.gadgetName(g).equals("absorber")) {
+                absorber = g;
+            }
+        }
+        assertEquals("expected absorber first", 0, absorber);
+        assertEquals("expected ball held", 1, held.heldBalls(absorber));
+        assertFalse("expected held ball inactive", held.isActive(0));
+        assertEquals("expected same balls as the game", game.balls().get("ball"), held.balls().get(0));
+
+        game.tick();
+        assertSame("expected no new snapshot for a quiescent timestep", held, game.snapshot());
+
+        game.action("absorber");
+        Snapshot fired = game.snapshot();
+        assertEquals("expected ball fired", 0, fired.heldBalls(absorber));
+        assertTrue("expected fired ball active", fired.isActive(0));
+        assertEquals("expected old snapshot unchanged", 1, held.heldBalls(absorber));
+    }
+
+    // covers gadget never hit, hit during the latest timestep, hit during an earlier timestep
+    @Test
+    public void testLastHits() {
+        List<Ball> balls = new ArrayList<>();
+        balls.add(new Ball("ball", 5.5, 2.5, 0, 20));
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 5, 5));
+        gadgets.add(new SquareBumper("untouched", 15, 5));
+        Map<String, String> interactions = new HashMap<>();
+        Game game = new Game("hits", 0f, 0f, 0f, balls, gadgets, interactions);
+        assertEquals("expected no hit before any timestep", 0, game.snapshot().lastHit(0));
+
+        long hit = 0;
+        while (hit == 0 && game.snapshot().tick() < 100) {
+            game.tick();
+            hit = game.snapshot().lastHit(0);
+            if (hit != 0) {
+                assertEquals("expected hit during the latest timestep", game.snapshot().tick(), hit);
+            }
+        }
+        assertTrue("expected ball to hit the bumper", hit > 0);
+        assertTrue("expected ball to bounce back", game.snapshot().yVelocity(0) < 0);
+        game.tick();
+        assertEquals("expected earlier hit kept", hit, game.snapshot().lastHit(0));
+        assertEquals("expected other bumper never hit", 0, game.snapshot().lastHit(1));
+    }
+
+    // covers balls since an earlier snapshot same, one added
+    @Test
+    public void testSameBallsAndTime() {
+        Game game = fallingBall();
+        Snapshot first = game.snapshot();
+        game.tick();
+        Snapshot second = game.snapshot();
+        assertTrue("expected same balls", second.hasSameBalls(first));
+        assertTrue("expected later snapshot taken later", second.nanoTime() >= first.nanoTime());
+
+        game.post(Command.addBall(new Ball("added", 5, 5, 0, 0)));
+        game.tick();
+        Snapshot third = game.snapshot();
+        assertFalse("expected different balls", third.hasSameBalls(second));
+        assertEquals("expected balls in order of place", "added", third.ballName(1));
+    }
+}
@@ -0,0 +1,59 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+public class SpatialGridTest {
+    // Testing strategy for SpatialGrid
+    //   Partition the inputs as follows:
+    //     gadgets: 1x1 bumper, absorber spanning several cells, wall spanning a whole side
+    //     query box: covers no gadget, covers part of a gadget, covers several gadgets,
+    //       extends outside the playing area
+    //     gadget found through one cell, through several cells
+
+    /**
+     * @return gadgets used by the tests, identified by their index
+     */
+    private static List<Gadget> makeGadgets() {
+        List<Gadget> gadgets = new ArrayList<>();
+        gadgets.add(new SquareBumper("square", 3, 3));
+        gadgets.add(new CircleBumper("circle", 10, 10));
+        gadgets.add(new Absorber("absorber", 0, 18, 20, 2));
+        gadgets.add(new Wall("top", 0, 0, 20, 0));
+        return gadgets;
+    }
+
+    // covers query box covers no gadget
+    @Test
+    public void testQueryEmpty() {
+        SpatialGrid grid = new SpatialGrid(makeGadgets(), 20);
+        int[] result = new int[4];
+        assertEquals("expected no gadgets", 0, grid.query(6.2, 6.2, 7.8, 7.8, result));
+    }
+
+    // covers query box covers part of a gadget, gadget found through several cells
+    @Test
+    public void testQueryPartOfAbsorber() {
+        SpatialGrid grid = new SpatialGrid(makeGadgets(), 20);
+        int[] result = new int[4];
+        int count = grid.query(12.5, 16.5, 14.5, 19.5, result);
+        assertEquals("expected one gadget", 1, count);
+        assertEquals("expected absorber", 2, result[0]);
+    }
+
+    // covers query box covers several gadgets, extends outside the playing area
+    @Test
+    public void testQuerySeveralGadgets() {
+        SpatialGrid grid = new SpatialGrid(makeGadgets(), 20);
+        int[] result = new int[4];
+        int count = grid.query(-5, -5, 3.5, 3.5, result);
+        assertEquals("expected two gadgets", 2, count);
+        assertEquals("expected square first", 0, result[0]);
+        assertEquals("expected top wall second", 3, result[1]);
+    }
+}
@@ -0,0 +1,135 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+
+public class SweepAndPruneTest {
+    // Testing strategy for SweepAndPrune
+    //   Partition the inputs as follows:
+    //     balls: none overlapping, overlapping along x only, overlapping along x and y, inactive, asleep
+    //     updates: first update, after the balls moved past each other, after balls were added
+    //   Compare the pairs found with the pairs found by testing every pair of boxes.
+
+    private static final double TIMESTEP = 0.05;
+
+    /**
+     * @param store balls to test
+     * @return the pairs of active balls whose swept boxes overlap, found by testing every pair,
+     *         each written as "i j" with i < j
+     */
+    private static Set<String> allPairs(BallStore store) {
+        final double radius = Ball.BALL_RADIUS;
+        Set<String> pairs = new TreeSet<>();
+        for (int i = 0; i < store.size(); i++) {
+            for (int j = i + 1; j < store.size(); j++) {
+                if (!store.isActive(i) || !store.isActive(j)) {
+                    continue;
+                }
+                double[] a = box(store, i, radius);
+                double[] b = box(store, j, radius);
+                if (a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3]) {
+                    pairs.add(i + " " + j);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * @param store balls to test
+     * @param i index of a ball in store
+     * @param radius of the ball
+     * @return the box swept by the ball during a timestep, as left, top, right and bottom sides
+     */
+    private static double[] box(BallStore store, int i, double radius) {
+        double x = store.x(i);
+        double y = store.y(i);
+        double dx = store.xVelocity(i)*TIMESTEP;
+        double dy = store.yVelocity(i)*TIMESTEP;
+        return new double[] { Math.min(x, x + dx) - radius, Math.min(y, y + dy) - radius, 
+                              Math.max(x, x + dx) + radius, Math.max(y, y + dy) + radius };
+    }
+
+    /**
+     * @param sweep broad phase to query
+     * @return the pairs found by sweep, each written as "i j" with i < j
+     */
+    private static Set<String> foundPairs(SweepAndPrune sweep) {
+        Set<String> pairs = new TreeSet<>();
+        int count = sweep.findPairs();
+        for (int p = 0; p < count; p++) {
+            int i = Math.min(sweep.first(p), sweep.second(p));
+            int j = Math.max(sweep.first(p), sweep.second(p));
+            pairs.add(i + " " + j);
+        }
+        assertEquals("expected each pair once", count, pairs.size());
+        return pairs;
+    }
+
+    // covers balls not overlapping, overlapping along x only, along x and y, first update
+    @Test
+    public void testFindPairs() {
+        BallStore store = new BallStore(4);
+        store.add("a", 1, 1, 0, 0);
+        store.add("b", 1.2, 5, 0, 0);
+        store.add("c", 1.3, 1.1, 0, 0);
+        store.add("d", 10, 10, 0, 0);
+        SweepAndPrune sweep = new SweepAndPrune(4);
+        sweep.update(store, TIMESTEP);
+        assertEquals("expected only a and c", new TreeSet<>(Arrays.asList("0 2")), foundPairs(sweep));
+    }
+
+    // covers inactive balls, balls added after the first update
+    @Test
+    public void testInactiveAndAdded() {
+        BallStore store = new BallStore(1);
+        store.add("a", 1, 1, 0, 0);
+        SweepAndPrune sweep = new SweepAndPrune(1);
+        sweep.update(store, TIMESTEP);
+        assertEquals("expected no pairs", 0, sweep.findPairs());
+        store.add("b", 1.2, 1, 0, 0);
+        store.add("c", 1.4, 1, 0, 0);
+        store.setActive(1, false);
+        sweep.update(store, TIMESTEP);
+        assertEquals("expected only a and c", new TreeSet<>(Arrays.asList("0 2")), foundPairs(sweep));
+    }
+
+    // covers sleeping balls
+    @Test
+    public void testSleepingBall() {
+        BallStore store = new BallStore(2);
+        store.add("a", 1, 1, 0, 0);
+        store.add("b", 2, 1, -10, 0);
+        store.setAsleep(0, true);
+        SweepAndPrune sweep = new SweepAndPrune(2);
+        sweep.update(store, TIMESTEP);
+        assertEquals("expected sleeping ball to be swept", new TreeSet<>(Arrays.asList("0 1")), foundPairs(sweep));
+    }
+
+    // covers balls moving past each other between updates
+    @Test
+    public void testMovingBallsRandom() {
+        Random random = new Random(7);
+        BallStore store = new BallStore(200);
+        for (int i = 0; i < 200; i++) {
+            store.add("b" + i, random.nextDouble()*20, random.nextDouble()*20,
+                      random.nextDouble()*40 - 20, random.nextDouble()*40 - 20);
+        }
+        SweepAndPrune sweep = new SweepAndPrune(200);
+        for (int step = 0; step < 100; step++) {
+            sweep.update(store, TIMESTEP);
+            assertEquals("step " + step, allPairs(store), foundPairs(sweep));
+            for (int i = 0; i < store.size(); i++) {
+                store.setCenter(i, store.x(i) + store.xVelocity(i)*TIMESTEP, store.y(i) + store.yVelocity(i)*TIMESTEP);
+                store.setActive(i, random.nextInt(10) > 0);
+            }
+        }
+    }
+}
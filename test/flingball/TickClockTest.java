@@ -0,0 +1,55 @@
+package flingball;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class TickClockTest {
+    // Testing strategy for TickClock
+    //   Partition the inputs as follows:
+    //     time since restart: before the first timestep is due, exactly when one is due, 
+    //       between timesteps, several periods behind
+    //     timesteps started since restart: none, one, several
+    //     skipped timesteps: none, some
+    //   Check the number of timesteps due, their lateness, the intervals between them, 
+    //   and the time until the next one.
+
+    private static final long PERIOD = 50;
+
+    // covers exactly when one is due, between timesteps, none and one and several started, none skipped
+    @Test
+    public void testOnTime() {
+        TickClock clock = new TickClock(PERIOD);
+        clock.restart(1000);
+        assertEquals("expected first timestep due at once", 1, clock.due(1000));
+        assertEquals("expected first timestep on time", 0, clock.lateness(1000));
+        assertEquals("expected no interval after restart", -1, clock.started(1000));
+        assertEquals("expected nothing due mid-period", 0, clock.due(1020));
+        assertEquals("expected time until next", 30, clock.nanosUntilDue(1020));
+        assertEquals("expected next due after a period", 1, clock.due(1053));
+        assertEquals("expected lateness", 3, clock.lateness(1053));
+        assertEquals("expected interval since last start", 53, clock.started(1053));
+        // the next timestep is due a period after the last was due, not after it started
+        assertEquals("expected no drift", 47, clock.nanosUntilDue(1053));
+    }
+
+    // covers before the first timestep is due, several periods behind, some skipped
+    @Test
+    public void testBehind() {
+        TickClock clock = new TickClock(PERIOD);
+        clock.restart(1000);
+        assertEquals("expected nothing due before restart", 0, clock.due(999));
+        assertEquals("expected every timestep due so far", 5, clock.due(1200));
+        clock.skip(3);
+        assertEquals("expected skipped timesteps gone", 2, clock.due(1200));
+        assertEquals("expected lateness of first remaining", 50, clock.lateness(1200));
+        clock.started(1200);
+        clock.started(1200);
+        assertEquals("expected caught up", 0, clock.due(1200));
+        assertEquals("expected next due on schedule", 50, clock.nanosUntilDue(1200));
+        
+        clock.restart(5000);
+        assertEquals("expected missed timesteps forgotten", 1, clock.due(5000));
+    }
+}